@@ -0,0 +1,206 @@
+package cn.daydayup.dev.streamable.mcp.benchmarks;
+
+import cn.daydayup.dev.streamable.mcp.starter.core.McpFunctionInfo;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpServerEndpointAutoRegistry;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpStreamableHttpHandler;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @ClassName McpBenchmarkSupport
+ * @Description 基准测试公共方法: 构建指定工具数量的处理器, 并以Mock请求调用 handlePost
+ * 处理器不设置工具线程池, 工具在调用线程中执行, 测量结果不包含线程切换开销
+ * spring-test 5.1 的Mock输入输出流只实现了单字节读写(且每字节flush一次), 此处替换为批量读写的流, 避免测量结果被Mock开销主导
+ * @Author ZhaoYanNing
+ * @Date 2025/10/20 14:10
+ * @Version 1.0
+ */
+public final class McpBenchmarkSupport {
+
+    private McpBenchmarkSupport() {
+    }
+
+    /**
+     * 构建包含指定数量工具的处理器, 使用编译期生成的描述符
+     *
+     * @param toolCount 工具数量, 不小于桩工具数量
+     * @return 处理器
+     */
+    public static McpStreamableHttpHandler createHandler(int toolCount) {
+        return createHandler(toolCount, true);
+    }
+
+    /**
+     * 构建包含指定数量工具的处理器
+     * 桩工具按原名称注册, 不足部分以桩工具的带序号副本补齐
+     *
+     * @param toolCount 工具数量, 不小于桩工具数量
+     * @param generated true 使用编译期生成的描述符(直接调用), false 使用反射扫描(MethodHandle调用)
+     * @return 处理器
+     */
+    public static McpStreamableHttpHandler createHandler(int toolCount, boolean generated) {
+        List<McpFunctionInfo> stubs = generated
+                ? McpServerEndpointAutoRegistry.loadMcpFunctions(McpBenchmarkTools.class)
+                : McpServerEndpointAutoRegistry.collectMcpFunctions(McpBenchmarkTools.class);
+        List<McpFunctionInfo> functionInfos = new ArrayList<>(stubs);
+        for (int i = stubs.size(); i < toolCount; i++) {
+            McpFunctionInfo stub = stubs.get(i % stubs.size());
+            functionInfos.add(stub.toBuilder().name(stub.getName() + "_" + i).build());
+        }
+
+        McpStreamableHttpHandler handler = new McpStreamableHttpHandler();
+        handler.setName("benchmark");
+        handler.setVersion("1.0");
+        handler.setPath("/mcp/benchmark");
+        handler.setTargetBean(new McpBenchmarkTools());
+        handler.setFunctionInfos(functionInfos);
+        return handler;
+    }
+
+    /**
+     * 以JSON请求体调用 handlePost
+     *
+     * @param handler 处理器
+     * @param body    请求体
+     * @return 响应
+     */
+    public static MockHttpServletResponse post(McpStreamableHttpHandler handler, byte[] body) throws IOException {
+        MockHttpServletRequest request = new BenchmarkRequest(body);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.addHeader("Accept", MediaType.APPLICATION_JSON_VALUE);
+        MockHttpServletResponse response = new BenchmarkResponse();
+        handler.handlePost(request, response);
+        return response;
+    }
+
+    /**
+     * 构建 tools/call 请求体
+     *
+     * @param tool      工具名称
+     * @param arguments arguments 的JSON内容
+     */
+    public static byte[] toolsCall(String tool, String arguments) {
+        return ("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/call\",\"params\":{\"name\":\"" + tool
+                + "\",\"arguments\":" + arguments + "}}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 构建无参数请求体
+     *
+     * @param method JSON-RPC方法
+     */
+    public static byte[] request(String method) {
+        return ("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"" + method + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 预热前校验请求能得到成功响应, 避免对错误路径做基准测试
+     *
+     * @param handler 处理器
+     * @param body    请求体
+     */
+    public static void verify(McpStreamableHttpHandler handler, byte[] body) throws IOException {
+        MockHttpServletResponse response = post(handler, body);
+        String content = new String(response.getContentAsByteArray(), StandardCharsets.UTF_8);
+        if (response.getStatus() != HttpStatus.OK.value() || !content.contains("\"result\"")) {
+            throw new IllegalStateException("基准测试请求未返回成功响应: " + response.getStatus() + " " + content);
+        }
+    }
+
+    /**
+     * 支持批量读取请求体的Mock请求
+     */
+    private static class BenchmarkRequest extends MockHttpServletRequest {
+
+        private final ByteArrayInputStream body;
+
+        BenchmarkRequest(byte[] body) {
+            super("POST", "/mcp/benchmark");
+            setContent(body);
+            this.body = new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return body.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return body.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return body.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+
+    /**
+     * 支持批量写出响应体的Mock响应
+     */
+    private static class BenchmarkResponse extends MockHttpServletResponse {
+
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream(1024);
+
+        private final ServletOutputStream outputStream = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                content.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                content.write(b, off, len);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return outputStream;
+        }
+
+        @Override
+        public byte[] getContentAsByteArray() {
+            return content.toByteArray();
+        }
+    }
+}
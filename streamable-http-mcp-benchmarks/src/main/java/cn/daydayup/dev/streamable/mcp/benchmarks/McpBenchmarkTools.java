@@ -0,0 +1,53 @@
+package cn.daydayup.dev.streamable.mcp.benchmarks;
+
+import cn.daydayup.dev.streamable.mcp.starter.annotation.McpFunction;
+import cn.daydayup.dev.streamable.mcp.starter.annotation.McpParam;
+import cn.daydayup.dev.streamable.mcp.starter.annotation.McpServerEndpoint;
+
+import java.util.List;
+
+/**
+ * @ClassName McpBenchmarkTools
+ * @Description 基准测试使用的桩工具, 覆盖不同的参数数量与类型, 工具本身几乎不做计算
+ * @Author ZhaoYanNing
+ * @Date 2025/10/20 14:10
+ * @Version 1.0
+ */
+@McpServerEndpoint(path = "/mcp/benchmark", name = "benchmark", version = "1.0")
+public class McpBenchmarkTools {
+
+    @McpFunction(name = "noArgs", description = "无参数工具")
+    public String noArgs() {
+        return "ok";
+    }
+
+    @McpFunction(name = "oneString", description = "单个字符串参数")
+    public String oneString(@McpParam(name = "text", description = "文本", required = true) String text) {
+        return text;
+    }
+
+    @McpFunction(name = "fourMixed", description = "四个不同类型的参数")
+    public String fourMixed(@McpParam(name = "city", description = "城市", required = true) String city,
+                            @McpParam(name = "days", description = "天数") Integer days,
+                            @McpParam(name = "threshold", description = "阈值") Double threshold,
+                            @McpParam(name = "detail", description = "是否返回详情") Boolean detail) {
+        return city + days;
+    }
+
+    @McpFunction(name = "eightMixed", description = "八个不同类型的参数")
+    public String eightMixed(@McpParam(name = "query", description = "查询内容", required = true) String query,
+                             @McpParam(name = "limit", description = "返回条数") Integer limit,
+                             @McpParam(name = "offset", description = "偏移量") Long offset,
+                             @McpParam(name = "score", description = "最低分数") Double score,
+                             @McpParam(name = "weight", description = "权重") Float weight,
+                             @McpParam(name = "exact", description = "是否精确匹配") Boolean exact,
+                             @McpParam(name = "lang", description = "语言", enums = {"zh", "en"}) String lang,
+                             @McpParam(name = "sort", description = "排序字段") String sort) {
+        return query + limit;
+    }
+
+    @McpFunction(name = "idList", description = "长整型ID列表参数")
+    public String idList(@McpParam(name = "ids", description = "ID列表", required = true) List<Long> ids) {
+        return "size=" + ids.size();
+    }
+}
@@ -0,0 +1,25 @@
+package cn.daydayup.dev.streamable.mcp.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * @ClassName McpBenchmarks
+ * @Description 基准测试入口, 接受JMH命令行参数并始终启用GC分析器以输出分配速率
+ * @Author ZhaoYanNing
+ * @Date 2025/10/20 14:45
+ * @Version 1.0
+ */
+public class McpBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
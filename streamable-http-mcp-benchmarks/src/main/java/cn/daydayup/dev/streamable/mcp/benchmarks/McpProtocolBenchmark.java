@@ -0,0 +1,69 @@
+package cn.daydayup.dev.streamable.mcp.benchmarks;
+
+import cn.daydayup.dev.streamable.mcp.starter.core.McpStreamableHttpHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName McpProtocolBenchmark
+ * @Description initialize、ping、tools/list 的吞吐量基准测试, 工具目录规模分别为 10/100/1000
+ * @Author ZhaoYanNing
+ * @Date 2025/10/20 14:30
+ * @Version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class McpProtocolBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int toolCount;
+
+    private McpStreamableHttpHandler handler;
+
+    private byte[] initialize;
+    private byte[] ping;
+    private byte[] toolsList;
+
+    @Setup
+    public void setup() throws IOException {
+        handler = McpBenchmarkSupport.createHandler(toolCount);
+        initialize = McpBenchmarkSupport.request("initialize");
+        ping = McpBenchmarkSupport.request("ping");
+        toolsList = McpBenchmarkSupport.request("tools/list");
+        McpBenchmarkSupport.verify(handler, initialize);
+        McpBenchmarkSupport.verify(handler, ping);
+        McpBenchmarkSupport.verify(handler, toolsList);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse initialize() throws IOException {
+        return McpBenchmarkSupport.post(handler, initialize);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse ping() throws IOException {
+        return McpBenchmarkSupport.post(handler, ping);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse toolsList() throws IOException {
+        return McpBenchmarkSupport.post(handler, toolsList);
+    }
+}
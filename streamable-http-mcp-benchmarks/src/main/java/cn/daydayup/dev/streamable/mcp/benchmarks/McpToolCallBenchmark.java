@@ -0,0 +1,81 @@
+package cn.daydayup.dev.streamable.mcp.benchmarks;
+
+import cn.daydayup.dev.streamable.mcp.starter.core.McpStreamableHttpHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName McpToolCallBenchmark
+ * @Description tools/call 的吞吐量基准测试, 覆盖不同的参数数量与类型, 以及生成代码与反射两种调用方式
+ * @Author ZhaoYanNing
+ * @Date 2025/10/20 14:30
+ * @Version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class McpToolCallBenchmark {
+
+    @Param({"noArgs", "oneString", "fourMixed", "eightMixed", "idList"})
+    private String tool;
+
+    /**
+     * generated: 编译期生成的直接调用; reflection: 反射扫描后的MethodHandle调用
+     */
+    @Param({"generated", "reflection"})
+    private String invoker;
+
+    private McpStreamableHttpHandler handler;
+
+    private byte[] toolsCall;
+
+    @Setup
+    public void setup() throws IOException {
+        handler = McpBenchmarkSupport.createHandler(10, "generated".equals(invoker));
+        toolsCall = McpBenchmarkSupport.toolsCall(tool, arguments(tool));
+        McpBenchmarkSupport.verify(handler, toolsCall);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse toolsCall() throws IOException {
+        return McpBenchmarkSupport.post(handler, toolsCall);
+    }
+
+    private static String arguments(String tool) {
+        switch (tool) {
+            case "noArgs":
+                return "{}";
+            case "oneString":
+                return "{\"text\":\"hello\"}";
+            case "fourMixed":
+                return "{\"city\":\"Beijing\",\"days\":3,\"threshold\":0.5,\"detail\":true}";
+            case "eightMixed":
+                return "{\"query\":\"streamable http\",\"limit\":10,\"offset\":20,\"score\":0.75,\"weight\":1.5,"
+                        + "\"exact\":false,\"lang\":\"zh\",\"sort\":\"date\"}";
+            case "idList":
+                StringBuilder ids = new StringBuilder("{\"ids\":[");
+                for (int i = 0; i < 1000; i++) {
+                    ids.append(i > 0 ? "," : "").append(1_000_000_000L + i);
+                }
+                return ids.append("]}").toString();
+            default:
+                throw new IllegalArgumentException("未知的工具: " + tool);
+        }
+    }
+}
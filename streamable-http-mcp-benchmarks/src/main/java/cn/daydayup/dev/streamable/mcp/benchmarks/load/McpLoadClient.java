@@ -0,0 +1,118 @@
+package cn.daydayup.dev.streamable.mcp.benchmarks.load;
+
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @ClassName McpLoadClient
+ * @Description 模拟单个MCP客户端, 循环执行会话直到压测结束:
+ * initialize -> notifications/initialized -> tools/list -> 多次 tools/call -> DELETE 终止会话
+ * 服务端在 initialize 响应中返回 Mcp-Session-Id 时, 后续请求均携带该会话ID
+ * @Author ZhaoYanNing
+ * @Date 2025/10/20 16:20
+ * @Version 1.0
+ */
+public class McpLoadClient implements Runnable {
+
+    private static final String ACCEPT            = "application/json, text/event-stream";
+    private static final String SESSION_ID_HEADER = "Mcp-Session-Id";
+
+    private final CloseableHttpClient httpClient;
+    private final String              url;
+    private final McpLoadStats        stats;
+    private final int                 callsPerSession;
+    private final int                 toolLatencyMs;
+    private final long                deadlineNanos;
+
+    private long   nextId;
+    private String sessionId;
+
+    public McpLoadClient(CloseableHttpClient httpClient, String url, McpLoadStats stats, int callsPerSession,
+                         int toolLatencyMs, long deadlineNanos) {
+        this.httpClient = httpClient;
+        this.url = url;
+        this.stats = stats;
+        this.callsPerSession = callsPerSession;
+        this.toolLatencyMs = toolLatencyMs;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    @Override
+    public void run() {
+        while (System.nanoTime() < deadlineNanos) {
+            send("initialize", "{\"protocolVersion\":\"2024-11-05\",\"capabilities\":{},"
+                    + "\"clientInfo\":{\"name\":\"mcp-load-test\",\"version\":\"1.0\"}}");
+            sendNotification("notifications/initialized");
+            send("tools/list", null);
+            for (int i = 0; i < callsPerSession && System.nanoTime() < deadlineNanos; i++) {
+                if (i % 2 == 0) {
+                    send("tools/call", "{\"name\":\"echo\",\"arguments\":{\"text\":\"hello " + i + "\"}}");
+                } else {
+                    send("tools/call", "{\"name\":\"work\",\"arguments\":{\"query\":\"q" + i + "\",\"latencyMs\":"
+                            + toolLatencyMs + "}}");
+                }
+            }
+            terminateSession();
+        }
+    }
+
+    private void send(String method, String params) {
+        String body = "{\"jsonrpc\":\"2.0\",\"id\":" + (++nextId) + ",\"method\":\"" + method + "\""
+                + (params != null ? ",\"params\":" + params : "") + "}";
+        execute(method, body, 200);
+    }
+
+    private void sendNotification(String method) {
+        execute(method, "{\"jsonrpc\":\"2.0\",\"method\":\"" + method + "\"}", 202);
+    }
+
+    private void terminateSession() {
+        if (sessionId == null) {
+            return;
+        }
+        HttpDelete delete = new HttpDelete(url);
+        delete.setHeader(SESSION_ID_HEADER, sessionId);
+        sessionId = null;
+        long start = System.nanoTime();
+        boolean success;
+        try (CloseableHttpResponse response = httpClient.execute(delete)) {
+            EntityUtils.consume(response.getEntity());
+            success = response.getStatusLine().getStatusCode() == 200;
+        } catch (IOException e) {
+            success = false;
+        }
+        stats.record("DELETE", System.nanoTime() - start, success);
+    }
+
+    private void execute(String method, String body, int expectedStatus) {
+        HttpPost post = new HttpPost(url);
+        post.setHeader(HttpHeaders.ACCEPT, ACCEPT);
+        if (sessionId != null) {
+            post.setHeader(SESSION_ID_HEADER, sessionId);
+        }
+        post.setEntity(new ByteArrayEntity(body.getBytes(StandardCharsets.UTF_8), ContentType.APPLICATION_JSON));
+        long start = System.nanoTime();
+        boolean success;
+        try (CloseableHttpResponse response = httpClient.execute(post)) {
+            String content = response.getEntity() != null ? EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8) : "";
+            success = response.getStatusLine().getStatusCode() == expectedStatus && !content.contains("\"error\":{");
+            Header sessionHeader = response.getFirstHeader(SESSION_ID_HEADER);
+            if (sessionHeader != null) {
+                sessionId = sessionHeader.getValue();
+            }
+        } catch (IOException e) {
+            success = false;
+        }
+        stats.record(method, System.nanoTime() - start, success);
+    }
+}
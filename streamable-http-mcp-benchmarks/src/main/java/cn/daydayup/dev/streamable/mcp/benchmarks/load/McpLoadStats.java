@@ -0,0 +1,94 @@
+package cn.daydayup.dev.streamable.mcp.benchmarks.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @ClassName McpLoadStats
+ * @Description 按JSON-RPC方法统计压测延迟(微秒)与错误数, 可被所有客户端线程并发记录
+ * @Author ZhaoYanNing
+ * @Date 2025/10/20 16:20
+ * @Version 1.0
+ */
+public class McpLoadStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<String, MethodStats> methods = new LinkedHashMap<>();
+
+    public McpLoadStats(String... methodNames) {
+        for (String method : methodNames) {
+            methods.put(method, new MethodStats());
+        }
+    }
+
+    /**
+     * 记录一次请求
+     *
+     * @param method       JSON-RPC方法
+     * @param latencyNanos 请求耗时(纳秒)
+     * @param success      是否成功
+     */
+    public void record(String method, long latencyNanos, boolean success) {
+        MethodStats stats = methods.get(method);
+        stats.recorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+        if (!success) {
+            stats.errors.increment();
+        }
+    }
+
+    /**
+     * 丢弃到目前为止的记录, 用于预热结束时
+     */
+    public void reset() {
+        for (MethodStats stats : methods.values()) {
+            stats.recorder.reset();
+            stats.errors.reset();
+        }
+    }
+
+    /**
+     * 输出各方法及合计的吞吐量、延迟百分位与错误数
+     *
+     * @param out          输出
+     * @param elapsedNanos 统计时长(纳秒)
+     */
+    public void report(PrintStream out, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        long totalErrors = 0;
+        out.printf("%-26s %10s %10s %10s %10s %10s %10s %10s%n",
+                "method", "requests", "errors", "req/s", "p50(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+        for (Map.Entry<String, MethodStats> entry : methods.entrySet()) {
+            Histogram histogram = entry.getValue().recorder.getIntervalHistogram();
+            long errors = entry.getValue().errors.sum();
+            total.add(histogram);
+            totalErrors += errors;
+            print(out, entry.getKey(), histogram, errors, seconds);
+        }
+        print(out, "total", total, totalErrors, seconds);
+    }
+
+    private static void print(PrintStream out, String name, Histogram histogram, long errors, double seconds) {
+        out.printf("%-26s %10d %10d %10.1f %10.3f %10.3f %10.3f %10.3f%n", name, histogram.getTotalCount(), errors,
+                histogram.getTotalCount() / seconds, millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static class MethodStats {
+
+        private final Recorder  recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        private final LongAdder errors   = new LongAdder();
+    }
+}
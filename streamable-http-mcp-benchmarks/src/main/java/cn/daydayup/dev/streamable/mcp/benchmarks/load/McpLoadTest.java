@@ -0,0 +1,81 @@
+package cn.daydayup.dev.streamable.mcp.benchmarks.load;
+
+import cn.daydayup.dev.streamable.mcp.demo.StreamableHttpMcpDemoApplication;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName McpLoadTest
+ * @Description 端到端压测入口: 在随机端口启动demo应用并注册桩工具, 以多个并发MCP客户端经Tomcat、DispatcherServlet施压,
+ * 输出吞吐量、HdrHistogram延迟百分位与错误数; 全程只访问本机, 可离线运行
+ * 压测参数以 --load.* 传入, 其余参数(如 --mcp.server.executor.threads=32)作为应用配置生效
+ * @Author ZhaoYanNing
+ * @Date 2025/10/20 16:40
+ * @Version 1.0
+ */
+public class McpLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        // 随机端口需以命令行参数传入, 才能覆盖demo应用 application.yml 中的端口配置
+        String[] applicationArgs = new String[args.length + 1];
+        applicationArgs[0] = "--server.port=0";
+        System.arraycopy(args, 0, applicationArgs, 1, args.length);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(StreamableHttpMcpDemoApplication.class,
+                McpLoadTestTools.class)
+                .run(applicationArgs);
+        int exitCode = 0;
+        try {
+            Environment env = context.getEnvironment();
+            int clients = env.getProperty("load.clients", Integer.class, 32);
+            long warmupSeconds = env.getProperty("load.warmup-seconds", Long.class, 10L);
+            long durationSeconds = env.getProperty("load.duration-seconds", Long.class, 30L);
+            int callsPerSession = env.getProperty("load.calls-per-session", Integer.class, 10);
+            int toolLatencyMs = env.getProperty("load.tool-latency-ms", Integer.class, 5);
+
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            String url = "http://127.0.0.1:" + port + "/mcp/load";
+            System.out.printf("压测开始: %s, clients=%d, warmup=%ds, duration=%ds, callsPerSession=%d, toolLatency=%dms%n",
+                    url, clients, warmupSeconds, durationSeconds, callsPerSession, toolLatencyMs);
+
+            McpLoadStats stats = new McpLoadStats("initialize", "notifications/initialized", "tools/list", "tools/call", "DELETE");
+            long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            long deadline = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+            PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+            connectionManager.setMaxTotal(clients);
+            connectionManager.setDefaultMaxPerRoute(clients);
+            try (CloseableHttpClient httpClient = HttpClients.custom().setConnectionManager(connectionManager).build()) {
+                List<Thread> threads = new ArrayList<>(clients);
+                for (int i = 0; i < clients; i++) {
+                    Thread thread = new Thread(new McpLoadClient(httpClient, url, stats, callsPerSession, toolLatencyMs, deadline),
+                            "mcp-load-client-" + i);
+                    thread.start();
+                    threads.add(thread);
+                }
+
+                TimeUnit.NANOSECONDS.sleep(warmupEnd - System.nanoTime());
+                stats.reset();
+                long measureStart = System.nanoTime();
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+                stats.report(System.out, System.nanoTime() - measureStart);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            exitCode = 1;
+        } finally {
+            context.close();
+        }
+        System.exit(exitCode);
+    }
+}
@@ -0,0 +1,30 @@
+package cn.daydayup.dev.streamable.mcp.benchmarks.load;
+
+import cn.daydayup.dev.streamable.mcp.starter.annotation.McpFunction;
+import cn.daydayup.dev.streamable.mcp.starter.annotation.McpParam;
+import cn.daydayup.dev.streamable.mcp.starter.annotation.McpServerEndpoint;
+
+/**
+ * @ClassName McpLoadTestTools
+ * @Description 端到端压测使用的桩工具, 不访问任何外部服务
+ * @Author ZhaoYanNing
+ * @Date 2025/10/20 16:20
+ * @Version 1.0
+ */
+@McpServerEndpoint(path = "/mcp/load", name = "load-test", version = "1.0")
+public class McpLoadTestTools {
+
+    @McpFunction(name = "echo", description = "原样返回文本")
+    public String echo(@McpParam(name = "text", description = "文本", required = true) String text) {
+        return text;
+    }
+
+    @McpFunction(name = "work", description = "模拟耗时的IO操作")
+    public String work(@McpParam(name = "query", description = "查询内容", required = true) String query,
+                       @McpParam(name = "latencyMs", description = "模拟耗时(毫秒)") Integer latencyMs) throws InterruptedException {
+        if (latencyMs != null && latencyMs > 0) {
+            Thread.sleep(latencyMs);
+        }
+        return "result of " + query;
+    }
+}
@@ -6,24 +6,30 @@ import cn.daydayup.dev.streamable.mcp.demo.tavily.model.SearchResult;
 import cn.daydayup.dev.streamable.mcp.starter.annotation.McpFunction;
 import cn.daydayup.dev.streamable.mcp.starter.annotation.McpParam;
 import cn.daydayup.dev.streamable.mcp.starter.annotation.McpServerEndpoint;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpCancellationToken;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpProgressReporter;
 import cn.daydayup.dev.streamable.mcp.starter.core.McpWebUtils;
 import cn.daydayup.dev.streamable.mcp.starter.response.ResponseSchema;
-import org.springframework.beans.factory.annotation.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
-import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * 使用starter的MCP服务示例
  */
+@Slf4j
 @McpServerEndpoint(path = "/mcp/demo2",name = "starter-based-mcp-demo", version = "1.0.0")
 public class McpServerStarterEndpoint {
 
-    @Value("${web.search.key}")
-    private String apiKey;
+    @Autowired
+    private TavilyClient tavilyClient;
 
-    @McpFunction(name = "getWeather", description = "获取天气信息")
+    @McpFunction(name = "getWeather", description = "获取天气信息", cacheTtl = 60)
     public ResponseSchema getWeather(@McpParam(name = "city", description = "城市名称", required = true) String city) {
         HttpServletRequest request = McpWebUtils.getCurrentRequest();
         if (request != null) {
@@ -33,34 +39,54 @@ public class McpServerStarterEndpoint {
         return ResponseSchema.text(String.format("%s: 晴天，温度25℃", city),false);
     }
 
-    @McpFunction(name = "webSearch", description = "网络搜索")
-    public ResponseSchema webSearch(
-            @McpParam(name = "query", description = "查询内容", required = true) String query) {
+    @McpFunction(name = "webSearch", description = "网络搜索", cacheTtl = 300, cacheKeys = "query", timeout = 30000)
+    public CompletableFuture<ResponseSchema> webSearch(
+            @McpParam(name = "query", description = "查询内容", required = true, minLength = 1, maxLength = 400) String query,
+            McpProgressReporter progressReporter, McpCancellationToken cancellationToken) {
         System.out.println("调用了webSearch函数，查询内容：" + query);
-        TavilyClient tavilyClient = new TavilyClient(apiKey);
-        String finalResult = "";
-        try {
-            SearchResponse response = tavilyClient.search(query, "advanced");
-
-            if (response.getResults() != null) {
-                for (SearchResult result : response.getResults()) {
-                    finalResult += "\n  Title: " + result.getTitle() + "\n  URL: " + result.getUrl() + "\n  Content: " + result.getContent() + "\n  Score: " + result.getScore();
-                }
-            } else {
-                finalResult = "No results found.";
+        progressReporter.progress(0, 2.0, "正在搜索: " + query);
+        CompletableFuture<SearchResponse> search = tavilyClient.searchAsync(query, "advanced");
+        // 超时或客户端取消时中止搜索请求
+        cancellationToken.onCancel(() -> search.cancel(true));
+        return search.handle((response, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                log.warn("Tavily搜索失败, query: {}", query, cause);
+                // 以 isError 标记失败, 避免错误结果被缓存
+                return ResponseSchema.text("An error occurred during the search: " + cause.getMessage(), true);
             }
+            progressReporter.progress(1, 2.0, "搜索完成, 正在整理结果");
+            return ResponseSchema.text(formatResults(response.getResults(), progressReporter), false);
+        });
+    }
 
-        } catch (IOException e) {
-            finalResult = "An error occurred during the search: " + e.getMessage();
-            e.printStackTrace();
-        } finally {
-            try {
-                tavilyClient.close();
-            } catch (IOException e) {
-                System.err.println("Failed to close Tavily client: " + e.getMessage());
+    /**
+     * 将搜索结果格式化到一个预先计算容量的缓冲区中, 流式响应时逐条推送部分结果
+     */
+    private static CharSequence formatResults(List<SearchResult> results, McpProgressReporter progressReporter) {
+        if (results == null) {
+            return "搜索结果：No results found.";
+        }
+        int capacity = 8;
+        for (SearchResult result : results) {
+            capacity += 64 + length(result.getTitle()) + length(result.getUrl()) + length(result.getContent());
+        }
+        StringBuilder buffer = new StringBuilder(capacity).append("搜索结果：");
+        for (SearchResult result : results) {
+            int start = buffer.length();
+            buffer.append("\n  Title: ").append(result.getTitle())
+                    .append("\n  URL: ").append(result.getUrl())
+                    .append("\n  Content: ").append(result.getContent())
+                    .append("\n  Score: ").append(result.getScore());
+            if (progressReporter.isStreaming()) {
+                progressReporter.partial(buffer.substring(start));
             }
         }
-        return ResponseSchema.text("搜索结果：" + finalResult,false);
+        return buffer;
+    }
+
+    private static int length(String text) {
+        return text != null ? text.length() : 4;
     }
 
     @McpFunction(name = "test", description = "网络搜索")
@@ -0,0 +1,114 @@
+package cn.daydayup.dev.streamable.mcp.demo.tavily;
+
+import cn.daydayup.dev.streamable.mcp.demo.tavily.model.SearchResponse;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 异步搜索的响应消费者, 在IO线程收到数据块时即送入非阻塞JSON解析器, 不缓冲完整响应体
+ * 响应体超过 maxResponseSize 时抛出异常中止请求并关闭连接; 非200响应只保留前 maxErrorBodyLength 个字节用于错误信息
+ */
+class SearchResponseConsumer extends AbstractAsyncResponseConsumer<SearchResponse> {
+
+    private final SearchResponseParser responseParser;
+    private final long                 maxResponseSize;
+    private final int                  maxErrorBodyLength;
+    private final JsonParser           parser;
+    private final ByteBuffer           buffer = ByteBuffer.allocate(8192);
+
+    private int                   statusCode;
+    private boolean               entityEnclosed;
+    private long                  received;
+    private ByteArrayOutputStream errorBody;
+
+    SearchResponseConsumer(JsonFactory jsonFactory, int maxResults, int maxContentLength, long maxResponseSize,
+                           int maxErrorBodyLength) throws IOException {
+        this.responseParser = new SearchResponseParser(maxResults, maxContentLength);
+        this.maxResponseSize = maxResponseSize;
+        this.maxErrorBodyLength = maxErrorBodyLength;
+        this.parser = jsonFactory.createNonBlockingByteArrayParser();
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse response) {
+        statusCode = response.getStatusLine().getStatusCode();
+        if (statusCode != 200) {
+            errorBody = new ByteArrayOutputStream(maxErrorBodyLength);
+        }
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) throws IOException {
+        if (entity.getContentLength() > maxResponseSize) {
+            throw new IOException("API response too large: " + entity.getContentLength() + " bytes");
+        }
+        entityEnclosed = true;
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioControl) throws IOException {
+        int n;
+        while ((n = decoder.read(buffer)) > 0) {
+            received += n;
+            if (received > maxResponseSize) {
+                throw new IOException("API response exceeds " + maxResponseSize + " bytes");
+            }
+            if (errorBody != null) {
+                errorBody.write(buffer.array(), 0, Math.min(n, maxErrorBodyLength - errorBody.size()));
+            } else if (!responseParser.isDone()) {
+                ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(buffer.array(), 0, n);
+                parseAvailable();
+            }
+            buffer.clear();
+        }
+    }
+
+    @Override
+    protected SearchResponse buildResult(HttpContext context) throws IOException {
+        if (!entityEnclosed) {
+            throw new IOException("API request failed with status code: " + statusCode + " and empty response");
+        }
+        if (errorBody != null) {
+            throw new IOException("API request failed with status code: " + statusCode +
+                    " and response: " + new String(errorBody.toByteArray(), StandardCharsets.UTF_8));
+        }
+        if (!responseParser.isDone()) {
+            ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).endOfInput();
+            parseAvailable();
+        }
+        return responseParser.getResponse();
+    }
+
+    /**
+     * 处理已送入的全部数据, 返回前解析器已用完输入缓冲, 缓冲可复用于下一个数据块
+     */
+    private void parseAvailable() throws IOException {
+        JsonToken token;
+        while (!responseParser.isDone() && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+            responseParser.accept(parser);
+        }
+    }
+
+    @Override
+    protected void releaseResources() {
+        try {
+            parser.close();
+        } catch (IOException ignored) {
+            // 非阻塞解析器不持有外部资源
+        }
+    }
+}
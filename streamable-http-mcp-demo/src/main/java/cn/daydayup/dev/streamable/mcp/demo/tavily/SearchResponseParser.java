@@ -0,0 +1,221 @@
+package cn.daydayup.dev.streamable.mcp.demo.tavily;
+
+import cn.daydayup.dev.streamable.mcp.demo.tavily.model.SearchResponse;
+import cn.daydayup.dev.streamable.mcp.demo.tavily.model.SearchResult;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 逐个token增量解析Tavily搜索响应, 阻塞解析器与非阻塞解析器共用
+ * 超过 maxResults 的结果与未知字段直接跳过而不创建对象, content、raw_content 超过 maxContentLength 时截断
+ */
+class SearchResponseParser {
+
+    private static final String TRUNCATION_MARK = "…";
+
+    private final int maxResults;
+    private final int maxContentLength;
+
+    private final SearchResponse response = new SearchResponse();
+
+    /**
+     * 当前所在的结构: 0 根对象之外, 1 根对象, 2 根对象字段的数组, 3 results 中的单条结果
+     */
+    private int          depth;
+    /**
+     * 正在跳过的结构嵌套深度, 0 表示未在跳过
+     */
+    private int          skipDepth;
+    private String       field;
+    private String       resultField;
+    private List<String> strings;
+    private SearchResult result;
+    private boolean      done;
+
+    SearchResponseParser(int maxResults, int maxContentLength) {
+        this.maxResults = maxResults;
+        this.maxContentLength = maxContentLength;
+    }
+
+    /**
+     * 处理解析器当前所在的token
+     */
+    void accept(JsonParser parser) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (skipDepth > 0) {
+            if (token.isStructStart()) {
+                skipDepth++;
+            } else if (token.isStructEnd()) {
+                skipDepth--;
+            }
+            return;
+        }
+        switch (depth) {
+            case 0:
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("Unexpected API response: " + token);
+                }
+                depth = 1;
+                break;
+            case 1:
+                acceptRootField(parser, token);
+                break;
+            case 2:
+                acceptArrayElement(parser, token);
+                break;
+            default:
+                acceptResultField(parser, token);
+        }
+    }
+
+    /**
+     * 根对象是否已解析完毕, 之后的输入无需再处理
+     */
+    boolean isDone() {
+        return done;
+    }
+
+    SearchResponse getResponse() throws IOException {
+        if (!done) {
+            throw new IOException("Unexpected end of API response");
+        }
+        return response;
+    }
+
+    private void acceptRootField(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.FIELD_NAME) {
+            field = parser.getCurrentName();
+            return;
+        }
+        if (token == JsonToken.END_OBJECT) {
+            depth = 0;
+            done = true;
+            return;
+        }
+        switch (field) {
+            case "query":
+                response.setQuery(readText(parser, -1));
+                break;
+            case "answer":
+                response.setAnswer(readText(parser, -1));
+                break;
+            case "follow_up_questions":
+            case "images":
+                if (token == JsonToken.START_ARRAY) {
+                    strings = new ArrayList<>();
+                    if ("images".equals(field)) {
+                        response.setImages(strings);
+                    } else {
+                        response.setFollowUpQuestions(strings);
+                    }
+                    depth = 2;
+                } else {
+                    skip(token);
+                }
+                break;
+            case "results":
+                if (token == JsonToken.START_ARRAY) {
+                    response.setResults(new ArrayList<>(Math.min(maxResults, 16)));
+                    depth = 2;
+                } else {
+                    skip(token);
+                }
+                break;
+            case "response_time":
+                response.setResponseTime(parser.getValueAsDouble());
+                skip(token);
+                break;
+            default:
+                skip(token);
+        }
+    }
+
+    private void acceptArrayElement(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.END_ARRAY) {
+            strings = null;
+            depth = 1;
+            return;
+        }
+        if (strings != null) {
+            if (token.isStructStart()) {
+                skip(token);
+            } else {
+                strings.add(parser.getValueAsString());
+            }
+            return;
+        }
+        List<SearchResult> results = response.getResults();
+        if (token == JsonToken.START_OBJECT && results.size() < maxResults) {
+            result = new SearchResult();
+            results.add(result);
+            depth = 3;
+        } else {
+            skip(token);
+        }
+    }
+
+    private void acceptResultField(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.FIELD_NAME) {
+            resultField = parser.getCurrentName();
+            return;
+        }
+        if (token == JsonToken.END_OBJECT) {
+            result = null;
+            depth = 2;
+            return;
+        }
+        switch (resultField) {
+            case "title":
+                result.setTitle(readText(parser, -1));
+                break;
+            case "url":
+                result.setUrl(readText(parser, -1));
+                break;
+            case "content":
+                result.setContent(readText(parser, maxContentLength));
+                break;
+            case "raw_content":
+                result.setRawContent(readText(parser, maxContentLength));
+                break;
+            case "score":
+                result.setScore(parser.getValueAsDouble());
+                skip(token);
+                break;
+            default:
+                skip(token);
+        }
+    }
+
+    /**
+     * 当前值为对象或数组时跳过其全部内容
+     */
+    private void skip(JsonToken token) {
+        if (token.isStructStart()) {
+            skipDepth = 1;
+        }
+    }
+
+    /**
+     * 读取文本值, 超过 maxLength 时截断, maxLength 小于0时不限制; 值为对象或数组时跳过并返回 null
+     */
+    private String readText(JsonParser parser, int maxLength) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token.isStructStart()) {
+            skip(token);
+            return null;
+        }
+        String text = parser.getValueAsString();
+        if (text == null || maxLength < 0 || text.length() <= maxLength) {
+            return text;
+        }
+        int end = maxLength;
+        if (end > 0 && Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(0, end) + TRUNCATION_MARK;
+    }
+}
@@ -2,28 +2,127 @@ package cn.daydayup.dev.streamable.mcp.demo.tavily; // Updated package
 
 import cn.daydayup.dev.streamable.mcp.demo.tavily.model.SearchRequest;
 import cn.daydayup.dev.streamable.mcp.demo.tavily.model.SearchResponse;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
-import org.apache.http.util.EntityUtils;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.reactor.IOReactorException;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
-public class TavilyClient {
+/**
+ * Tavily搜索客户端, 线程安全, 应作为单例复用
+ * 同步与异步调用各自使用连接池并保持长连接, 后台线程定期清理过期与空闲连接
+ * 响应体按流增量解析, 结果数与单条内容长度受配置限制, 异步调用的响应体大小同样受限
+ */
+public class TavilyClient implements Closeable {
+
+    /**
+     * 错误响应最多读取的字节数
+     */
+    private static final int MAX_ERROR_BODY_LENGTH = 2048;
 
-    private static final String TAVILY_API_URL = "https://api.tavily.com/search";
     private final String apiKey;
-    private final CloseableHttpClient httpClient;
-    private final ObjectMapper objectMapper;
+    private final String url;
+    private final int    maxResults;
+    private final int    maxContentLength;
+    private final long   maxResponseSize;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final PoolingHttpClientConnectionManager  connectionManager;
+    private final PoolingNHttpClientConnectionManager asyncConnectionManager;
+    private final CloseableHttpClient                 httpClient;
+    private final CloseableHttpAsyncClient            httpAsyncClient;
+
+    /**
+     * 异步调用的结果在此执行器中完成, 后续处理不占用IO线程
+     */
+    private final Executor                 callbackExecutor;
+    private final ScheduledExecutorService connectionEvictor;
+    private final long                     idleTimeout;
+
+    /**
+     * @param properties       客户端配置
+     * @param callbackExecutor 异步调用完成回调的执行器
+     */
+    public TavilyClient(TavilyProperties properties, Executor callbackExecutor) throws IOReactorException {
+        this.apiKey = properties.getKey();
+        this.url = properties.getUrl();
+        this.maxResults = properties.getMaxResults();
+        this.maxContentLength = properties.getMaxContentLength();
+        this.maxResponseSize = properties.getMaxResponseSize().toBytes();
+        this.callbackExecutor = callbackExecutor;
+        this.idleTimeout = properties.getIdleTimeout().toMillis();
 
-    public TavilyClient(String apiKey) {
-        this.apiKey = apiKey;
-        this.httpClient = HttpClients.createDefault();
-        this.objectMapper = new ObjectMapper();
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) properties.getConnectTimeout().toMillis())
+                .setSocketTimeout((int) properties.getSocketTimeout().toMillis())
+                .setConnectionRequestTimeout((int) properties.getConnectionRequestTimeout().toMillis())
+                .build();
+        long keepAlive = properties.getKeepAlive().toMillis();
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            // 优先使用服务端 Keep-Alive 响应头中的 timeout
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration > 0 ? duration : keepAlive;
+        };
+
+        this.connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(properties.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxConnectionsPerRoute());
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .build();
+
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setConnectTimeout((int) properties.getConnectTimeout().toMillis())
+                .setSoTimeout((int) properties.getSocketTimeout().toMillis())
+                .setSoKeepAlive(true)
+                .build();
+        this.asyncConnectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig));
+        asyncConnectionManager.setMaxTotal(properties.getMaxConnections());
+        asyncConnectionManager.setDefaultMaxPerRoute(properties.getMaxConnectionsPerRoute());
+        this.httpAsyncClient = HttpAsyncClients.custom()
+                .setConnectionManager(asyncConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .build();
+        httpAsyncClient.start();
+
+        this.connectionEvictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "tavily-connection-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getEvictionInterval().toMillis();
+        connectionEvictor.scheduleWithFixedDelay(this::evictConnections, interval, interval, TimeUnit.MILLISECONDS);
     }
 
     public SearchResponse search(String query) throws IOException {
@@ -36,28 +135,120 @@ public class TavilyClient {
         return performSearch(searchRequest);
     }
 
+    /**
+     * 异步搜索, 不占用调用线程; 响应体在IO线程按数据块增量解析, 超过 maxResponseSize 时中止请求
+     * 取消返回的 future 会中止请求
+     */
+    public CompletableFuture<SearchResponse> searchAsync(String query, String searchDepth) {
+        CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+        HttpPost httpPost;
+        SearchResponseConsumer responseConsumer;
+        try {
+            httpPost = createRequest(new SearchRequest(query, searchDepth));
+            responseConsumer = new SearchResponseConsumer(objectMapper.getFactory(), maxResults, maxContentLength,
+                    maxResponseSize, MAX_ERROR_BODY_LENGTH);
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        Future<SearchResponse> request = httpAsyncClient.execute(HttpAsyncMethods.create(httpPost), responseConsumer,
+                new FutureCallback<SearchResponse>() {
+                    @Override
+                    public void completed(SearchResponse response) {
+                        try {
+                            callbackExecutor.execute(() -> future.complete(response));
+                        } catch (RejectedExecutionException e) {
+                            future.completeExceptionally(e);
+                        }
+                    }
+
+                    @Override
+                    public void failed(Exception e) {
+                        future.completeExceptionally(e);
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        future.cancel(false);
+                    }
+                });
+        future.whenComplete((response, e) -> {
+            if (future.isCancelled()) {
+                request.cancel(true);
+            }
+        });
+        return future;
+    }
+
     private SearchResponse performSearch(SearchRequest searchRequest) throws IOException {
-        HttpPost httpPost = new HttpPost(TAVILY_API_URL);
+        HttpPost httpPost = createRequest(searchRequest);
+        try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+            return readResponse(response);
+        }
+    }
+
+    private HttpPost createRequest(SearchRequest searchRequest) throws IOException {
+        HttpPost httpPost = new HttpPost(url);
         httpPost.setHeader("Content-Type", "application/json");
         httpPost.setHeader("Authorization", "Bearer " + this.apiKey);
 
         String jsonRequest = objectMapper.writeValueAsString(searchRequest);
         httpPost.setEntity(new StringEntity(jsonRequest, StandardCharsets.UTF_8));
+        return httpPost;
+    }
 
-        try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
-            String jsonResponse = EntityUtils.toString(response.getEntity());
-            if (response.getStatusLine().getStatusCode() != 200) {
-                throw new IOException("API request failed with status code: " +
-                        response.getStatusLine().getStatusCode() +
-                        " and response: " + jsonResponse);
+    /**
+     * 从响应流中增量解析结果, 响应流关闭后连接归还连接池
+     */
+    private SearchResponse readResponse(HttpResponse response) throws IOException {
+        HttpEntity entity = response.getEntity();
+        int statusCode = response.getStatusLine().getStatusCode();
+        if (entity == null) {
+            throw new IOException("API request failed with status code: " + statusCode + " and empty response");
+        }
+        try (InputStream in = entity.getContent()) {
+            if (statusCode != 200) {
+                throw new IOException("API request failed with status code: " + statusCode +
+                        " and response: " + readPrefix(in, MAX_ERROR_BODY_LENGTH));
+            }
+            return parseResponse(in);
+        }
+    }
+
+    private SearchResponse parseResponse(InputStream in) throws IOException {
+        SearchResponseParser responseParser = new SearchResponseParser(maxResults, maxContentLength);
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            while (!responseParser.isDone() && parser.nextToken() != null) {
+                responseParser.accept(parser);
             }
-            return objectMapper.readValue(jsonResponse, SearchResponse.class);
         }
+        return responseParser.getResponse();
+    }
+
+    private static String readPrefix(InputStream in, int maxLength) throws IOException {
+        byte[] buffer = new byte[maxLength];
+        int length = 0;
+        int n;
+        while (length < maxLength && (n = in.read(buffer, length, maxLength - length)) > 0) {
+            length += n;
+        }
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void evictConnections() {
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+        asyncConnectionManager.closeExpiredConnections();
+        asyncConnectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
     }
 
+    @Override
     public void close() throws IOException {
-        if (this.httpClient != null) {
-            this.httpClient.close();
+        connectionEvictor.shutdownNow();
+        try {
+            httpClient.close();
+        } finally {
+            httpAsyncClient.close();
         }
     }
 }
@@ -0,0 +1,28 @@
+package cn.daydayup.dev.streamable.mcp.demo.tavily;
+
+import cn.daydayup.dev.streamable.mcp.starter.autoconfigure.McpServerAutoConfiguration;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Tavily搜索客户端配置, 客户端全局共享一个实例
+ */
+@Configuration
+@EnableConfigurationProperties(TavilyProperties.class)
+public class TavilyConfiguration {
+
+    /**
+     * 异步搜索的回调在MCP工具线程池中执行
+     */
+    @Bean(destroyMethod = "close")
+    public TavilyClient tavilyClient(TavilyProperties properties,
+                                     @Qualifier(McpServerAutoConfiguration.TOOL_EXECUTOR_BEAN_NAME) Executor toolExecutor)
+            throws IOReactorException {
+        return new TavilyClient(properties, toolExecutor);
+    }
+}
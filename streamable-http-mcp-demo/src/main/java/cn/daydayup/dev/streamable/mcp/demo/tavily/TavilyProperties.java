@@ -0,0 +1,182 @@
+package cn.daydayup.dev.streamable.mcp.demo.tavily;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Tavily搜索客户端配置
+ */
+@ConfigurationProperties(prefix = "web.search")
+public class TavilyProperties {
+
+    /**
+     * Tavily API Key
+     */
+    private String key;
+
+    /**
+     * 搜索接口地址
+     */
+    private String url = "https://api.tavily.com/search";
+
+    /**
+     * 连接池最大连接数
+     */
+    private int maxConnections = 50;
+
+    /**
+     * 每个目标地址的最大连接数
+     */
+    private int maxConnectionsPerRoute = 20;
+
+    /**
+     * 建立连接的超时时间
+     */
+    private Duration connectTimeout = Duration.ofSeconds(3);
+
+    /**
+     * 等待响应数据的超时时间
+     */
+    private Duration socketTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 从连接池获取连接的超时时间
+     */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+
+    /**
+     * 服务端未返回 Keep-Alive 时连接的保活时间
+     */
+    private Duration keepAlive = Duration.ofSeconds(60);
+
+    /**
+     * 空闲超过该时间的连接将被关闭
+     */
+    private Duration idleTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 清理过期与空闲连接的间隔
+     */
+    private Duration evictionInterval = Duration.ofSeconds(5);
+
+    /**
+     * 最多保留的搜索结果数, 超出的结果在解析时直接跳过
+     */
+    private int maxResults = 10;
+
+    /**
+     * 单条结果 content、raw_content 的最大字符数, 超出部分截断
+     */
+    private int maxContentLength = 2000;
+
+    /**
+     * 异步搜索时响应体的最大大小, 超出时中止请求
+     */
+    private DataSize maxResponseSize = DataSize.ofMegabytes(10);
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Duration getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public void setSocketTimeout(Duration socketTimeout) {
+        this.socketTimeout = socketTimeout;
+    }
+
+    public Duration getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    public void setConnectionRequestTimeout(Duration connectionRequestTimeout) {
+        this.connectionRequestTimeout = connectionRequestTimeout;
+    }
+
+    public Duration getKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(Duration keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public Duration getEvictionInterval() {
+        return evictionInterval;
+    }
+
+    public void setEvictionInterval(Duration evictionInterval) {
+        this.evictionInterval = evictionInterval;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public void setMaxResults(int maxResults) {
+        this.maxResults = maxResults;
+    }
+
+    public int getMaxContentLength() {
+        return maxContentLength;
+    }
+
+    public void setMaxContentLength(int maxContentLength) {
+        this.maxContentLength = maxContentLength;
+    }
+
+    public DataSize getMaxResponseSize() {
+        return maxResponseSize;
+    }
+
+    public void setMaxResponseSize(DataSize maxResponseSize) {
+        this.maxResponseSize = maxResponseSize;
+    }
+}
@@ -23,4 +23,40 @@ public @interface McpFunction {
      * 函数描述
      */
     String description();
+
+    /**
+     * 最大并发调用数, 0 表示不限制
+     */
+    int maxConcurrency() default 0;
+
+    /**
+     * 达到并发上限后允许排队等待的调用数, 超出时立即拒绝
+     */
+    int maxWaiting() default 0;
+
+    /**
+     * 调用结果缓存时间(秒), 0 表示不缓存
+     */
+    long cacheTtl() default 0;
+
+    /**
+     * 结果缓存的最大条目数, 超出后淘汰最久未访问的条目
+     */
+    int cacheMaxEntries() default 1000;
+
+    /**
+     * 参与缓存键与合并键计算的参数名称, 为空时使用全部参数
+     */
+    String[] cacheKeys() default {};
+
+    /**
+     * 是否合并参数相同的并发调用, 开启后同时到达的相同调用只执行一次并共享结果
+     */
+    boolean coalesce() default false;
+
+    /**
+     * 调用超时时间(毫秒), 0 表示不限制; 客户端在 _meta.timeout 中提供更短的超时时间时以客户端为准
+     * 超时后调用被取消并返回 -32003 错误
+     */
+    long timeout() default 0;
 }
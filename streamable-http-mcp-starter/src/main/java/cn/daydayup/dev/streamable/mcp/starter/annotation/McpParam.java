@@ -33,4 +33,24 @@ public @interface McpParam {
      * 参数是否必需
      */
     boolean required() default false;
+
+    /**
+     * 数值参数的最小值(含)
+     */
+    double minimum() default Double.NEGATIVE_INFINITY;
+
+    /**
+     * 数值参数的最大值(含)
+     */
+    double maximum() default Double.POSITIVE_INFINITY;
+
+    /**
+     * 字符串参数的最小长度或数组参数的最少元素个数, 小于0表示不限制
+     */
+    int minLength() default -1;
+
+    /**
+     * 字符串参数的最大长度或数组参数的最多元素个数, 小于0表示不限制
+     */
+    int maxLength() default -1;
 }
@@ -31,4 +31,9 @@ public @interface McpServerEndpoint {
      * MCP服务版本
      */
     String version() default "";
+
+    /*
+     * 执行工具方法的线程池Bean名称, 为空时使用共享的 mcpToolExecutor
+     */
+    String executor() default "";
 }
@@ -1,9 +1,27 @@
 package cn.daydayup.dev.streamable.mcp.starter.autoconfigure;
 
+import cn.daydayup.dev.streamable.mcp.starter.core.McpMicrometerMetrics;
 import cn.daydayup.dev.streamable.mcp.starter.core.McpServerEndpointAutoRegistry;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpServerMetrics;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpSessionStore;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpVirtualThreads;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @ClassName McpServerAutoConfiguration
@@ -12,12 +30,72 @@ import org.springframework.context.annotation.Configuration;
  * @Date 2025/9/30 15:11
  * @Version 1.0
  */
+@Slf4j
 @Configuration
+@AutoConfigureAfter(name = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
+@EnableConfigurationProperties(McpServerProperties.class)
 public class McpServerAutoConfiguration {
 
-    @Bean
+    public static final String TOOL_EXECUTOR_BEAN_NAME = "mcpToolExecutor";
+
+    /**
+     * 工具方法的默认执行线程池, 各 @McpServerEndpoint 可通过 executor 属性指定独立线程池
+     * 运行在 JDK 21+ 且未关闭 virtual-threads 时每次调用使用一个虚拟线程
+     * 线程与队列均已满时拒绝提交, 调用返回 -32001 及 HTTP 429, 不在提交线程(可能是定时器或IO线程)上执行
+     */
+    @Bean(name = TOOL_EXECUTOR_BEAN_NAME, destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(name = TOOL_EXECUTOR_BEAN_NAME)
+    public ExecutorService mcpToolExecutor(McpServerProperties properties) {
+        McpServerProperties.Executor config = properties.getExecutor();
+        if (config.isVirtualThreads() && McpVirtualThreads.isAvailable()) {
+            log.info("MCP工具使用虚拟线程执行");
+            return McpVirtualThreads.newThreadPerTaskExecutor("mcp-tool-");
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(config.getThreads(), config.getThreads(),
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(config.getQueueCapacity()),
+                new CustomizableThreadFactory("mcp-tool-"), new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 所有MCP接口共享的会话存储
+     */
+    @Bean(destroyMethod = "close")
     @ConditionalOnMissingBean
-    public McpServerEndpointAutoRegistry mcpServerEndpointAutoRegistry() {
-        return new McpServerEndpointAutoRegistry();
+    @ConditionalOnProperty(prefix = "mcp.server.session", name = "enabled", matchIfMissing = true)
+    public McpSessionStore mcpSessionStore(McpServerProperties properties) {
+        McpServerProperties.Session config = properties.getSession();
+        return new McpSessionStore(config.getIdleTimeout().toMillis(), config.getMaxSessions());
+    }
+
+    /**
+     * Servlet 应用通过 Spring MVC 注册MCP接口, 响应式应用由 streamable-http-mcp-webflux-starter 注册
+     */
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    static class McpServletEndpointConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public McpServerEndpointAutoRegistry mcpServerEndpointAutoRegistry() {
+            return new McpServerEndpointAutoRegistry();
+        }
+    }
+
+    /**
+     * 存在 MeterRegistry 时采集MCP服务指标
+     */
+    @Configuration
+    @ConditionalOnClass(MeterRegistry.class)
+    @ConditionalOnBean(MeterRegistry.class)
+    @ConditionalOnProperty(prefix = "mcp.server.metrics", name = "enabled", matchIfMissing = true)
+    static class McpMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public McpServerMetrics mcpServerMetrics(MeterRegistry meterRegistry) {
+            return new McpMicrometerMetrics(meterRegistry);
+        }
     }
-}
\ No newline at end of file
+}
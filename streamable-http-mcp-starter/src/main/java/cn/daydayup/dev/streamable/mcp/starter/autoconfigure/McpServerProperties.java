@@ -0,0 +1,166 @@
+package cn.daydayup.dev.streamable.mcp.starter.autoconfigure;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @ClassName McpServerProperties
+ * @Description MCP服务配置
+ * @Author ZhaoYanNing
+ * @Date 2025/10/18 19:10
+ * @Version 1.0
+ */
+@Data
+@ConfigurationProperties(prefix = "mcp.server")
+public class McpServerProperties {
+
+    /**
+     * 批量请求配置
+     */
+    private Batch batch = new Batch();
+
+    /**
+     * 工具执行线程池配置
+     */
+    private Executor executor = new Executor();
+
+    /**
+     * 异步请求配置
+     */
+    private Async async = new Async();
+
+    /**
+     * SSE流配置
+     */
+    private Sse sse = new Sse();
+
+    /**
+     * 会话配置
+     */
+    private Session session = new Session();
+
+    /**
+     * 指标配置
+     */
+    private Metrics metrics = new Metrics();
+
+    /**
+     * 压缩配置
+     */
+    private Compression compression = new Compression();
+
+    /**
+     * 工具调用上下文配置
+     */
+    private Context context = new Context();
+
+    @Data
+    public static class Batch {
+
+        /**
+         * 单个批量请求允许的最大条目数
+         */
+        private int maxSize = 100;
+    }
+
+    @Data
+    public static class Executor {
+
+        /**
+         * JDK 21+ 时每次工具调用在新的虚拟线程中执行, 并发上限由各工具的 maxConcurrency 控制;
+         * 低版本JDK或设为 false 时使用下列参数的有界平台线程池
+         */
+        private boolean virtualThreads = true;
+
+        /**
+         * 执行工具方法的线程数
+         */
+        private int threads = Runtime.getRuntime().availableProcessors() * 2;
+
+        /**
+         * 线程池等待队列容量, 队列满时由请求线程直接执行
+         */
+        private int queueCapacity = 1000;
+    }
+
+    @Data
+    public static class Async {
+
+        /**
+         * 工具调用等待结果的超时时间, 超时后释放连接并返回错误
+         */
+        private Duration timeout = Duration.ofSeconds(60);
+    }
+
+    @Data
+    public static class Sse {
+
+        /**
+         * GET SSE流的超时时间
+         */
+        private Duration timeout = Duration.ofMinutes(30);
+    }
+
+    @Data
+    public static class Session {
+
+        /**
+         * 是否启用 Mcp-Session-Id 会话管理, 关闭后服务端不保存任何会话状态
+         */
+        private boolean enabled = true;
+
+        /**
+         * 会话空闲超时时间, 超时后会话失效, 客户端需重新 initialize
+         */
+        private Duration idleTimeout = Duration.ofMinutes(30);
+
+        /**
+         * 最大会话数, 达到上限后新的 initialize 请求返回 503
+         */
+        private int maxSessions = 10000;
+    }
+
+    @Data
+    public static class Metrics {
+
+        /**
+         * 存在 MeterRegistry 时是否采集MCP服务指标
+         */
+        private boolean enabled = true;
+    }
+
+    @Data
+    public static class Compression {
+
+        /**
+         * 是否按 Accept-Encoding 压缩响应(gzip/deflate), 并解压 Content-Encoding 压缩的请求体
+         */
+        private boolean enabled = true;
+
+        /**
+         * 响应体超过该大小时才压缩, text/event-stream 响应不受此限制
+         */
+        private DataSize minResponseSize = DataSize.ofKilobytes(2);
+
+        /**
+         * 解压后请求体的最大大小, 超过时返回 413
+         */
+        private DataSize maxRequestSize = DataSize.ofMegabytes(10);
+    }
+
+    @Data
+    public static class Context {
+
+        /**
+         * 调用上下文快照(McpCallContext)中采集的请求头, 工具可在任意线程读取; 其他请求头只能在调用期间从原始请求读取
+         */
+        private List<String> headers = new ArrayList<>(Arrays.asList(
+                "Authorization", "Cookie", "User-Agent", "Accept-Language", "X-Request-Id", "traceparent"));
+    }
+}
@@ -0,0 +1,380 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @ClassName McpArgumentValidator
+ * @Description 由工具的 inputSchema 预编译的参数校验器, 在调用工具方法前校验 tools/call 的 arguments
+ * 支持 type、enum、required、properties、items、additionalProperties、minimum/maximum、minLength/maxLength、minItems/maxItems
+ * 与参数绑定规则一致, number/integer/boolean 也接受可转换的字符串, string 也接受数字与布尔值; null 视为未传入
+ * 校验失败时抛出 -32602 错误, data.violations 列出全部违规项(最多 MAX_VIOLATIONS 条)
+ * @Author ZhaoYanNing
+ * @Date 2025/10/22 10:20
+ * @Version 1.0
+ */
+public class McpArgumentValidator {
+
+    /**
+     * 单次校验最多记录的违规项数量
+     */
+    public static final int MAX_VIOLATIONS = 50;
+
+    private static final int TYPE_STRING  = 1;
+    private static final int TYPE_NUMBER  = 1 << 1;
+    private static final int TYPE_INTEGER = 1 << 2;
+    private static final int TYPE_BOOLEAN = 1 << 3;
+    private static final int TYPE_OBJECT  = 1 << 4;
+    private static final int TYPE_ARRAY   = 1 << 5;
+
+    private final Node root;
+
+    private McpArgumentValidator(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * 编译 inputSchema
+     *
+     * @param inputSchema 工具的 inputSchema
+     * @return 校验器, 没有任何参数时返回 null
+     */
+    public static McpArgumentValidator compile(JsonNode inputSchema) {
+        JsonNode properties = inputSchema.get("properties");
+        if (properties == null || properties.size() == 0) {
+            return null;
+        }
+        return new McpArgumentValidator(compileNode(inputSchema));
+    }
+
+    private static Node compileNode(JsonNode schema) {
+        Node node = new Node();
+        JsonNode type = schema.get("type");
+        if (type != null) {
+            if (type.isArray()) {
+                for (JsonNode element : type) {
+                    node.types |= typeMask(element.asText());
+                }
+            } else {
+                node.types = typeMask(type.asText());
+            }
+            node.typeName = type.isArray() ? type.toString() : type.asText();
+        }
+        JsonNode enums = schema.get("enum");
+        if (enums != null && enums.isArray() && enums.size() > 0) {
+            node.enums = new HashSet<>();
+            for (JsonNode element : enums) {
+                node.enums.add(element.asText());
+            }
+            node.enumText = enums.toString();
+        }
+        node.minimum = schema.has("minimum") ? schema.get("minimum").doubleValue() : Double.NEGATIVE_INFINITY;
+        node.maximum = schema.has("maximum") ? schema.get("maximum").doubleValue() : Double.POSITIVE_INFINITY;
+        node.minLength = schema.path("minLength").asInt(-1);
+        node.maxLength = schema.path("maxLength").asInt(-1);
+        node.minItems = schema.path("minItems").asInt(-1);
+        node.maxItems = schema.path("maxItems").asInt(-1);
+
+        JsonNode properties = schema.get("properties");
+        if (properties != null && properties.size() > 0) {
+            node.properties = new HashMap<>(properties.size() * 2);
+            Iterator<Map.Entry<String, JsonNode>> fields = properties.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                node.properties.put(field.getKey(), compileNode(field.getValue()));
+            }
+        }
+        JsonNode required = schema.get("required");
+        if (required != null && required.isArray() && required.size() > 0) {
+            node.required = new String[required.size()];
+            for (int i = 0; i < node.required.length; i++) {
+                node.required[i] = required.get(i).asText();
+            }
+        }
+        JsonNode items = schema.get("items");
+        if (items != null && items.isObject()) {
+            node.items = compileNode(items);
+        }
+        JsonNode additionalProperties = schema.get("additionalProperties");
+        if (additionalProperties != null && additionalProperties.isObject()) {
+            node.additionalProperties = compileNode(additionalProperties);
+        }
+        return node;
+    }
+
+    private static int typeMask(String type) {
+        switch (type) {
+            case "string":
+                return TYPE_STRING;
+            case "number":
+                return TYPE_NUMBER;
+            case "integer":
+                return TYPE_INTEGER;
+            case "boolean":
+                return TYPE_BOOLEAN;
+            case "object":
+                return TYPE_OBJECT;
+            case "array":
+                return TYPE_ARRAY;
+            default:
+                // 未知类型(如 null)不做限制
+                return 0;
+        }
+    }
+
+    /**
+     * 校验参数
+     *
+     * @param arguments 请求中的 arguments 节点, 可为 null
+     * @throws McpJsonRpcException 校验失败时抛出, 错误码 -32602
+     */
+    public void validate(JsonNode arguments) {
+        Context context = new Context();
+        if (arguments == null || arguments.isNull()) {
+            root.checkRequired(null, context);
+        } else {
+            root.check(arguments, context);
+        }
+        if (context.violations != null) {
+            throw context.toException();
+        }
+    }
+
+    /**
+     * 编译后的Schema节点
+     */
+    private static class Node {
+
+        private int               types;
+        private String            typeName;
+        private Set<String>       enums;
+        private String            enumText;
+        private double            minimum;
+        private double            maximum;
+        private int               minLength;
+        private int               maxLength;
+        private int               minItems;
+        private int               maxItems;
+        private Map<String, Node> properties;
+        private String[]          required;
+        private Node              items;
+        private Node              additionalProperties;
+
+        void check(JsonNode value, Context context) {
+            if (value.isNull()) {
+                return;
+            }
+            if (types != 0 && !matchesType(value)) {
+                context.violation("类型应为 " + typeName);
+                return;
+            }
+            if (enums != null && !value.isContainerNode() && !enums.contains(value.asText())) {
+                context.violation("取值应为 " + enumText + " 之一");
+                return;
+            }
+            if (value.isContainerNode()) {
+                if (value.isArray()) {
+                    checkArray(value, context);
+                } else {
+                    checkObject(value, context);
+                }
+            } else {
+                checkScalar(value, context);
+            }
+        }
+
+        private boolean matchesType(JsonNode value) {
+            if (value.isTextual()) {
+                return (types & TYPE_STRING) != 0
+                        || (types & TYPE_INTEGER) != 0 && isInteger(value.textValue())
+                        || (types & TYPE_NUMBER) != 0 && toNumber(value.textValue()) != null
+                        || (types & TYPE_BOOLEAN) != 0 && ("true".equals(value.textValue()) || "false".equals(value.textValue()));
+            }
+            if (value.isNumber()) {
+                return (types & (TYPE_NUMBER | TYPE_STRING)) != 0
+                        || (types & TYPE_INTEGER) != 0 && (value.isIntegralNumber() || value.doubleValue() == Math.rint(value.doubleValue()));
+            }
+            if (value.isBoolean()) {
+                return (types & (TYPE_BOOLEAN | TYPE_STRING)) != 0;
+            }
+            if (value.isArray()) {
+                return (types & TYPE_ARRAY) != 0;
+            }
+            if (value.isObject()) {
+                return (types & TYPE_OBJECT) != 0;
+            }
+            return true;
+        }
+
+        private void checkScalar(JsonNode value, Context context) {
+            if (minimum != Double.NEGATIVE_INFINITY || maximum != Double.POSITIVE_INFINITY) {
+                BigDecimal number = value.isNumber() ? value.decimalValue() : value.isTextual() ? toNumber(value.textValue()) : null;
+                if (number != null) {
+                    double doubleValue = number.doubleValue();
+                    if (doubleValue < minimum) {
+                        context.violation("不能小于 " + format(minimum));
+                    } else if (doubleValue > maximum) {
+                        context.violation("不能大于 " + format(maximum));
+                    }
+                }
+            }
+            if ((minLength >= 0 || maxLength >= 0) && value.isTextual()) {
+                String text = value.textValue();
+                int length = text.codePointCount(0, text.length());
+                if (minLength >= 0 && length < minLength) {
+                    context.violation("长度不能小于 " + minLength);
+                } else if (maxLength >= 0 && length > maxLength) {
+                    context.violation("长度不能大于 " + maxLength);
+                }
+            }
+        }
+
+        private void checkArray(JsonNode value, Context context) {
+            if (minItems >= 0 && value.size() < minItems) {
+                context.violation("元素个数不能小于 " + minItems);
+            } else if (maxItems >= 0 && value.size() > maxItems) {
+                context.violation("元素个数不能大于 " + maxItems);
+            }
+            if (items != null) {
+                for (int i = 0; i < value.size() && !context.isFull(); i++) {
+                    context.push(i);
+                    items.check(value.get(i), context);
+                    context.pop();
+                }
+            }
+        }
+
+        private void checkObject(JsonNode value, Context context) {
+            checkRequired(value, context);
+            if (properties == null && additionalProperties == null) {
+                return;
+            }
+            Iterator<Map.Entry<String, JsonNode>> fields = value.fields();
+            while (fields.hasNext() && !context.isFull()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                Node property = properties != null ? properties.get(field.getKey()) : null;
+                if (property == null) {
+                    property = additionalProperties;
+                }
+                if (property != null) {
+                    context.push(field.getKey());
+                    property.check(field.getValue(), context);
+                    context.pop();
+                }
+            }
+        }
+
+        void checkRequired(JsonNode value, Context context) {
+            if (required == null) {
+                return;
+            }
+            for (String name : required) {
+                JsonNode property = value != null ? value.get(name) : null;
+                if (property == null || property.isNull()) {
+                    context.push(name);
+                    context.violation("缺少必需参数");
+                    context.pop();
+                }
+            }
+        }
+    }
+
+    private static boolean isInteger(String text) {
+        BigDecimal number = toNumber(text);
+        return number != null && number.stripTrailingZeros().scale() <= 0;
+    }
+
+    private static BigDecimal toNumber(String text) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        try {
+            return new BigDecimal(trimmed);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+    /**
+     * 单次校验的上下文, 记录当前路径与违规项, 路径只在产生违规项时才拼接
+     */
+    private static class Context {
+
+        private Object[]       path = new Object[8];
+        private int            depth;
+        private List<String[]> violations;
+        private int            violationCount;
+
+        void push(Object segment) {
+            if (depth == path.length) {
+                Object[] expanded = new Object[depth * 2];
+                System.arraycopy(path, 0, expanded, 0, depth);
+                path = expanded;
+            }
+            path[depth++] = segment;
+        }
+
+        void pop() {
+            depth--;
+        }
+
+        boolean isFull() {
+            return violationCount >= MAX_VIOLATIONS;
+        }
+
+        void violation(String message) {
+            violationCount++;
+            if (violations == null) {
+                violations = new ArrayList<>();
+            }
+            if (violations.size() < MAX_VIOLATIONS) {
+                violations.add(new String[]{renderPath(), message});
+            }
+        }
+
+        private String renderPath() {
+            StringBuilder rendered = new StringBuilder(32);
+            for (int i = 0; i < depth; i++) {
+                if (path[i] instanceof Integer) {
+                    rendered.append('[').append(path[i]).append(']');
+                } else {
+                    rendered.append(rendered.length() > 0 ? "." : "").append(path[i]);
+                }
+            }
+            return rendered.toString();
+        }
+
+        McpJsonRpcException toException() {
+            ArrayNode items = JsonNodeFactory.instance.arrayNode();
+            StringBuilder message = new StringBuilder("参数校验失败: ");
+            for (int i = 0; i < violations.size(); i++) {
+                String[] violation = violations.get(i);
+                items.addObject().put("path", violation[0]).put("message", violation[1]);
+                message.append(i > 0 ? "; " : "").append(violation[0].isEmpty() ? "arguments" : violation[0])
+                        .append(' ').append(violation[1]);
+            }
+            if (violationCount > violations.size()) {
+                message.append("; 共 ").append(violationCount).append(" 处错误");
+            }
+            ObjectNode data = JsonNodeFactory.instance.objectNode();
+            data.set("violations", items);
+            return new McpJsonRpcException(McpJsonRpcException.INVALID_PARAMS, message.toString(), data);
+        }
+    }
+}
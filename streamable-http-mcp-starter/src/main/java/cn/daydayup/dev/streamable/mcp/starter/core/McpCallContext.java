@@ -0,0 +1,270 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * @ClassName McpCallContext
+ * @Description 工具调用上下文快照: 每个HTTP请求只采集一次配置的请求头、客户端IP与会话, 再附加每次调用的工具名称、请求ID与取消令牌
+ * 快照不可变且不引用Servlet容器或Netty对象, 可通过 wrap/propagating/supplyAsync 传递到其他线程;
+ * 调用结束后与原始请求的关联即被释放, 之后 getRequest 返回 null, 未采集的请求头也无法再读取
+ * @Author ZhaoYanNing
+ * @Date 2025/10/24 15:30
+ * @Version 1.0
+ */
+public final class McpCallContext {
+
+    /**
+     * 采集的请求头名称(小写)
+     */
+    private final Set<String>         headerNames;
+    private final Map<String, String> headers;
+    private final String              clientIp;
+    private final McpSession          session;
+
+    private final String               toolName;
+    private final Object               requestId;
+    private final McpCancellationToken cancellationToken;
+
+    /**
+     * 调用期间关联的原始请求头与Servlet请求(非Servlet传输时为 null), 调用结束后置为 null
+     */
+    private volatile Function<String, String> liveHeaders;
+    private volatile HttpServletRequest       request;
+
+    private McpCallContext(Set<String> headerNames, Map<String, String> headers, String clientIp, McpSession session,
+                           String toolName, Object requestId, McpCancellationToken cancellationToken,
+                           Function<String, String> liveHeaders, HttpServletRequest request) {
+        this.headerNames = headerNames;
+        this.headers = headers;
+        this.clientIp = clientIp;
+        this.session = session;
+        this.toolName = toolName;
+        this.requestId = requestId;
+        this.cancellationToken = cancellationToken;
+        this.liveHeaders = liveHeaders;
+        this.request = request;
+    }
+
+    /**
+     * 采集请求级快照, 由 McpExchange 缓存以便同一HTTP请求中的调用共享
+     *
+     * @param exchange    当前请求
+     * @param liveHeaders 读取原始请求头
+     * @param headerNames 需要采集的请求头名称(小写)
+     */
+    static McpCallContext capture(McpExchange exchange, Function<String, String> liveHeaders, Set<String> headerNames) {
+        Map<String, String> headers = new HashMap<>(headerNames.size() * 2);
+        for (String name : headerNames) {
+            String value = liveHeaders.apply(name);
+            if (value != null) {
+                headers.put(name, value);
+            }
+        }
+        return new McpCallContext(headerNames, Collections.unmodifiableMap(headers), exchange.getClientIp(),
+                exchange.getSession(), null, null, McpCancellationToken.NONE, liveHeaders, exchange.getServletRequest());
+    }
+
+    /**
+     * 基于请求级快照创建单次调用的上下文
+     */
+    McpCallContext forCall(String toolName, Object requestId, McpCancellationToken cancellationToken) {
+        return new McpCallContext(headerNames, headers, clientIp, session, toolName, requestId, cancellationToken,
+                liveHeaders, request);
+    }
+
+    /**
+     * 创建不关联原始请求的副本, 用于可能比发起请求存活更久的合并执行, 只能读取快照中的请求头
+     *
+     * @param cancellationToken 合并执行的取消令牌
+     */
+    McpCallContext detach(McpCancellationToken cancellationToken) {
+        return new McpCallContext(headerNames, headers, clientIp, session, toolName, requestId, cancellationToken,
+                null, null);
+    }
+
+    /**
+     * 调用结束, 释放与原始请求的关联
+     */
+    void release() {
+        liveHeaders = null;
+        request = null;
+    }
+
+    /**
+     * 将请求头名称规范化为小写集合
+     */
+    public static Set<String> normalizeHeaderNames(Collection<String> names) {
+        if (names == null || names.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> normalized = new HashSet<>(names.size() * 2);
+        for (String name : names) {
+            normalized.add(name.toLowerCase(Locale.ROOT));
+        }
+        return Collections.unmodifiableSet(normalized);
+    }
+
+    /**
+     * 解析客户端IP, 优先使用 X-Forwarded-For 的第一个地址, 其次 X-Real-IP
+     */
+    static String resolveClientIp(HttpServletRequest request) {
+        return resolveClientIp(request::getHeader, request.getRemoteAddr());
+    }
+
+    static String resolveClientIp(Function<String, String> headers, String remoteAddress) {
+        String xForwardedFor = headers.apply("X-Forwarded-For");
+        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+            int comma = xForwardedFor.indexOf(',');
+            return (comma < 0 ? xForwardedFor : xForwardedFor.substring(0, comma)).trim();
+        }
+        String xRealIp = headers.apply("X-Real-IP");
+        if (xRealIp != null && !xRealIp.isEmpty()) {
+            return xRealIp;
+        }
+        return remoteAddress;
+    }
+
+    /**
+     * 当前线程所属工具调用的上下文, 不在工具调用中时返回 null
+     */
+    public static McpCallContext current() {
+        return McpRequestContextHolder.getCurrentContext();
+    }
+
+    /**
+     * 获取请求头, 优先从快照读取; 未配置采集的请求头仅在调用期间可从原始请求读取
+     *
+     * @param name 请求头名称(不区分大小写)
+     */
+    public String getHeader(String name) {
+        String lowerName = name.toLowerCase(Locale.ROOT);
+        if (headerNames.contains(lowerName)) {
+            return headers.get(lowerName);
+        }
+        Function<String, String> current = liveHeaders;
+        return current != null ? current.apply(name) : null;
+    }
+
+    /**
+     * 快照中采集到的请求头, 键为小写名称
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public String getClientIp() {
+        return clientIp;
+    }
+
+    /**
+     * 当前MCP会话, 未启用会话管理时为 null
+     */
+    public McpSession getSession() {
+        return session;
+    }
+
+    public String getSessionId() {
+        return session != null ? session.getId() : null;
+    }
+
+    public String getToolName() {
+        return toolName;
+    }
+
+    /**
+     * JSON-RPC请求ID
+     */
+    public Object getRequestId() {
+        return requestId;
+    }
+
+    public McpCancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
+    /**
+     * 距调用截止时间的剩余毫秒数, 未设置截止时间时返回 Long.MAX_VALUE
+     */
+    public long getRemainingMillis() {
+        return cancellationToken.getRemainingMillis();
+    }
+
+    /**
+     * 调用期间的原始请求, 调用结束后或非Servlet传输时返回 null
+     */
+    public HttpServletRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * 包装任务, 使其在执行线程中持有本上下文
+     */
+    public Runnable wrap(Runnable task) {
+        Supplier<Object> bound = McpRequestContextHolder.withContext(this, () -> {
+            task.run();
+            return null;
+        });
+        return bound::get;
+    }
+
+    public <T> Callable<T> wrap(Callable<T> task) {
+        return () -> McpRequestContextHolder.call(this, task);
+    }
+
+    public <T> Supplier<T> wrapSupplier(Supplier<T> task) {
+        return McpRequestContextHolder.withContext(this, task);
+    }
+
+    /**
+     * 包装函数, 适用于并行流等在多个线程中逐个元素执行的场景
+     */
+    public <T, R> Function<T, R> wrap(Function<T, R> function) {
+        return value -> McpRequestContextHolder.withContext(this, () -> function.apply(value)).get();
+    }
+
+    /**
+     * 返回在提交任务时捕获当前线程上下文并在执行线程中恢复的执行器
+     *
+     * @param executor 实际执行任务的执行器
+     */
+    public static Executor propagating(Executor executor) {
+        return task -> {
+            McpCallContext context = current();
+            executor.execute(context != null ? context.wrap(task) : task);
+        };
+    }
+
+    /**
+     * 在指定执行器中异步执行任务, 并传递当前线程的调用上下文
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> task, Executor executor) {
+        McpCallContext context = current();
+        return CompletableFuture.supplyAsync(context != null ? context.wrapSupplier(task) : task, executor);
+    }
+
+    /**
+     * 在指定执行器中异步执行任务, 并传递当前线程的调用上下文
+     */
+    public static CompletableFuture<Void> runAsync(Runnable task, Executor executor) {
+        McpCallContext context = current();
+        return CompletableFuture.runAsync(context != null ? context.wrap(task) : task, executor);
+    }
+
+    @Override
+    public String toString() {
+        return "McpCallContext{toolName=" + toolName + ", requestId=" + requestId + ", sessionId=" + getSessionId()
+                + ", clientIp=" + clientIp + '}';
+    }
+}
@@ -0,0 +1,280 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName McpCancellationToken
+ * @Description 单次工具调用的取消令牌, 在超过截止时间、收到 notifications/cancelled 或连接中断时取消
+ * 工具方法声明该类型参数(无需 @McpParam 注解)即可注入, 可轮询 isCancelled、按 getRemainingMillis 设置下游超时,
+ * 或通过 onCancel 注册回调中止下游请求; 取消时同步执行中的工具线程会被中断
+ * @Author ZhaoYanNing
+ * @Date 2025/10/23 15:20
+ * @Version 1.0
+ */
+public class McpCancellationToken {
+
+    /**
+     * 永不取消的令牌, 用于未经处理器发起的调用; 为共享实例, 不保存注册的回调
+     */
+    public static final McpCancellationToken NONE = new McpCancellationToken(0, false);
+
+    private static final ScheduledThreadPoolExecutor TIMER = createTimer();
+
+    /**
+     * 截止时间(System.nanoTime), 为 0 时不限制; 合并执行的令牌随等待方加入而延长
+     */
+    private volatile long deadlineNanos;
+
+    private volatile String reason;
+    private volatile boolean timedOut;
+
+    /**
+     * 是否可被取消, 仅 NONE 为 false
+     */
+    private final boolean cancellable;
+
+    /**
+     * 以下字段由 this 保护
+     */
+    private Thread             runner;
+    private List<Runnable>     callbacks;
+    private ScheduledFuture<?> timer;
+
+    /**
+     * @param timeoutMillis 超时时间(毫秒), 小于等于0时不限制
+     */
+    public McpCancellationToken(long timeoutMillis) {
+        this(timeoutMillis, true);
+    }
+
+    private McpCancellationToken(long timeoutMillis, boolean cancellable) {
+        this.cancellable = cancellable;
+        if (timeoutMillis > 0) {
+            this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            synchronized (this) {
+                this.timer = TIMER.schedule(() -> cancel("工具调用超时", true), timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+        } else {
+            this.deadlineNanos = 0;
+        }
+    }
+
+    /**
+     * 创建合并执行共享的令牌: 不设定时器, 由最后一个放弃等待的调用取消; 截止时间取各等待方中最晚者
+     *
+     * @param deadlineNanos 首个等待方的截止时间, 为 0 时不限制
+     */
+    static McpCancellationToken forSharedCall(long deadlineNanos) {
+        McpCancellationToken token = new McpCancellationToken(0);
+        token.deadlineNanos = deadlineNanos;
+        return token;
+    }
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "mcp-call-deadline");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    /**
+     * 调用是否已取消(含超时)
+     */
+    public boolean isCancelled() {
+        return reason != null;
+    }
+
+    /**
+     * 调用是否因超过截止时间而取消
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * 取消原因, 未取消时为 null
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * 距截止时间的剩余毫秒数, 可用于设置下游请求超时; 未设置截止时间时返回 Long.MAX_VALUE
+     */
+    public long getRemainingMillis() {
+        if (deadlineNanos == 0) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * 截止时间(System.nanoTime), 为 0 时不限制
+     */
+    long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    /**
+     * 将截止时间延长到给定时间, 用于合并执行加入新的等待方
+     *
+     * @param deadlineNanos 新等待方的截止时间, 为 0 时不再限制
+     */
+    synchronized void extendDeadline(long deadlineNanos) {
+        if (this.deadlineNanos != 0 && (deadlineNanos == 0 || deadlineNanos - this.deadlineNanos > 0)) {
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+    /**
+     * 已取消时抛出异常, 供长时间运行的工具在检查点调用
+     *
+     * @throws McpJsonRpcException 调用已取消或超时
+     */
+    public void throwIfCancelled() {
+        if (reason != null) {
+            throw toException();
+        }
+    }
+
+    /**
+     * 注册取消回调, 已取消时立即在当前线程执行; 回调不应阻塞; 永不取消的令牌(NONE)忽略回调
+     *
+     * @param callback 取消回调, 如中止下游HTTP请求
+     */
+    public void onCancel(Runnable callback) {
+        if (!cancellable) {
+            return;
+        }
+        synchronized (this) {
+            if (reason == null) {
+                if (callbacks == null) {
+                    callbacks = new ArrayList<>(2);
+                }
+                callbacks.add(callback);
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    /**
+     * 取消调用: 执行已注册的回调并中断同步执行中的工具线程
+     *
+     * @param reason 取消原因
+     * @return 是否由本次调用完成取消
+     */
+    boolean cancel(String reason) {
+        return cancel(reason, false);
+    }
+
+    /**
+     * 取消调用
+     *
+     * @param reason  取消原因
+     * @param timeout 是否因超过截止时间而取消
+     * @return 是否由本次调用完成取消
+     */
+    boolean cancel(String reason, boolean timeout) {
+        if (!cancellable) {
+            return false;
+        }
+        List<Runnable> toRun;
+        synchronized (this) {
+            if (this.reason != null) {
+                return false;
+            }
+            this.timedOut = timeout;
+            this.reason = reason;
+            toRun = callbacks;
+            callbacks = null;
+            if (timer != null) {
+                timer.cancel(false);
+                timer = null;
+            }
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+        if (toRun != null) {
+            for (Runnable callback : toRun) {
+                callback.run();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 在当前线程执行调用, 执行期间取消会中断当前线程; 已取消时不再执行
+     * 取消后工具抛出的异常(通常是中断引起的)统一报告为取消或超时
+     */
+    <T> T run(Callable<T> callable) throws Exception {
+        if (!cancellable) {
+            return callable.call();
+        }
+        synchronized (this) {
+            throwIfCancelled();
+            runner = Thread.currentThread();
+        }
+        try {
+            return callable.call();
+        } catch (Exception e) {
+            if (reason != null) {
+                throw toException();
+            }
+            throw e;
+        } finally {
+            synchronized (this) {
+                runner = null;
+                if (reason != null) {
+                    // 清除取消时设置的中断标记, 避免影响线程池中的后续任务
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+
+    /**
+     * 返回在调用结果就绪或令牌取消时(以先到者为准)完成的 future, 取消时放弃等待原调用
+     */
+    <T> CompletableFuture<T> abandonOnCancel(CompletableFuture<T> future) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        future.whenComplete((value, e) -> {
+            if (e != null) {
+                result.completeExceptionally(e);
+            } else {
+                result.complete(value);
+            }
+        });
+        onCancel(() -> result.completeExceptionally(toException()));
+        return result;
+    }
+
+    /**
+     * 调用结束后释放截止时间定时器与回调
+     */
+    void close() {
+        synchronized (this) {
+            if (timer != null) {
+                timer.cancel(false);
+                timer = null;
+            }
+            callbacks = null;
+        }
+    }
+
+    McpJsonRpcException toException() {
+        return timedOut
+                ? new McpJsonRpcException(McpJsonRpcException.REQUEST_TIMEOUT, reason)
+                : new McpJsonRpcException(McpJsonRpcException.REQUEST_CANCELLED, "请求已取消: " + reason);
+    }
+}
@@ -0,0 +1,327 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @ClassName McpCompressingResponse
+ * @Description 按协商的编码压缩响应体的响应包装
+ * 响应体先缓冲, 超过阈值后才开始压缩, 未超过时在 finish 时原样写出; 预先设置的 Content-Length 直接决定是否压缩
+ * text/event-stream 响应在首次 flush 时开始压缩, 每次 flush 以 SYNC_FLUSH 输出完整的压缩块, 保证事件即时送达
+ * 处理器写出完成后必须调用 finish 输出缓冲内容或压缩尾部
+ * 注册 WriteListener 进行非阻塞写出时不再压缩, 输出流直接委托给原始响应, isReady 与写出事件均由容器提供
+ * 压缩流写出失败、reset 或 finish 时立即释放 Deflater 的本地内存, 不依赖终结器回收
+ * @Author ZhaoYanNing
+ * @Date 2025/10/23 10:10
+ * @Version 1.0
+ */
+public class McpCompressingResponse extends HttpServletResponseWrapper {
+
+    private static final int BUFFERING  = 0;
+    private static final int IDENTITY   = 1;
+    private static final int COMPRESSED = 2;
+    private static final int FAILED     = 3;
+
+    private final String encoding;
+    private final int    minSize;
+
+    private final CompressingOutputStream outputStream = new CompressingOutputStream();
+
+    private int                   state = BUFFERING;
+    private ByteArrayOutputStream buffer;
+    private DeflaterOutputStream  compressor;
+    private Deflater              deflater;
+    /**
+     * 注册 WriteListener 后的原始输出流, 不为 null 时表示非阻塞写出
+     */
+    private ServletOutputStream   nonBlockingTarget;
+
+    /**
+     * @param response 原始响应
+     * @param encoding 协商的编码, gzip 或 deflate
+     * @param minSize  压缩阈值(字节)
+     */
+    public McpCompressingResponse(HttpServletResponse response, String encoding, int minSize) {
+        super(response);
+        this.encoding = encoding;
+        this.minSize = minSize;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    @Override
+    public synchronized void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public synchronized void setContentLengthLong(long len) {
+        if (nonBlockingTarget != null) {
+            super.setContentLengthLong(len);
+            return;
+        }
+        if (state != BUFFERING) {
+            return;
+        }
+        if (len < minSize) {
+            state = IDENTITY;
+            super.setContentLengthLong(len);
+        } else {
+            // 长度已知且超过阈值, 直接压缩, 不再输出 Content-Length
+            startCompression();
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        outputStream.flush();
+    }
+
+    @Override
+    public synchronized void reset() {
+        super.reset();
+        state = BUFFERING;
+        buffer = null;
+        // 丢弃已压缩的内容, 不写出压缩尾部
+        releaseCompressor();
+    }
+
+    @Override
+    public synchronized void resetBuffer() {
+        super.resetBuffer();
+        if (state == BUFFERING) {
+            buffer = null;
+        }
+    }
+
+    /**
+     * 结束响应体: 未超过阈值时原样写出缓冲内容, 已压缩时写出压缩尾部
+     */
+    public synchronized void finish() throws IOException {
+        if (state == BUFFERING) {
+            state = IDENTITY;
+            if (buffer != null) {
+                if (!isCommitted()) {
+                    super.setContentLength(buffer.size());
+                }
+                buffer.writeTo(super.getOutputStream());
+                buffer = null;
+            }
+        } else if (state == COMPRESSED && compressor != null) {
+            // 关闭压缩流以写出压缩尾部, 底层输出流不会被关闭
+            try {
+                compressor.close();
+            } finally {
+                releaseCompressor();
+            }
+        }
+    }
+
+    /**
+     * 结束响应体, 未使用压缩包装时不做处理
+     *
+     * @param response 处理器使用的响应
+     */
+    public static void finish(HttpServletResponse response) throws IOException {
+        if (response instanceof McpCompressingResponse) {
+            ((McpCompressingResponse) response).finish();
+        }
+    }
+
+    private void startCompression() {
+        state = COMPRESSED;
+        setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+    }
+
+    private boolean isEventStream() {
+        String contentType = getContentType();
+        return contentType != null && contentType.startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    private DeflaterOutputStream compressor() throws IOException {
+        if (compressor == null) {
+            OutputStream target = new FilterOutputStream(super.getOutputStream()) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+            if ("gzip".equals(encoding)) {
+                GzipCompressor gzip = new GzipCompressor(target);
+                compressor = gzip;
+                deflater = gzip.deflater();
+            } else {
+                deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+                compressor = new DeflaterOutputStream(target, deflater, 8192, true);
+            }
+        }
+        return compressor;
+    }
+
+    /**
+     * 释放 Deflater 的本地内存; DeflaterOutputStream#close 在写出失败时不会释放
+     */
+    private void releaseCompressor() {
+        if (deflater != null) {
+            deflater.end();
+            deflater = null;
+        }
+        compressor = null;
+    }
+
+    /**
+     * 压缩流写出失败后释放 Deflater, 此后的写出直接失败
+     */
+    private IOException compressionFailed(IOException e) {
+        state = FAILED;
+        releaseCompressor();
+        return e;
+    }
+
+    /**
+     * 可获取内部 Deflater 的 gzip 输出流
+     */
+    private static final class GzipCompressor extends GZIPOutputStream {
+
+        GzipCompressor(OutputStream out) throws IOException {
+            super(out, 8192, true);
+        }
+
+        Deflater deflater() {
+            return def;
+        }
+    }
+
+    private class CompressingOutputStream extends ServletOutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            synchronized (McpCompressingResponse.this) {
+                if (state == FAILED) {
+                    throw new IOException("响应写出已失败");
+                }
+                if (state == BUFFERING) {
+                    int buffered = buffer != null ? buffer.size() : 0;
+                    if (buffered + len <= minSize) {
+                        if (buffer == null) {
+                            buffer = new ByteArrayOutputStream(Math.min(Math.max(len, 256), minSize));
+                        }
+                        buffer.write(b, off, len);
+                        return;
+                    }
+                    // 超过阈值, 开始压缩并写入已缓冲的内容
+                    startCompression();
+                    writeBuffered();
+                }
+                if (state == COMPRESSED) {
+                    try {
+                        compressor().write(b, off, len);
+                    } catch (IOException e) {
+                        throw compressionFailed(e);
+                    }
+                } else {
+                    McpCompressingResponse.super.getOutputStream().write(b, off, len);
+                }
+            }
+        }
+
+        /**
+         * 普通响应在 finish 时统一输出, 忽略中途的 flush; SSE响应每次 flush 都输出完整的压缩块; 非阻塞写出时直接委托
+         */
+        @Override
+        public void flush() throws IOException {
+            synchronized (McpCompressingResponse.this) {
+                if (nonBlockingTarget != null) {
+                    nonBlockingTarget.flush();
+                    return;
+                }
+                if (!isEventStream() || state == FAILED) {
+                    return;
+                }
+                if (state == BUFFERING) {
+                    startCompression();
+                    writeBuffered();
+                }
+                if (state == COMPRESSED) {
+                    try {
+                        compressor().flush();
+                    } catch (IOException e) {
+                        throw compressionFailed(e);
+                    }
+                }
+                McpCompressingResponse.super.getOutputStream().flush();
+            }
+        }
+
+        private void writeBuffered() throws IOException {
+            if (buffer != null) {
+                try {
+                    buffer.writeTo(compressor());
+                } catch (IOException e) {
+                    throw compressionFailed(e);
+                }
+                buffer = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        @Override
+        public boolean isReady() {
+            ServletOutputStream target;
+            synchronized (McpCompressingResponse.this) {
+                target = nonBlockingTarget;
+            }
+            return target == null || target.isReady();
+        }
+
+        /**
+         * 切换为非压缩的直接写出后委托给原始输出流, 已开始压缩或已缓冲内容时无法切换
+         */
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            ServletOutputStream target;
+            synchronized (McpCompressingResponse.this) {
+                if (state == COMPRESSED || buffer != null) {
+                    throw new IllegalStateException("响应体已开始写出, 无法切换为非阻塞写出");
+                }
+                try {
+                    target = McpCompressingResponse.super.getOutputStream();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                state = IDENTITY;
+                nonBlockingTarget = target;
+            }
+            target.setWriteListener(writeListener);
+        }
+    }
+}
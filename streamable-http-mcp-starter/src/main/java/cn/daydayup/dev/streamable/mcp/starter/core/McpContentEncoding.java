@@ -0,0 +1,170 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import org.springframework.util.StringUtils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * @ClassName McpContentEncoding
+ * @Description HTTP内容编码工具, 负责响应编码协商与压缩请求体的解码
+ * 仅支持 gzip 与 deflate(zlib 格式), 解码后的请求体受大小上限约束, 防止压缩炸弹
+ * @Author ZhaoYanNing
+ * @Date 2025/10/23 10:40
+ * @Version 1.0
+ */
+public final class McpContentEncoding {
+
+    public static final String GZIP     = "gzip";
+    public static final String DEFLATE  = "deflate";
+    public static final String IDENTITY = "identity";
+
+    private McpContentEncoding() {
+    }
+
+    /**
+     * 按 Accept-Encoding 协商响应编码, 同等权重时优先 gzip
+     *
+     * @param acceptEncoding 请求头 Accept-Encoding, 可为 null
+     * @return gzip 或 deflate, 客户端不支持时返回 null
+     */
+    public static String negotiate(String acceptEncoding) {
+        if (!StringUtils.hasText(acceptEncoding)) {
+            return null;
+        }
+        double gzip = 0;
+        double deflate = 0;
+        double wildcard = -1;
+        boolean gzipListed = false;
+        boolean deflateListed = false;
+        for (String item : StringUtils.tokenizeToStringArray(acceptEncoding, ",")) {
+            int semicolon = item.indexOf(';');
+            String coding = (semicolon >= 0 ? item.substring(0, semicolon) : item).trim().toLowerCase(Locale.ROOT);
+            double quality = semicolon >= 0 ? quality(item.substring(semicolon + 1)) : 1;
+            if (GZIP.equals(coding) || "x-gzip".equals(coding)) {
+                gzip = Math.max(gzip, quality);
+                gzipListed = true;
+            } else if (DEFLATE.equals(coding)) {
+                deflate = quality;
+                deflateListed = true;
+            } else if ("*".equals(coding)) {
+                wildcard = quality;
+            }
+        }
+        if (!gzipListed && wildcard > 0) {
+            gzip = wildcard;
+        }
+        if (!deflateListed && wildcard > 0) {
+            deflate = wildcard;
+        }
+        if (gzip > 0 && gzip >= deflate) {
+            return GZIP;
+        }
+        return deflate > 0 ? DEFLATE : null;
+    }
+
+    private static double quality(String parameters) {
+        for (String parameter : StringUtils.tokenizeToStringArray(parameters, ";")) {
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * 按 Content-Encoding 解码请求体
+     *
+     * @param body            原始请求体
+     * @param contentEncoding 请求头 Content-Encoding, 可为 null
+     * @param maxSize         解码后的最大字节数
+     * @return 解码后的请求体, 未编码时原样返回, 编码不受支持时返回 null
+     */
+    public static InputStream decode(InputStream body, String contentEncoding, long maxSize) throws IOException {
+        if (!StringUtils.hasText(contentEncoding)) {
+            return body;
+        }
+        String coding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+        if (IDENTITY.equals(coding)) {
+            return body;
+        }
+        if (GZIP.equals(coding) || "x-gzip".equals(coding)) {
+            return new LimitedInputStream(new GZIPInputStream(body, 8192), maxSize);
+        }
+        if (DEFLATE.equals(coding)) {
+            return new LimitedInputStream(new InflaterInputStream(body), maxSize);
+        }
+        return null;
+    }
+
+    /**
+     * 解码后的请求体超过大小上限
+     */
+    public static class PayloadTooLargeException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        PayloadTooLargeException(long maxSize) {
+            super("请求体解压后超过大小上限: " + maxSize + " 字节");
+        }
+    }
+
+    /**
+     * 限制读取总字节数的输入流
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private final long maxSize;
+        private long       count;
+
+        LimitedInputStream(InputStream in, long maxSize) {
+            super(in);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void count(long n) throws PayloadTooLargeException {
+            count += n;
+            if (count > maxSize) {
+                throw new PayloadTooLargeException(maxSize);
+            }
+        }
+    }
+}
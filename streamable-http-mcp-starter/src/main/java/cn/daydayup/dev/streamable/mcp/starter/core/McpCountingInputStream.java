@@ -0,0 +1,53 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * @ClassName McpCountingInputStream
+ * @Description 统计已读取字节数的输入流, 用于采集请求体大小
+ * @Author ZhaoYanNing
+ * @Date 2025/10/20 10:05
+ * @Version 1.0
+ */
+public class McpCountingInputStream extends FilterInputStream {
+
+    private long count;
+
+    public McpCountingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            count++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            count += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(n);
+        count += skipped;
+        return skipped;
+    }
+
+    /**
+     * 已读取的字节数
+     */
+    public long getCount() {
+        return count;
+    }
+}
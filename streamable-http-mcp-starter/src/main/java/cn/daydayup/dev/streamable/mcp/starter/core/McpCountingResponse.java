@@ -0,0 +1,88 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @ClassName McpCountingResponse
+ * @Description 统计已写出字节数的响应包装, 用于采集响应体大小; 写出可能发生在工具线程, 计数线程安全
+ * @Author ZhaoYanNing
+ * @Date 2025/10/20 10:05
+ * @Version 1.0
+ */
+public class McpCountingResponse extends HttpServletResponseWrapper {
+
+    private final AtomicLong count = new AtomicLong();
+
+    private ServletOutputStream outputStream;
+
+    public McpCountingResponse(HttpServletResponse response) {
+        super(response);
+    }
+
+    @Override
+    public synchronized ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new CountingOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        count.set(0);
+    }
+
+    /**
+     * 已写出的字节数
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    private class CountingOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+
+        CountingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count.addAndGet(len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+/**
+ * @ClassName McpDirectInvoker
+ * @Description 编译期生成的工具方法直接调用器, 以强制类型转换代替反射传参
+ * @Author ZhaoYanNing
+ * @Date 2025/10/21 14:10
+ * @Version 1.0
+ */
+@FunctionalInterface
+public interface McpDirectInvoker {
+
+    /**
+     * 调用工具方法
+     *
+     * @param target 工具所在的Bean
+     * @param args   按方法参数位置排列的参数
+     * @return 工具方法返回值, void 方法返回 null
+     */
+    Object invoke(Object target, Object[] args) throws Exception;
+}
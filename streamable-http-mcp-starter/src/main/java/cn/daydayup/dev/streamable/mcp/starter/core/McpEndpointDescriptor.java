@@ -0,0 +1,21 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import java.util.List;
+
+/**
+ * @ClassName McpEndpointDescriptor
+ * @Description 编译期为 @McpServerEndpoint 类生成的描述符, 类名为端点类名加 CLASS_NAME_SUFFIX
+ * 包含预先生成的 inputSchema 与直接调用器, 注册时优先使用, 不存在时回退到反射扫描
+ * @Author ZhaoYanNing
+ * @Date 2025/10/21 14:10
+ * @Version 1.0
+ */
+public interface McpEndpointDescriptor {
+
+    String CLASS_NAME_SUFFIX = "_McpDescriptor";
+
+    /**
+     * 端点类中的全部MCP方法
+     */
+    List<McpFunctionInfo> getFunctionInfos();
+}
@@ -0,0 +1,75 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+/**
+ * @ClassName McpEndpointMetrics
+ * @Description 单个MCP接口的指标采集回调, 由 McpStreamableHttpHandler 在请求处理的各阶段调用
+ * @Author ZhaoYanNing
+ * @Date 2025/10/20 09:30
+ * @Version 1.0
+ */
+public interface McpEndpointMetrics {
+
+    /**
+     * 不采集任何指标
+     */
+    McpEndpointMetrics NOOP = new McpEndpointMetrics() {
+    };
+
+    /**
+     * 是否采集指标, 为 false 时处理器跳过请求与响应的字节计数
+     */
+    default boolean isEnabled() {
+        return false;
+    }
+
+    /**
+     * HTTP请求开始处理
+     */
+    default void requestStarted() {
+    }
+
+    /**
+     * HTTP请求处理完成(包括异步完成与超时)
+     *
+     * @param requestBytes  请求体字节数
+     * @param responseBytes 响应体字节数
+     */
+    default void requestCompleted(long requestBytes, long responseBytes) {
+    }
+
+    /**
+     * 收到一条JSON-RPC消息, 批量请求中的每个条目各计一次
+     *
+     * @param method JSON-RPC方法, 无效请求为 null
+     */
+    default void messageReceived(String method) {
+    }
+
+    /**
+     * 返回了一条JSON-RPC错误响应
+     *
+     * @param code 错误码
+     */
+    default void errorReturned(int code) {
+    }
+
+    /**
+     * 工具调用开始
+     *
+     * @param tool 工具名称
+     * @return 开始时间(纳秒), 传给 toolCallCompleted
+     */
+    default long toolCallStarted(String tool) {
+        return 0L;
+    }
+
+    /**
+     * 工具调用结束
+     *
+     * @param tool       工具名称
+     * @param startNanos toolCallStarted 返回的开始时间
+     * @param success    是否成功, 抛出异常或返回 isError 结果时为 false
+     */
+    default void toolCallCompleted(String tool, long startNanos, boolean success) {
+    }
+}
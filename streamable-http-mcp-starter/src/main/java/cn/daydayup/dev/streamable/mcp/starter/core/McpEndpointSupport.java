@@ -0,0 +1,735 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import cn.daydayup.dev.streamable.mcp.starter.response.ResponseSchema;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * @ClassName McpEndpointSupport
+ * @Description MCP接口处理器的传输无关部分: 工具索引与响应模板、会话绑定、JSON-RPC分发与工具调用
+ * Servlet(McpStreamableHttpHandler) 与 WebFlux 传输继承本类, 只负责读取请求体与写出响应
+ * @Author ZhaoYanNing
+ * @Date 2025/10/25 10:00
+ * @Version 1.0
+ */
+@Getter
+@Setter
+@Slf4j
+public abstract class McpEndpointSupport {
+
+    protected static final String TEXT_EVENT_STREAM_UTF8 = MediaType.TEXT_EVENT_STREAM_VALUE + ";charset=UTF-8";
+    protected static final String RETRY_AFTER_SECONDS    = "1";
+    protected static final String SESSION_ID_HEADER      = "Mcp-Session-Id";
+
+    private String name;
+    private String version;
+
+    /**
+     * @McpServerEndpoint 的接口路径
+     */
+    private String path;
+    private Object targetBean;
+
+    /**
+     * JSON-RPC编解码器, 默认使用所有处理器共享的实例
+     */
+    private McpJsonCodec jsonCodec = McpJsonCodec.shared();
+
+    /**
+     * 执行工具方法的线程池, 为 null 时在请求线程中直接执行
+     */
+    private Executor toolExecutor;
+
+    /**
+     * 单个批量请求允许的最大条目数
+     */
+    private int maxBatchSize = 100;
+
+    /**
+     * 解压后请求体的最大字节数
+     */
+    private long maxRequestSize = 10L * 1024 * 1024;
+
+    /**
+     * 调用上下文快照中采集的请求头名称(小写)
+     */
+    @Setter(AccessLevel.NONE)
+    private Set<String> contextHeaders = Collections.emptySet();
+
+    /**
+     * 会话存储, 为 null 时不启用会话管理
+     */
+    private McpSessionStore sessionStore;
+
+    /**
+     * 接口指标采集器, 默认不采集
+     */
+    private McpEndpointMetrics metrics = McpEndpointMetrics.NOOP;
+
+    /**
+     * 执行中的工具调用, 键为会话ID与JSON-RPC请求ID, 用于响应 notifications/cancelled
+     */
+    @Setter(AccessLevel.NONE)
+    private final ConcurrentMap<String, McpCancellationToken> inFlightCalls = new ConcurrentHashMap<>();
+
+    /**
+     * 预构建的静态响应, 在 setFunctionInfos 时生成
+     */
+    @Setter(AccessLevel.NONE)
+    private McpResponseTemplate initializeTemplate;
+    @Setter(AccessLevel.NONE)
+    private McpResponseTemplate pingTemplate;
+
+    /**
+     * 工具目录的不可变快照, 注册或注销工具时复制后整体替换, 请求处理中的读取无需加锁
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicReference<ToolCatalog> catalog = new AtomicReference<>(ToolCatalog.EMPTY);
+
+    /**
+     * 设置调用上下文快照中采集的请求头, 名称不区分大小写
+     */
+    public void setContextHeaders(Collection<String> contextHeaders) {
+        this.contextHeaders = McpCallContext.normalizeHeaderNames(contextHeaders);
+    }
+
+    /**
+     * 设置MCP方法列表, 构建工具调用索引并预构建 initialize、tools/list、ping 的响应模板
+     * 需在 setTargetBean 之后调用, 替换此前注册的全部工具
+     *
+     * @param functionInfos MCP方法列表
+     */
+    public void setFunctionInfos(List<McpFunctionInfo> functionInfos) {
+        Map<String, McpToolInvoker> invokers = createInvokers(functionInfos, targetBean);
+        try {
+            ObjectMapper objectMapper = jsonCodec.getObjectMapper();
+            this.initializeTemplate = McpResponseTemplate.ofResult(objectMapper, buildInitializeResult());
+            this.pingTemplate = McpResponseTemplate.ofResult(objectMapper, objectMapper.createObjectNode());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("MCP响应模板构建失败", e);
+        }
+        updateCatalog(current -> {
+            current.clear();
+            current.putAll(invokers);
+            return true;
+        });
+    }
+
+    /**
+     * 运行时注册单个工具, 同名工具被替换; 已连接的客户端收到 notifications/tools/list_changed
+     *
+     * @param functionInfo 工具信息
+     * @param targetBean   工具方法所在的对象, 静态方法可为 null
+     */
+    public void registerTool(McpFunctionInfo functionInfo, Object targetBean) {
+        Map<String, McpToolInvoker> invokers = createInvokers(Collections.singletonList(functionInfo), targetBean);
+        updateCatalog(current -> {
+            current.putAll(invokers);
+            return true;
+        });
+    }
+
+    /**
+     * 运行时注册对象中全部 @McpFunction 方法, 同名工具被替换
+     *
+     * @param targetBean 工具方法所在的对象
+     * @return 注册的工具数量
+     */
+    public int registerTools(Object targetBean) {
+        List<McpFunctionInfo> functionInfos = McpServerEndpointAutoRegistry.loadMcpFunctions(targetBean.getClass());
+        if (functionInfos.isEmpty()) {
+            return 0;
+        }
+        Map<String, McpToolInvoker> invokers = createInvokers(functionInfos, targetBean);
+        updateCatalog(current -> {
+            current.putAll(invokers);
+            return true;
+        });
+        return invokers.size();
+    }
+
+    /**
+     * 运行时注销工具, 执行中的调用不受影响
+     *
+     * @param toolName 工具名称
+     * @return 工具存在并已注销时为 true
+     */
+    public boolean unregisterTool(String toolName) {
+        return updateCatalog(current -> current.remove(toolName) != null);
+    }
+
+    /**
+     * 运行时注销对象提供的全部工具
+     *
+     * @param targetBean 通过 registerTools 或 registerTool 注册的对象
+     * @return 存在被注销的工具时为 true
+     */
+    public boolean unregisterTools(Object targetBean) {
+        return updateCatalog(current -> current.values().removeIf(invoker -> invoker.getTargetBean() == targetBean));
+    }
+
+    /**
+     * 当前注册的MCP方法列表(只读)
+     */
+    public List<McpFunctionInfo> getFunctionInfos() {
+        return catalog.get().functionInfos;
+    }
+
+    /**
+     * 工具名称到预绑定调用器的只读索引
+     */
+    public Map<String, McpToolInvoker> getToolInvokers() {
+        return catalog.get().toolInvokers;
+    }
+
+    /**
+     * 当前工具目录对应的 tools/list 响应模板
+     */
+    public McpResponseTemplate getListToolsTemplate() {
+        return catalog.get().listToolsTemplate;
+    }
+
+    /**
+     * 向所有已建立的GET SSE流推送服务端通知
+     *
+     * @param method       通知方法
+     * @param paramsWriter params内容写出器, 为 null 时不输出 params
+     */
+    public abstract void sendNotification(String method, McpJsonCodec.ResultWriter paramsWriter) throws IOException;
+
+    private Map<String, McpToolInvoker> createInvokers(List<McpFunctionInfo> functionInfos, Object targetBean) {
+        Map<String, McpToolInvoker> invokers = new LinkedHashMap<>(functionInfos.size() * 2);
+        try {
+            for (McpFunctionInfo functionInfo : functionInfos) {
+                invokers.put(functionInfo.getName(), new McpToolInvoker(functionInfo, targetBean, jsonCodec.getObjectMapper()));
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("MCP工具调用器构建失败", e);
+        }
+        return invokers;
+    }
+
+    /**
+     * 复制当前工具索引并修改, 重建 tools/list 模板后以CAS替换快照, 并发修改时基于最新快照重试
+     * 调用器在进入循环前构建, 重试只重复模板序列化
+     *
+     * @param mutation 修改工具索引, 返回 false 表示没有变化
+     * @return 快照是否被替换
+     */
+    private boolean updateCatalog(Predicate<Map<String, McpToolInvoker>> mutation) {
+        ToolCatalog current;
+        ToolCatalog next;
+        do {
+            current = catalog.get();
+            Map<String, McpToolInvoker> invokers = new LinkedHashMap<>(current.toolInvokers);
+            if (!mutation.test(invokers)) {
+                return false;
+            }
+            next = buildCatalog(invokers);
+        } while (!catalog.compareAndSet(current, next));
+        log.debug("MCP工具目录已更新, endpoint:{}, tools:{}个, etag:{}", path, next.functionInfos.size(),
+                next.listToolsTemplate.getEtag());
+        if (current != ToolCatalog.EMPTY) {
+            notifyToolsChanged();
+        }
+        return true;
+    }
+
+    private ToolCatalog buildCatalog(Map<String, McpToolInvoker> invokers) {
+        List<McpFunctionInfo> functionInfos = new ArrayList<>(invokers.size());
+        for (McpToolInvoker invoker : invokers.values()) {
+            functionInfos.add(invoker.getFunctionInfo());
+        }
+        try {
+            return new ToolCatalog(Collections.unmodifiableList(functionInfos), Collections.unmodifiableMap(invokers),
+                    McpResponseTemplate.ofResult(jsonCodec.getObjectMapper(), buildListToolsResult(invokers.values())));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("MCP响应模板构建失败", e);
+        }
+    }
+
+    /**
+     * 通知已连接的客户端工具列表已变化, 客户端收到后重新请求 tools/list
+     */
+    private void notifyToolsChanged() {
+        try {
+            sendNotification("notifications/tools/list_changed", null);
+        } catch (IOException e) {
+            log.warn("工具列表变更通知发送失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 构建初始化响应的result部分
+     */
+    private ObjectNode buildInitializeResult() {
+        ObjectNode result = jsonCodec.getObjectMapper().createObjectNode();
+        result.put("protocolVersion", "2024-11-05");
+        ObjectNode capabilities = result.putObject("capabilities");
+        // 工具可在运行时注册与注销, 变化时推送 notifications/tools/list_changed
+        capabilities.putObject("tools").put("listChanged", true);
+
+        ObjectNode serverInfo = result.putObject("serverInfo");
+        serverInfo.put("name", name);
+        serverInfo.put("version", version);
+        return result;
+    }
+
+    /**
+     * 构建工具列表响应的result部分
+     */
+    private ObjectNode buildListToolsResult(Collection<McpToolInvoker> invokers) {
+        ObjectNode result = jsonCodec.getObjectMapper().createObjectNode();
+        ArrayNode tools = result.putArray("tools");
+        for (McpToolInvoker invoker : invokers) {
+            McpFunctionInfo functionInfo = invoker.getFunctionInfo();
+            ObjectNode tool = tools.addObject();
+            tool.put("name", functionInfo.getName());
+            tool.put("description", functionInfo.getDescription());
+
+            // 添加 inputSchema（MCP 规范要求即使无参数也必须存在）, 与参数校验使用同一份Schema
+            tool.putRawValue("inputSchema", new RawValue(invoker.getInputSchema()));
+        }
+        return result;
+    }
+
+    /**
+     * 为请求关联会话: initialize 创建新会话, 其余请求校验 Mcp-Session-Id
+     * 缺少请求头返回 400, 会话不存在或已过期返回 404(客户端应重新 initialize), 会话数已达上限返回 503
+     * 未启用会话管理时直接通过
+     *
+     * @param message  JSON-RPC消息
+     * @param exchange 当前请求
+     * @return 错误响应, 为 null 时继续处理请求
+     */
+    protected McpJsonRpcResponse bindSession(McpJsonRpcMessage message, McpExchange exchange) throws IOException {
+        if (sessionStore == null) {
+            return null;
+        }
+        McpJsonRpcRequest first = message.getRequests().isEmpty() ? null : message.getRequests().get(0);
+        JsonNode id = !message.isBatch() && first != null && first.getId() != null ? first.getId() : NullNode.getInstance();
+        if (!message.isBatch() && first != null && "initialize".equals(first.getMethod())) {
+            McpSession session = sessionStore.create(path, first.getParams());
+            if (session == null) {
+                return McpJsonRpcResponse.ofError(id, McpJsonRpcException.SERVER_BUSY, "会话数已达上限, 请稍后重试",
+                        HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            exchange.bindSession(session, true);
+            return null;
+        }
+        String sessionId = exchange.getHeader(SESSION_ID_HEADER);
+        if (sessionId == null) {
+            return McpJsonRpcResponse.ofError(id, McpJsonRpcException.INVALID_REQUEST, "缺少 " + SESSION_ID_HEADER + " 请求头",
+                    HttpStatus.BAD_REQUEST);
+        }
+        McpSession session = sessionStore.get(path, sessionId);
+        if (session == null) {
+            return McpJsonRpcResponse.ofError(id, McpJsonRpcException.INVALID_REQUEST, "会话不存在或已过期",
+                    HttpStatus.NOT_FOUND);
+        }
+        exchange.bindSession(session, false);
+        return null;
+    }
+
+    /**
+     * 并发分发批量请求, 其中 tools/call 在工具线程池中执行; 通知消息就地处理且不产生响应
+     *
+     * @param requests 批量请求
+     * @param exchange 当前请求
+     * @return 按请求顺序排列的响应, 全部为通知时为空列表; 条目数不合法时为 null
+     */
+    protected List<CompletableFuture<McpJsonRpcResponse>> dispatchBatch(List<McpJsonRpcRequest> requests,
+                                                                          McpExchange exchange) throws IOException {
+        if (requests.isEmpty() || requests.size() > maxBatchSize) {
+            return null;
+        }
+        List<CompletableFuture<McpJsonRpcResponse>> futures = new ArrayList<>(requests.size());
+        for (McpJsonRpcRequest rpcRequest : requests) {
+            metrics.messageReceived(rpcRequest.getMethod());
+            if (rpcRequest.isNotification()) {
+                handleNotification(rpcRequest, exchange);
+            } else {
+                futures.add(dispatch(rpcRequest, exchange, McpProgressReporter.NOOP));
+            }
+        }
+        return futures;
+    }
+
+    /**
+     * 批量请求条目数不合法时的错误响应
+     */
+    protected McpJsonRpcResponse invalidBatchResponse() {
+        return McpJsonRpcResponse.ofError(NullNode.getInstance(), McpJsonRpcException.INVALID_REQUEST,
+                "批量请求数量必须在1到" + maxBatchSize + "之间", HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * 请求体无法解析为JSON-RPC请求时的错误响应, 此时无法得知请求ID
+     */
+    protected static McpJsonRpcResponse requestErrorResponse(McpJsonRpcException e) {
+        return McpJsonRpcResponse.ofError(NullNode.getInstance(), e.getCode(), e.getMessage(), e.getData(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * 异步响应超时的错误响应, 错误码与HTTP状态与工具调用超过截止时间时一致
+     */
+    protected static McpJsonRpcResponse timeoutResponse(JsonNode id) {
+        return McpJsonRpcResponse.ofError(id, McpJsonRpcException.REQUEST_TIMEOUT, "请求处理超时", HttpStatus.OK);
+    }
+
+    /**
+     * 异步结果意外失败时的错误响应, 工具自身的异常已在分发时转换为错误响应, 此处仅处理框架内部错误
+     */
+    protected static McpJsonRpcResponse failureResponse(JsonNode id, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        log.error("MCP请求处理失败", cause);
+        return McpJsonRpcResponse.ofError(id, McpJsonRpcException.INTERNAL_ERROR, "请求处理失败: " + cause.getMessage(),
+                HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    /**
+     * 按JSON-RPC方法分发请求
+     *
+     * @param rpcRequest       JSON-RPC请求
+     * @param exchange         当前请求
+     * @param progressReporter 注入到工具方法的进度报告器
+     * @return 待写出的响应
+     */
+    protected CompletableFuture<McpJsonRpcResponse> dispatch(McpJsonRpcRequest rpcRequest, McpExchange exchange,
+                                                             McpProgressReporter progressReporter) throws IOException {
+        JsonNode id = rpcRequest.getId();
+        if (rpcRequest.isInvalid()) {
+            return CompletableFuture.completedFuture(McpJsonRpcResponse.ofError(id, McpJsonRpcException.INVALID_REQUEST,
+                    "无效的JSON-RPC请求", HttpStatus.BAD_REQUEST));
+        }
+        String method = rpcRequest.getMethod();
+
+        switch (method) {
+            case "initialize":
+                return CompletableFuture.completedFuture(McpJsonRpcResponse.ofTemplate(id, initializeTemplate));
+            case "tools/list":
+                return CompletableFuture.completedFuture(McpJsonRpcResponse.ofTemplate(id, catalog.get().listToolsTemplate));
+            case "tools/call":
+                return handleCallTool(rpcRequest, exchange, progressReporter);
+            case "ping":
+                return CompletableFuture.completedFuture(McpJsonRpcResponse.ofTemplate(id, pingTemplate));
+            default:
+                return CompletableFuture.completedFuture(McpJsonRpcResponse.ofError(id, McpJsonRpcException.METHOD_NOT_FOUND,
+                        "本服务器不支持 " + method + " 方法", HttpStatus.BAD_REQUEST));
+        }
+    }
+
+    /**
+     * 处理工具调用请求
+     * 同步工具在工具线程池中执行, 返回 CompletionStage 或 Publisher 的工具在请求线程中直接调用
+     *
+     * @param rpcRequest       JSON-RPC请求
+     * @param exchange         当前请求
+     * @param progressReporter 注入到工具方法的进度报告器
+     * @return 待写出的响应
+     */
+    protected CompletableFuture<McpJsonRpcResponse> handleCallTool(McpJsonRpcRequest rpcRequest, McpExchange exchange,
+                                                                   McpProgressReporter progressReporter) throws IOException {
+        JsonNode id = rpcRequest.getId();
+
+        // 获取工具名称和参数
+        String toolName = getToolName(rpcRequest);
+        JsonNode params = toolName != null ? rpcRequest.getParams().get("arguments") : null;
+
+        // 查找对应的工具调用器
+        McpToolInvoker invoker = toolName != null ? catalog.get().toolInvokers.get(toolName) : null;
+        if (invoker == null) {
+            // 如果没有找到函数，返回错误
+            log.warn("找不到指定的工具: {}", toolName);
+            return CompletableFuture.completedFuture(McpJsonRpcResponse.ofError(id, McpJsonRpcException.METHOD_NOT_FOUND,
+                    "找不到指定的工具: " + toolName, HttpStatus.OK));
+        }
+
+        // 参数校验失败时直接返回, 不进入缓存、合并与工具执行
+        try {
+            invoker.validate(params);
+        } catch (McpJsonRpcException e) {
+            log.warn("工具 {} 参数校验失败: {}", toolName, e.getMessage());
+            return CompletableFuture.completedFuture(McpJsonRpcResponse.ofError(id, e.getCode(), e.getMessage(), e.getData(),
+                    HttpStatus.OK));
+        }
+
+        McpEndpointMetrics endpointMetrics = metrics;
+        long startNanos = endpointMetrics.toolCallStarted(toolName);
+
+        // 命中结果缓存时直接返回
+        McpToolResultCache resultCache = invoker.getResultCache();
+        McpToolCallCoalescer coalescer = invoker.getCoalescer();
+        String callKey = resultCache != null || coalescer != null ? invoker.callKey(params) : null;
+        if (resultCache != null) {
+            Object cached = resultCache.get(callKey);
+            if (cached != null) {
+                endpointMetrics.toolCallCompleted(toolName, startNanos, true);
+                return CompletableFuture.completedFuture(toCallToolResponse(id, toolName, cached));
+            }
+        }
+
+        // 登记执行中的调用, 超时、客户端取消或连接中断时取消; 同一作用域中请求ID不得与执行中的调用重复
+        McpCancellationToken token = new McpCancellationToken(callTimeout(invoker, rpcRequest));
+        String inFlightKey = inFlightKey(exchange, id);
+        if (inFlightCalls.putIfAbsent(inFlightKey, token) != null) {
+            log.warn("工具 {} 的请求ID {} 与执行中的调用重复", toolName, id);
+            token.close();
+            endpointMetrics.toolCallCompleted(toolName, startNanos, false);
+            return CompletableFuture.completedFuture(McpJsonRpcResponse.ofError(id, McpJsonRpcException.INVALID_REQUEST,
+                    "请求ID " + id + " 与执行中的请求重复", HttpStatus.BAD_REQUEST));
+        }
+        exchange.trackCall(token);
+
+        // 工具执行期间绑定调用上下文快照, 调用结束后释放与原始请求的关联
+        McpCallContext context = exchange.callContext(contextHeaders)
+                .forCall(toolName, id.isNumber() ? id.numberValue() : id.asText(), token);
+        Function<McpCancellationToken, CompletableFuture<Object>> call = executionToken -> {
+            // 合并执行可能比发起它的请求存活更久, 只使用请求头快照
+            McpCallContext executionContext = executionToken == token ? context : context.detach(executionToken);
+            Supplier<Object> invocation = McpRequestContextHolder.withContext(executionContext, () -> {
+                try {
+                    return executionToken.run(() -> invoker.invoke(params, progressReporter, executionToken));
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            });
+            McpToolBulkhead bulkhead = invoker.getBulkhead();
+            CompletableFuture<Object> future = bulkhead == null ? execute(invoker, invocation, progressReporter, executionToken)
+                    : bulkhead.submit(() -> execute(invoker, invocation, progressReporter, executionToken), executionToken,
+                    toolExecutor != null ? toolExecutor : ForkJoinPool.commonPool());
+            // Supplier 在调用上下文中取值, 取值结果才决定能否缓存与共享
+            future = future.thenApply(result -> McpRequestContextHolder.withContext(executionContext,
+                    () -> McpToolResultWriter.resolve(result)).get());
+            if (resultCache != null) {
+                future = future.thenApply(result -> {
+                    if (!isErrorResult(result) && McpToolResultWriter.isReplayable(result)) {
+                        resultCache.put(callKey, result);
+                    }
+                    return result;
+                });
+            }
+            return future;
+        };
+
+        // 开启合并时, 相同参数的并发调用共享同一次执行; 单个调用取消或超时只放弃等待, 全部放弃后才取消执行
+        CompletableFuture<Object> future;
+        try {
+            future = coalescer != null ? coalescer.execute(callKey, token, call) : call.apply(token);
+        } catch (McpJsonRpcException e) {
+            log.warn("工具 {} 并发已满, 拒绝调用", toolName);
+            context.release();
+            finishCall(inFlightKey, token);
+            endpointMetrics.toolCallCompleted(toolName, startNanos, false);
+            return CompletableFuture.completedFuture(McpJsonRpcResponse.ofError(id, e.getCode(), e.getMessage(),
+                    HttpStatus.TOO_MANY_REQUESTS));
+        }
+        return future.handle((result, e) -> {
+            context.release();
+            finishCall(inFlightKey, token);
+            endpointMetrics.toolCallCompleted(toolName, startNanos, e == null && !isErrorResult(result));
+            return e == null ? toCallToolResponse(id, toolName, result) : toCallToolError(id, toolName, e);
+        });
+    }
+
+    /**
+     * 执行工具调用, 同步工具提交到工具线程池, 异步工具直接调用并等待其完成
+     * 令牌取消时不再等待执行结束, 立即释放并发名额; 工具返回的 CompletionStage 一并取消
+     */
+    private CompletableFuture<Object> execute(McpToolInvoker invoker, Supplier<Object> invocation,
+                                              McpProgressReporter progressReporter, McpCancellationToken token) {
+        CompletableFuture<Object> future;
+        if (invoker.isAsync() || toolExecutor == null) {
+            Object result;
+            try {
+                result = adaptResult(invocation.get(), progressReporter);
+            } catch (CompletionException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e.getCause());
+                return future;
+            }
+            if (!(result instanceof CompletionStage)) {
+                return CompletableFuture.completedFuture(result);
+            }
+            // 先登记放弃等待再取消 stage, 使调用以令牌的取消原因而不是 CancellationException 结束
+            CompletableFuture<?> stage = ((CompletionStage<?>) result).toCompletableFuture();
+            future = token.abandonOnCancel(stage.thenApply(Object.class::cast));
+            token.onCancel(() -> stage.cancel(true));
+            return future;
+        }
+        try {
+            return token.abandonOnCancel(CompletableFuture.supplyAsync(invocation, toolExecutor));
+        } catch (RejectedExecutionException e) {
+            // 工具线程池与其队列均已满
+            future = new CompletableFuture<>();
+            future.completeExceptionally(new McpJsonRpcException(McpJsonRpcException.SERVER_BUSY, "工具线程池繁忙, 请稍后重试"));
+            return future;
+        }
+    }
+
+    /**
+     * 转换工具方法的返回值, 传输层可将其支持的异步类型(如 Mono、Flux)转换为 CompletionStage
+     *
+     * @param result           工具方法返回值
+     * @param progressReporter 当前调用的进度报告器
+     * @return 转换后的返回值, 默认原样返回
+     */
+    protected Object adaptResult(Object result, McpProgressReporter progressReporter) {
+        return result;
+    }
+
+    /**
+     * 工具调用的超时时间, 取 @McpFunction(timeout) 与客户端 _meta.timeout(毫秒)中较短者, 0 表示不限制
+     */
+    private static long callTimeout(McpToolInvoker invoker, McpJsonRpcRequest rpcRequest) throws IOException {
+        long timeout = invoker.getTimeout();
+        JsonNode clientTimeout = rpcRequest.getParams().path("_meta").get("timeout");
+        if (clientTimeout != null && clientTimeout.canConvertToLong() && clientTimeout.asLong() > 0) {
+            timeout = timeout > 0 ? Math.min(timeout, clientTimeout.asLong()) : clientTimeout.asLong();
+        }
+        return timeout;
+    }
+
+    /**
+     * 执行中调用的索引键, 按会话隔离请求ID; 没有会话时无法区分不同客户端的相同请求ID, 按本次HTTP请求隔离
+     */
+    private static String inFlightKey(McpExchange exchange, JsonNode id) {
+        return exchange.callScope() + ':' + id;
+    }
+
+    /**
+     * 调用结束后释放令牌并移除执行中调用的索引
+     */
+    private void finishCall(String inFlightKey, McpCancellationToken token) {
+        token.close();
+        inFlightCalls.remove(inFlightKey, token);
+    }
+
+    /**
+     * 处理客户端通知, notifications/cancelled 取消同一作用域(会话, 未启用会话时为本次HTTP请求)中对应请求ID的执行中调用
+     */
+    protected void handleNotification(McpJsonRpcRequest rpcRequest, McpExchange exchange) throws IOException {
+        if (!"notifications/cancelled".equals(rpcRequest.getMethod())) {
+            return;
+        }
+        JsonNode params = rpcRequest.getParams();
+        JsonNode requestId = params != null ? params.get("requestId") : null;
+        if (requestId == null) {
+            return;
+        }
+        McpCancellationToken token = inFlightCalls.get(inFlightKey(exchange, requestId));
+        String reason = params.hasNonNull("reason") ? params.get("reason").asText() : "客户端取消";
+        if (token == null) {
+            log.debug("取消通知未匹配到执行中的调用, 请求ID: {}", requestId);
+        } else if (token.cancel(reason)) {
+            log.info("工具调用已取消, 请求ID: {}, 原因: {}", requestId, reason);
+        }
+    }
+
+    /**
+     * 构建工具调用成功响应, 返回值在写出响应时才序列化, 流式内容直接写入输出流
+     */
+    private McpJsonRpcResponse toCallToolResponse(JsonNode id, String toolName, Object result) {
+        ObjectMapper objectMapper = jsonCodec.getObjectMapper();
+        return McpJsonRpcResponse.ofResult(id, g -> McpToolResultWriter.write(g, toolName, result, objectMapper));
+    }
+
+    /**
+     * 工具是否返回了 isError 为 true 的结果, 此类结果不写入缓存并计为失败调用
+     */
+    private static boolean isErrorResult(Object result) {
+        return result instanceof ResponseSchema && Boolean.TRUE.equals(((ResponseSchema) result).get("isError"));
+    }
+
+    /**
+     * 构建工具调用异常响应
+     */
+    private McpJsonRpcResponse toCallToolError(JsonNode id, String toolName, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof McpJsonRpcException) {
+            McpJsonRpcException rpcException = (McpJsonRpcException) cause;
+            return McpJsonRpcResponse.ofError(id, rpcException.getCode(), rpcException.getMessage(), rpcException.getData(),
+                    rpcException.getCode() == McpJsonRpcException.SERVER_BUSY ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.OK);
+        }
+        // 处理其他异常
+        log.error("工具 {} 执行时发生异常", toolName, cause);
+        return McpJsonRpcResponse.ofError(id, McpJsonRpcException.INTERNAL_ERROR,
+                "工具 " + toolName + " 执行时发生异常" + cause.getMessage(), HttpStatus.OK);
+    }
+
+    /**
+     * 获取 tools/call 请求中的工具名称
+     */
+    protected static String getToolName(McpJsonRpcRequest rpcRequest) throws IOException {
+        JsonNode callParams = rpcRequest.getParams();
+        return callParams != null && callParams.has("name") ? callParams.get("name").asText() : null;
+    }
+
+    /**
+     * 记录错误响应的指标
+     */
+    protected void recordError(McpJsonRpcResponse rpcResponse) {
+        if (rpcResponse.isError()) {
+            metrics.errorReturned(rpcResponse.getErrorCode());
+        }
+    }
+
+    /**
+     * Accept 请求头是否接受 text/event-stream 响应
+     */
+    protected static boolean acceptsEventStream(String accept) {
+        return accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    /**
+     * 工具目录快照, 创建后不再修改
+     */
+    private static final class ToolCatalog {
+
+        static final ToolCatalog EMPTY = new ToolCatalog(Collections.emptyList(), Collections.emptyMap(), null);
+
+        final List<McpFunctionInfo>      functionInfos;
+        final Map<String, McpToolInvoker> toolInvokers;
+        final McpResponseTemplate         listToolsTemplate;
+
+        ToolCatalog(List<McpFunctionInfo> functionInfos, Map<String, McpToolInvoker> toolInvokers,
+                    McpResponseTemplate listToolsTemplate) {
+            this.functionInfos = functionInfos;
+            this.toolInvokers = toolInvokers;
+            this.listToolsTemplate = listToolsTemplate;
+        }
+    }
+}
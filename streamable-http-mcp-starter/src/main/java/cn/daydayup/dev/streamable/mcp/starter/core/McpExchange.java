@@ -0,0 +1,135 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * @ClassName McpExchange
+ * @Description 单个HTTP请求在分发期间的传输无关状态: 请求头、客户端地址、关联的会话、调用上下文快照及发起的工具调用
+ * Servlet 与 WebFlux 传输各自创建, 由 McpEndpointSupport 在分发请求时使用
+ * @Author ZhaoYanNing
+ * @Date 2025/10/25 10:20
+ * @Version 1.0
+ */
+public class McpExchange {
+
+    private static final AtomicLong SCOPE_SEQUENCE = new AtomicLong();
+
+    private final Function<String, String> headers;
+    private final String                   remoteAddress;
+
+    /**
+     * Servlet 传输中的原始请求, 其他传输为 null
+     */
+    private final HttpServletRequest servletRequest;
+
+    private McpSession     session;
+    private boolean        newSession;
+    private McpCallContext context;
+    private String         scope;
+
+    /**
+     * 本次请求发起的工具调用, 响应超时或连接中断时一并取消
+     */
+    private final List<McpCancellationToken> callTokens = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param headers       按名称(不区分大小写)读取请求头
+     * @param remoteAddress 对端地址
+     */
+    public McpExchange(Function<String, String> headers, String remoteAddress) {
+        this(headers, remoteAddress, null);
+    }
+
+    private McpExchange(Function<String, String> headers, String remoteAddress, HttpServletRequest servletRequest) {
+        this.headers = headers;
+        this.remoteAddress = remoteAddress;
+        this.servletRequest = servletRequest;
+    }
+
+    public static McpExchange of(HttpServletRequest request) {
+        return new McpExchange(request::getHeader, request.getRemoteAddr(), request);
+    }
+
+    public String getHeader(String name) {
+        return headers.apply(name);
+    }
+
+    /**
+     * 客户端IP, 优先使用 X-Forwarded-For 的第一个地址, 其次 X-Real-IP
+     */
+    public String getClientIp() {
+        return McpCallContext.resolveClientIp(headers, remoteAddress);
+    }
+
+    public HttpServletRequest getServletRequest() {
+        return servletRequest;
+    }
+
+    /**
+     * 关联的MCP会话, 未启用会话管理时为 null
+     */
+    public McpSession getSession() {
+        return session;
+    }
+
+    /**
+     * 是否为本次 initialize 新建的会话, 传输层据此在响应头中返回 Mcp-Session-Id
+     */
+    public boolean isNewSession() {
+        return newSession;
+    }
+
+    void bindSession(McpSession session, boolean newSession) {
+        this.session = session;
+        this.newSession = newSession;
+        if (servletRequest != null) {
+            servletRequest.setAttribute(McpSession.REQUEST_ATTRIBUTE, session);
+        }
+    }
+
+    /**
+     * 请求级调用上下文快照, 同一请求(如批量请求)中的调用共享同一份快照
+     *
+     * @param headerNames 需要采集的请求头名称(小写)
+     */
+    McpCallContext callContext(Set<String> headerNames) {
+        if (context == null) {
+            context = McpCallContext.capture(this, headers, headerNames);
+        }
+        return context;
+    }
+
+    /**
+     * 执行中工具调用的请求ID作用域: 关联会话时为会话ID, 否则为本次请求独有的标识
+     * notifications/cancelled 只能取消同一作用域中的调用, 因此未启用会话时只能取消同一批量请求中先前发起的调用
+     */
+    String callScope() {
+        if (session != null) {
+            return session.getId();
+        }
+        if (scope == null) {
+            scope = "exchange-" + SCOPE_SEQUENCE.incrementAndGet();
+        }
+        return scope;
+    }
+
+    void trackCall(McpCancellationToken token) {
+        callTokens.add(token);
+    }
+
+    /**
+     * 取消本次请求发起的全部工具调用
+     *
+     * @param reason 取消原因
+     */
+    public void cancelCalls(String reason) {
+        for (McpCancellationToken token : callTokens) {
+            token.cancel(reason);
+        }
+    }
+}
@@ -1,13 +1,19 @@
 package cn.daydayup.dev.streamable.mcp.starter.core;
 
+import cn.daydayup.dev.streamable.mcp.starter.annotation.McpFunction;
+import lombok.Builder;
 import lombok.Getter;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 /**
  * @ClassName McpFunctionInfo
  * @Description MCP方法信息
+ * 由注册时的反射扫描构建, 或由编译期生成的 McpEndpointDescriptor 通过 builder 直接构建
  * @Author ZhaoYanNing
  * @Date 2025/9/30 15:11
  * @Version 1.0
@@ -17,31 +23,188 @@ public class McpFunctionInfo {
 
     private final String          name;
     private final String          description;
-    private final Method          method;
     private final List<ParamInfo> params;
 
+    /**
+     * 工具方法, 使用编译期生成的调用器时为 null
+     */
+    private final Method method;
+
+    /**
+     * 编译期生成的直接调用器, 为 null 时通过 method 调用
+     */
+    private final McpDirectInvoker directInvoker;
+
+    /**
+     * 工具方法的参数个数
+     */
+    private final int parameterCount;
+
+    /**
+     * McpProgressReporter 类型参数的位置, 不存在时为 -1
+     */
+    private final int progressReporterIndex;
+
+    /**
+     * McpCancellationToken 类型参数的位置, 不存在时为 -1
+     */
+    private final int cancellationTokenIndex;
+
+    /**
+     * 工具方法是否返回 CompletionStage 或 org.reactivestreams.Publisher(如 Mono、Flux)
+     */
+    private final boolean async;
+
+    /**
+     * 工具方法是否返回多值的 Publisher(如 Flux), 响应式传输中以SSE逐个推送元素
+     */
+    private final boolean streaming;
+
+    /**
+     * 预先生成的 inputSchema JSON, 为 null 时在构建 tools/list 响应时生成
+     */
+    private final String inputSchema;
+
+    /**
+     * 以下为 @McpFunction 中的调用配置
+     */
+    private final int      maxConcurrency;
+    private final int      maxWaiting;
+    private final long     cacheTtl;
+    private final int      cacheMaxEntries;
+    private final String[] cacheKeys;
+    private final boolean  coalesce;
+    private final long     timeout;
+
     public McpFunctionInfo(String name, String description, Method method, List<ParamInfo> params) {
+        this(name, description, params, method, null, method.getParameterCount(),
+                findInjectedParamIndex(method, params, McpProgressReporter.class),
+                findInjectedParamIndex(method, params, McpCancellationToken.class),
+                CompletionStage.class.isAssignableFrom(method.getReturnType()) || isPublisher(method.getReturnType()),
+                isPublisher(method.getReturnType()) && !isAssignableTo(method.getReturnType(), "reactor.core.publisher.Mono"),
+                null, method.getAnnotation(McpFunction.class));
+    }
+
+    private McpFunctionInfo(String name, String description, List<ParamInfo> params, Method method, McpDirectInvoker directInvoker,
+                            int parameterCount, int progressReporterIndex, int cancellationTokenIndex, boolean async,
+                            boolean streaming, String inputSchema, McpFunction mcpFunction) {
+        this(name, description, params, method, directInvoker, parameterCount, progressReporterIndex, cancellationTokenIndex,
+                async, streaming, inputSchema,
+                mcpFunction != null ? mcpFunction.maxConcurrency() : 0,
+                mcpFunction != null ? mcpFunction.maxWaiting() : 0,
+                mcpFunction != null ? mcpFunction.cacheTtl() : 0,
+                mcpFunction != null ? mcpFunction.cacheMaxEntries() : 1000,
+                mcpFunction != null ? mcpFunction.cacheKeys() : null,
+                mcpFunction != null && mcpFunction.coalesce(),
+                mcpFunction != null ? mcpFunction.timeout() : 0);
+    }
+
+    /**
+     * 编译期生成的描述符通过 builder 构建, 需显式设置 progressReporterIndex 与 cancellationTokenIndex(不存在时为 -1)
+     */
+    @Builder(toBuilder = true)
+    private McpFunctionInfo(String name, String description, List<ParamInfo> params, Method method, McpDirectInvoker directInvoker,
+                            int parameterCount, int progressReporterIndex, int cancellationTokenIndex, boolean async,
+                            boolean streaming, String inputSchema, int maxConcurrency, int maxWaiting, long cacheTtl, int cacheMaxEntries,
+                            String[] cacheKeys, boolean coalesce, long timeout) {
         this.name = name;
         this.description = description;
+        this.params = params != null ? params : Collections.emptyList();
         this.method = method;
-        this.params = params;
+        this.directInvoker = directInvoker;
+        this.parameterCount = parameterCount;
+        this.progressReporterIndex = progressReporterIndex;
+        this.cancellationTokenIndex = cancellationTokenIndex;
+        this.async = async;
+        this.streaming = streaming;
+        this.inputSchema = inputSchema;
+        this.maxConcurrency = maxConcurrency;
+        this.maxWaiting = maxWaiting;
+        this.cacheTtl = cacheTtl;
+        this.cacheMaxEntries = cacheMaxEntries;
+        this.cacheKeys = cacheKeys != null ? cacheKeys : new String[0];
+        this.coalesce = coalesce;
+        this.timeout = timeout;
+    }
+
+    private static boolean isPublisher(Class<?> type) {
+        return isAssignableTo(type, "org.reactivestreams.Publisher");
+    }
+
+    /**
+     * 按类名判断类型是否可赋值给指定类型, 避免对 Reactive Streams、Reactor 的编译期依赖
+     */
+    private static boolean isAssignableTo(Class<?> type, String className) {
+        try {
+            return Class.forName(className, false, type.getClassLoader()).isAssignableFrom(type);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * 查找未标注 @McpParam 的指定类型参数, 如 McpProgressReporter、McpCancellationToken
+     */
+    private static int findInjectedParamIndex(Method method, List<ParamInfo> params, Class<?> injectedType) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        boolean[] bound = new boolean[parameterTypes.length];
+        for (ParamInfo paramInfo : params) {
+            bound[paramInfo.getIndex()] = true;
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (!bound[i] && injectedType.equals(parameterTypes[i])) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     @Getter
     public static class ParamInfo {
 
+        private final int      index;
         private final String   name;
         private final String   description;
         private final String[] enums;
         private final boolean  required;
         private final Class<?> type;
 
-        public ParamInfo(String name, String description, String[] enums, boolean required, Class<?> type) {
+        /**
+         * 参数的泛型类型, 用于绑定 List、Map 等参数的元素类型与生成嵌套的 inputSchema
+         */
+        private final Type     genericType;
+
+        /**
+         * 以下为 @McpParam 中的取值约束
+         */
+        private final double   minimum;
+        private final double   maximum;
+        private final int      minLength;
+        private final int      maxLength;
+
+        public ParamInfo(int index, String name, String description, String[] enums, boolean required, Class<?> type) {
+            this(index, name, description, enums, required, type, type);
+        }
+
+        public ParamInfo(int index, String name, String description, String[] enums, boolean required, Class<?> type,
+                         Type genericType) {
+            this(index, name, description, enums, required, type, genericType,
+                    Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, -1, -1);
+        }
+
+        public ParamInfo(int index, String name, String description, String[] enums, boolean required, Class<?> type,
+                         Type genericType, double minimum, double maximum, int minLength, int maxLength) {
+            this.index = index;
             this.name = name;
             this.description = description;
             this.enums = enums;
             this.required = required;
             this.type = type;
+            this.genericType = genericType != null ? genericType : type;
+            this.minimum = minimum;
+            this.maximum = maximum;
+            this.minLength = minLength;
+            this.maxLength = maxLength;
         }
     }
 }
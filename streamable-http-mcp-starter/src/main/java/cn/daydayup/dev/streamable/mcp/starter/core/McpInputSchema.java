@@ -0,0 +1,308 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+
+import java.net.URI;
+import java.net.URL;
+import java.time.temporal.Temporal;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * @ClassName McpInputSchema
+ * @Description 生成 tools/list 中工具的 inputSchema JSON
+ * 运行时根据参数的泛型类型生成; 编译期注解处理器使用 property/toJson 预先生成仅含标量参数的Schema, 两种方式结果一致
+ * @Author ZhaoYanNing
+ * @Date 2025/10/21 14:20
+ * @Version 1.0
+ */
+public class McpInputSchema {
+
+    private final StringBuilder properties = new StringBuilder(128);
+    private final StringBuilder required   = new StringBuilder();
+
+    /**
+     * 根据参数信息生成 inputSchema, List、Map、枚举与POJO参数生成嵌套的Schema
+     *
+     * @param params       参数列表
+     * @param objectMapper 参数绑定使用的 ObjectMapper, POJO的属性按其反序列化规则确定
+     * @return inputSchema JSON
+     */
+    public static String of(List<McpFunctionInfo.ParamInfo> params, ObjectMapper objectMapper) {
+        McpInputSchema schema = new McpInputSchema();
+        for (McpFunctionInfo.ParamInfo paramInfo : params) {
+            if (paramInfo != null) {
+                JavaType type = objectMapper.getTypeFactory().constructType(paramInfo.getGenericType());
+                StringBuilder typeSchema = new StringBuilder(32);
+                // @McpParam 声明了可选值时以声明为准, 不再输出枚举类型的常量
+                boolean enumDeclared = paramInfo.getEnums() != null && paramInfo.getEnums().length > 0;
+                appendType(typeSchema, type, objectMapper, new HashSet<>(), !enumDeclared);
+                boolean array = type.isArrayType() && type.getRawClass() != byte[].class || type.isCollectionLikeType();
+                schema.append(paramInfo.getName(), paramInfo.getDescription(), typeSchema, paramInfo.getEnums(),
+                        paramInfo.isRequired(), array, paramInfo.getMinimum(), paramInfo.getMaximum(),
+                        paramInfo.getMinLength(), paramInfo.getMaxLength());
+            }
+        }
+        return schema.toJson();
+    }
+
+    /**
+     * 根据参数类型名称获取对应的JSON Schema类型
+     *
+     * @param typeName 参数类型的全限定名, 基本类型为关键字本身, 如 int
+     * @return JSON Schema类型字符串, 非标量类型返回 null
+     */
+    public static String typeOf(String typeName) {
+        switch (typeName) {
+            case "double":
+            case "java.lang.Double":
+            case "float":
+            case "java.lang.Float":
+            case "long":
+            case "java.lang.Long":
+            case "java.math.BigDecimal":
+                return "number";
+            case "int":
+            case "java.lang.Integer":
+            case "short":
+            case "java.lang.Short":
+            case "byte":
+            case "java.lang.Byte":
+            case "java.math.BigInteger":
+                return "integer";
+            case "boolean":
+            case "java.lang.Boolean":
+                return "boolean";
+            case "java.lang.String":
+            case "java.lang.CharSequence":
+            case "char":
+            case "java.lang.Character":
+                return "string";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 输出类型对应的Schema内容(不含外层花括号), 任意类型时不输出内容
+     *
+     * @param visiting 正在展开的POJO类型, 用于截断自引用
+     */
+    private static void appendType(StringBuilder out, JavaType type, ObjectMapper objectMapper, Set<Class<?>> visiting,
+                                   boolean enumValues) {
+        Class<?> rawClass = type.getRawClass();
+        String scalarType = typeOf(rawClass.getName());
+        if (scalarType != null) {
+            out.append("\"type\":\"").append(scalarType).append('"');
+        } else if (rawClass.isEnum()) {
+            out.append("\"type\":\"string\"");
+            if (enumValues) {
+                out.append(",\"enum\":[");
+                Object[] constants = rawClass.getEnumConstants();
+                for (int i = 0; i < constants.length; i++) {
+                    out.append(i > 0 ? "," : "");
+                    appendString(out, ((Enum<?>) constants[i]).name());
+                }
+                out.append(']');
+            }
+        } else if (rawClass == byte[].class || isStringLike(rawClass)) {
+            // byte[] 按Jackson的规则以Base64字符串传递
+            out.append("\"type\":\"string\"");
+        } else if (Number.class.isAssignableFrom(rawClass)) {
+            out.append("\"type\":\"number\"");
+        } else if (type.isArrayType() || type.isCollectionLikeType()) {
+            out.append("\"type\":\"array\"");
+            appendContentType(out, ",\"items\":{", type.getContentType(), objectMapper, visiting);
+        } else if (type.isMapLikeType()) {
+            out.append("\"type\":\"object\"");
+            appendContentType(out, ",\"additionalProperties\":{", type.getContentType(), objectMapper, visiting);
+        } else if (rawClass == Object.class || JsonNode.class.isAssignableFrom(rawClass)) {
+            // 任意JSON值
+        } else if (!visiting.add(rawClass)) {
+            out.append("\"type\":\"object\"");
+        } else {
+            appendBean(out, type, objectMapper, visiting);
+            visiting.remove(rawClass);
+        }
+    }
+
+    private static void appendContentType(StringBuilder out, String prefix, JavaType contentType, ObjectMapper objectMapper,
+                                          Set<Class<?>> visiting) {
+        if (contentType == null || contentType.isJavaLangObject()) {
+            return;
+        }
+        out.append(prefix);
+        appendType(out, contentType, objectMapper, visiting, true);
+        out.append('}');
+    }
+
+    /**
+     * 按 ObjectMapper 的反序列化规则输出POJO的属性
+     */
+    private static void appendBean(StringBuilder out, JavaType type, ObjectMapper objectMapper, Set<Class<?>> visiting) {
+        BeanDescription beanDescription = objectMapper.getDeserializationConfig().introspect(type);
+        StringBuilder required = new StringBuilder();
+        out.append("\"type\":\"object\",\"properties\":{");
+        boolean first = true;
+        for (BeanPropertyDefinition property : beanDescription.findProperties()) {
+            if (!property.couldDeserialize()) {
+                continue;
+            }
+            out.append(first ? "" : ",");
+            first = false;
+            appendString(out, property.getName());
+            out.append(":{");
+            appendType(out, property.getPrimaryType(), objectMapper, visiting, true);
+            out.append('}');
+            if (property.isRequired()) {
+                required.append(required.length() > 0 ? "," : "");
+                appendString(required, property.getName());
+            }
+        }
+        out.append('}');
+        if (required.length() > 0) {
+            out.append(",\"required\":[").append(required).append(']');
+        }
+    }
+
+    /**
+     * 以JSON字符串传递的常见值类型
+     */
+    private static boolean isStringLike(Class<?> rawClass) {
+        return CharSequence.class.isAssignableFrom(rawClass) || Date.class.isAssignableFrom(rawClass)
+                || Calendar.class.isAssignableFrom(rawClass) || Temporal.class.isAssignableFrom(rawClass)
+                || UUID.class == rawClass || URI.class == rawClass || URL.class == rawClass;
+    }
+
+    /**
+     * 添加一个参数
+     *
+     * @param name        参数名称
+     * @param description 参数描述
+     * @param type        JSON Schema类型, 如 typeOf 的返回值
+     * @param enums       可选值, 可为 null
+     * @param required    是否必需
+     * @return this
+     */
+    public McpInputSchema property(String name, String description, String type, String[] enums, boolean required) {
+        return property(name, description, type, enums, required, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, -1, -1);
+    }
+
+    /**
+     * 添加一个带取值约束的标量参数
+     *
+     * @param minimum   最小值, 无穷时不输出
+     * @param maximum   最大值, 无穷时不输出
+     * @param minLength 字符串最小长度, 小于0时不输出
+     * @param maxLength 字符串最大长度, 小于0时不输出
+     * @return this
+     */
+    public McpInputSchema property(String name, String description, String type, String[] enums, boolean required,
+                                   double minimum, double maximum, int minLength, int maxLength) {
+        StringBuilder typeSchema = new StringBuilder(type.length() + 9).append("\"type\":");
+        appendString(typeSchema, type);
+        return append(name, description, typeSchema, enums, required, false, minimum, maximum, minLength, maxLength);
+    }
+
+    private McpInputSchema append(String name, String description, CharSequence typeSchema, String[] enums, boolean required,
+                                  boolean array, double minimum, double maximum, int minLength, int maxLength) {
+        if (properties.length() > 0) {
+            properties.append(',');
+        }
+        appendString(properties, name);
+        properties.append(":{").append(typeSchema);
+        properties.append(typeSchema.length() > 0 ? ",\"description\":" : "\"description\":");
+        appendString(properties, description);
+        if (enums != null && enums.length > 0) {
+            properties.append(",\"enum\":[");
+            for (int i = 0; i < enums.length; i++) {
+                if (i > 0) {
+                    properties.append(',');
+                }
+                appendString(properties, enums[i]);
+            }
+            properties.append(']');
+        }
+        if (!Double.isInfinite(minimum) && !Double.isNaN(minimum)) {
+            appendNumber(properties.append(",\"minimum\":"), minimum);
+        }
+        if (!Double.isInfinite(maximum) && !Double.isNaN(maximum)) {
+            appendNumber(properties.append(",\"maximum\":"), maximum);
+        }
+        if (minLength >= 0) {
+            properties.append(array ? ",\"minItems\":" : ",\"minLength\":").append(minLength);
+        }
+        if (maxLength >= 0) {
+            properties.append(array ? ",\"maxItems\":" : ",\"maxLength\":").append(maxLength);
+        }
+        properties.append('}');
+        if (required) {
+            this.required.append(this.required.length() > 0 ? "," : "");
+            appendString(this.required, name);
+        }
+        return this;
+    }
+
+    /**
+     * 输出 inputSchema JSON, 无参数时仍包含空的 properties(MCP 规范要求)
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(properties.length() + required.length() + 64);
+        json.append("{\"type\":\"object\",\"properties\":{").append(properties).append('}');
+        if (required.length() > 0) {
+            json.append(",\"required\":[").append(required).append(']');
+        }
+        return json.append('}').toString();
+    }
+
+    private static void appendNumber(StringBuilder out, double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+    }
+
+    private static void appendString(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,228 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @ClassName McpJsonCodec
+ * @Description JSON-RPC流式编解码器, 直接在输入/输出流上读写, 所有处理器共享同一个 ObjectMapper
+ * @Author ZhaoYanNing
+ * @Date 2025/10/18 16:05
+ * @Version 1.0
+ */
+public class McpJsonCodec {
+
+    private static final McpJsonCodec SHARED = new McpJsonCodec(createObjectMapper());
+
+    @Getter
+    private final ObjectMapper objectMapper;
+
+    public McpJsonCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 获取共享的编解码器实例
+     */
+    public static McpJsonCodec shared() {
+        return SHARED;
+    }
+
+    /**
+     * 创建MCP协议使用的 ObjectMapper, 输出流的关闭由调用方负责
+     */
+    public static ObjectMapper createObjectMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        objectMapper.getFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        objectMapper.getFactory().disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        return objectMapper;
+    }
+
+    /**
+     * 从输入流读取JSON-RPC消息, 支持单个请求对象与批量请求数组
+     *
+     * @param in 请求体输入流
+     * @return JSON-RPC消息
+     * @throws McpJsonRpcException 请求体为空或不是有效的JSON时错误码为 -32700, 不是JSON对象或数组时为 -32600
+     */
+    public McpJsonRpcMessage readMessage(InputStream in) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new McpJsonRpcException(McpJsonRpcException.PARSE_ERROR, "请求体为空");
+            }
+            if (token == JsonToken.START_OBJECT) {
+                return new McpJsonRpcMessage(false, Collections.singletonList(readRequest(parser)));
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new McpJsonRpcException(McpJsonRpcException.INVALID_REQUEST, "JSON-RPC请求必须为JSON对象或数组");
+            }
+            List<McpJsonRpcRequest> requests = new ArrayList<>();
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == JsonToken.START_OBJECT) {
+                    requests.add(readRequest(parser));
+                } else {
+                    parser.skipChildren();
+                    requests.add(McpJsonRpcRequest.invalid());
+                }
+            }
+            return new McpJsonRpcMessage(true, requests);
+        } catch (JsonProcessingException e) {
+            throw new McpJsonRpcException(McpJsonRpcException.PARSE_ERROR, "请求体不是有效的JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * 从当前位于 START_OBJECT 的解析器读取JSON-RPC请求, 未知字段直接跳过
+     * method 不是字符串时跳过其内容, 请求视为无效(-32600)
+     *
+     * @param parser JSON解析器
+     * @return JSON-RPC请求
+     */
+    public McpJsonRpcRequest readRequest(JsonParser parser) throws IOException {
+        JsonNode id = null;
+        String method = null;
+        boolean invalidMethod = false;
+        TokenBuffer params = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "id":
+                    id = parser.readValueAsTree();
+                    break;
+                case "method":
+                    if (parser.currentToken() == JsonToken.VALUE_STRING) {
+                        method = parser.getText();
+                    } else {
+                        parser.skipChildren();
+                        invalidMethod = true;
+                    }
+                    break;
+                case "params":
+                    params = new TokenBuffer(parser);
+                    params.copyCurrentStructure(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return new McpJsonRpcRequest(id, invalidMethod ? null : method, params);
+    }
+
+    /**
+     * 在输出流上创建UTF-8编码的生成器
+     */
+    public JsonGenerator createGenerator(OutputStream out) throws IOException {
+        return objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+    }
+
+    /**
+     * 序列化请求ID, 用于拼接预构建响应
+     */
+    public byte[] writeIdAsBytes(JsonNode id) throws IOException {
+        return objectMapper.writeValueAsBytes(id);
+    }
+
+    /**
+     * 写出成功响应
+     *
+     * @param generator    JSON生成器
+     * @param id           请求ID
+     * @param resultWriter result内容写出器
+     */
+    public void writeResult(JsonGenerator generator, JsonNode id, ResultWriter resultWriter) throws IOException {
+        writeEnvelopeStart(generator, id);
+        generator.writeFieldName("result");
+        resultWriter.write(generator);
+        generator.writeEndObject();
+    }
+
+    /**
+     * 写出错误响应
+     *
+     * @param generator JSON生成器
+     * @param id        请求ID
+     * @param code      错误码
+     * @param message   错误信息
+     */
+    public void writeError(JsonGenerator generator, JsonNode id, int code, String message) throws IOException {
+        writeError(generator, id, code, message, null);
+    }
+
+    /**
+     * 写出携带 data 的错误响应
+     *
+     * @param generator JSON生成器
+     * @param id        请求ID
+     * @param code      错误码
+     * @param message   错误信息
+     * @param data      错误详情, 为 null 时不输出
+     */
+    public void writeError(JsonGenerator generator, JsonNode id, int code, String message, JsonNode data) throws IOException {
+        writeEnvelopeStart(generator, id);
+        generator.writeObjectFieldStart("error");
+        generator.writeNumberField("code", code);
+        generator.writeStringField("message", message);
+        if (data != null) {
+            generator.writeFieldName("data");
+            generator.writeTree(data);
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    /**
+     * 将通知消息序列化为字符串
+     *
+     * @param method       通知方法
+     * @param paramsWriter params内容写出器, 为 null 时不输出 params
+     */
+    public String writeNotificationAsString(String method, ResultWriter paramsWriter) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)) {
+            generator.writeStartObject();
+            generator.writeStringField("jsonrpc", "2.0");
+            generator.writeStringField("method", method);
+            if (paramsWriter != null) {
+                generator.writeFieldName("params");
+                paramsWriter.write(generator);
+            }
+            generator.writeEndObject();
+        }
+        return writer.toString();
+    }
+
+    private void writeEnvelopeStart(JsonGenerator generator, JsonNode id) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("jsonrpc", "2.0");
+        generator.writeFieldName("id");
+        generator.writeTree(id);
+    }
+
+    /**
+     * result内容写出器
+     */
+    @FunctionalInterface
+    public interface ResultWriter {
+
+        void write(JsonGenerator generator) throws IOException;
+    }
+}
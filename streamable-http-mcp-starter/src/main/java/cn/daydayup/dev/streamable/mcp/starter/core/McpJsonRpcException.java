@@ -0,0 +1,41 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+
+/**
+ * @ClassName McpJsonRpcException
+ * @Description 携带JSON-RPC错误码的异常, 由处理器转换为 error 响应
+ * @Author ZhaoYanNing
+ * @Date 2025/10/18 14:05
+ * @Version 1.0
+ */
+@Getter
+public class McpJsonRpcException extends RuntimeException {
+
+    public static final int PARSE_ERROR       = -32700;
+    public static final int INVALID_REQUEST   = -32600;
+    public static final int METHOD_NOT_FOUND  = -32601;
+    public static final int INVALID_PARAMS    = -32602;
+    public static final int INTERNAL_ERROR    = -32603;
+    public static final int SERVER_BUSY       = -32001;
+    public static final int REQUEST_TIMEOUT   = -32003;
+    public static final int REQUEST_CANCELLED = -32800;
+
+    private final int code;
+
+    /**
+     * error.data 内容, 可为 null
+     */
+    private final transient JsonNode data;
+
+    public McpJsonRpcException(int code, String message) {
+        this(code, message, null);
+    }
+
+    public McpJsonRpcException(int code, String message, JsonNode data) {
+        super(message);
+        this.code = code;
+        this.data = data;
+    }
+}
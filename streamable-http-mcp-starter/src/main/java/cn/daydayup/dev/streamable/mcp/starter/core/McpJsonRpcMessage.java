@@ -0,0 +1,27 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * @ClassName McpJsonRpcMessage
+ * @Description 解析后的JSON-RPC消息, 单个请求或批量请求数组
+ * @Author ZhaoYanNing
+ * @Date 2025/10/18 18:30
+ * @Version 1.0
+ */
+@Getter
+public class McpJsonRpcMessage {
+
+    /**
+     * 请求体是否为批量数组
+     */
+    private final boolean                 batch;
+    private final List<McpJsonRpcRequest> requests;
+
+    McpJsonRpcMessage(boolean batch, List<McpJsonRpcRequest> requests) {
+        this.batch = batch;
+        this.requests = requests;
+    }
+}
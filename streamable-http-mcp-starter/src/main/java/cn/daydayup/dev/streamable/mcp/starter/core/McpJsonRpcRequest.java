@@ -0,0 +1,70 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * @ClassName McpJsonRpcRequest
+ * @Description JSON-RPC请求, params 以token缓冲保存, 仅在首次访问时构建为树
+ * @Author ZhaoYanNing
+ * @Date 2025/10/18 16:20
+ * @Version 1.0
+ */
+public class McpJsonRpcRequest {
+
+    /**
+     * 请求ID, 通知消息为 null
+     */
+    @Getter
+    private final JsonNode id;
+
+    @Getter
+    private final String method;
+
+    private TokenBuffer paramsBuffer;
+    private JsonNode    params;
+
+    McpJsonRpcRequest(JsonNode id, String method, TokenBuffer paramsBuffer) {
+        this.id = id;
+        this.method = method;
+        this.paramsBuffer = paramsBuffer;
+    }
+
+    /**
+     * 构建无效请求（如批量请求中的非对象元素）
+     */
+    static McpJsonRpcRequest invalid() {
+        return new McpJsonRpcRequest(NullNode.getInstance(), null, null);
+    }
+
+    /**
+     * 是否为通知消息（不含 id 字段）
+     */
+    public boolean isNotification() {
+        return id == null;
+    }
+
+    /**
+     * 是否为无效请求（缺少 method 字段）
+     */
+    public boolean isInvalid() {
+        return method == null;
+    }
+
+    /**
+     * 获取 params 节点, 首次调用时从token缓冲构建
+     *
+     * @return params 节点, 请求未携带时为 null
+     */
+    public JsonNode getParams() throws IOException {
+        if (params == null && paramsBuffer != null) {
+            params = paramsBuffer.asParser(paramsBuffer.getCodec()).readValueAsTree();
+            paramsBuffer = null;
+        }
+        return params;
+    }
+}
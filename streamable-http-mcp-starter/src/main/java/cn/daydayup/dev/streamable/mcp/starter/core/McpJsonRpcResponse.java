@@ -0,0 +1,84 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+
+/**
+ * @ClassName McpJsonRpcResponse
+ * @Description 待写出的JSON-RPC响应, 可写入单个响应体或批量响应数组
+ * @Author ZhaoYanNing
+ * @Date 2025/10/18 18:35
+ * @Version 1.0
+ */
+@Getter
+public class McpJsonRpcResponse {
+
+    private final JsonNode                  id;
+    private final HttpStatus                status;
+    private final McpResponseTemplate       template;
+    private final McpJsonCodec.ResultWriter resultWriter;
+    private final int                       errorCode;
+    private final String                    errorMessage;
+    private final JsonNode                  errorData;
+
+    private McpJsonRpcResponse(JsonNode id, HttpStatus status, McpResponseTemplate template,
+                               McpJsonCodec.ResultWriter resultWriter, int errorCode, String errorMessage, JsonNode errorData) {
+        this.id = id;
+        this.status = status;
+        this.template = template;
+        this.resultWriter = resultWriter;
+        this.errorCode = errorCode;
+        this.errorMessage = errorMessage;
+        this.errorData = errorData;
+    }
+
+    /**
+     * 基于预构建模板的成功响应
+     */
+    public static McpJsonRpcResponse ofTemplate(JsonNode id, McpResponseTemplate template) {
+        return new McpJsonRpcResponse(id, HttpStatus.OK, template, template::writeResult, 0, null, null);
+    }
+
+    /**
+     * 由写出器生成result的成功响应
+     */
+    public static McpJsonRpcResponse ofResult(JsonNode id, McpJsonCodec.ResultWriter resultWriter) {
+        return new McpJsonRpcResponse(id, HttpStatus.OK, null, resultWriter, 0, null, null);
+    }
+
+    /**
+     * 错误响应
+     */
+    public static McpJsonRpcResponse ofError(JsonNode id, int code, String message, HttpStatus status) {
+        return ofError(id, code, message, null, status);
+    }
+
+    /**
+     * 携带 error.data 的错误响应
+     */
+    public static McpJsonRpcResponse ofError(JsonNode id, int code, String message, JsonNode data, HttpStatus status) {
+        return new McpJsonRpcResponse(id, status, null, null, code, message, data);
+    }
+
+    public boolean isError() {
+        return resultWriter == null;
+    }
+
+    /**
+     * 使用生成器写出响应
+     *
+     * @param generator JSON生成器
+     * @param codec     编解码器
+     */
+    public void writeTo(JsonGenerator generator, McpJsonCodec codec) throws IOException {
+        if (isError()) {
+            codec.writeError(generator, id, errorCode, errorMessage, errorData);
+        } else {
+            codec.writeResult(generator, id, resultWriter);
+        }
+    }
+}
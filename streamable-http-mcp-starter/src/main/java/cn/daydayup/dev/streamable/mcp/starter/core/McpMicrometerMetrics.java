@@ -0,0 +1,178 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @ClassName McpMicrometerMetrics
+ * @Description 基于Micrometer的MCP服务指标, 所有指标均带有 endpoint 标签
+ * <ul>
+ *     <li>mcp.server.requests: JSON-RPC消息数, 按 method 区分</li>
+ *     <li>mcp.server.errors: JSON-RPC错误响应数, 按 code 区分</li>
+ *     <li>mcp.server.requests.active: 处理中的HTTP请求数</li>
+ *     <li>mcp.server.request.size / mcp.server.response.size: 请求体与响应体字节数</li>
+ *     <li>mcp.server.tool.calls: 工具调用耗时, 按 tool、outcome 区分, 发布百分位与直方图</li>
+ *     <li>mcp.server.tool.active: 执行中的工具调用数, 按 tool 区分</li>
+ * </ul>
+ * 计数型仪表的状态按指标ID缓存并强引用注册, 接口注销后以相同路径重新注册时沿用同一状态, 仪表不会失去跟踪
+ * @Author ZhaoYanNing
+ * @Date 2025/10/20 09:45
+ * @Version 1.0
+ */
+public class McpMicrometerMetrics implements McpServerMetrics {
+
+    /**
+     * 单独计数的JSON-RPC方法, 其余方法归入 other, 避免标签数量随客户端输入增长
+     */
+    private static final List<String> KNOWN_METHODS = Arrays.asList("initialize", "ping", "tools/list", "tools/call",
+            "notifications/initialized", "notifications/cancelled", "notifications/progress");
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 计数型仪表的状态, 以指标名与标签为键
+     */
+    private final ConcurrentMap<String, AtomicInteger> gaugeStates = new ConcurrentHashMap<>();
+
+    public McpMicrometerMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public McpEndpointMetrics forEndpoint(String path) {
+        return new EndpointMetrics(path);
+    }
+
+    /**
+     * 获取计数型仪表的状态, 首次获取时注册仪表
+     * MeterRegistry#gauge 在同ID仪表已存在时返回未注册的新状态对象, 因此由本类缓存并复用状态
+     */
+    private AtomicInteger activeGauge(String name, String description, Tags tags) {
+        return gaugeStates.computeIfAbsent(name + tags, key -> {
+            AtomicInteger state = new AtomicInteger();
+            Gauge.builder(name, state, AtomicInteger::get).description(description).tags(tags)
+                    .strongReference(true).register(meterRegistry);
+            return state;
+        });
+    }
+
+    private class EndpointMetrics implements McpEndpointMetrics {
+
+        private final Tags                 tags;
+        private final Map<String, Counter> methodCounters;
+        private final Counter              otherMethodCounter;
+        private final Counter              invalidCounter;
+        private final AtomicInteger        activeRequests;
+        private final DistributionSummary  requestSize;
+        private final DistributionSummary  responseSize;
+
+        private final ConcurrentMap<Integer, Counter>   errorCounters = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, ToolMeters> toolMeters    = new ConcurrentHashMap<>();
+
+        EndpointMetrics(String path) {
+            this.tags = Tags.of("endpoint", path);
+            Map<String, Counter> counters = new HashMap<>(KNOWN_METHODS.size() * 2);
+            for (String method : KNOWN_METHODS) {
+                counters.put(method, requestCounter(method));
+            }
+            this.methodCounters = Collections.unmodifiableMap(counters);
+            this.otherMethodCounter = requestCounter("other");
+            this.invalidCounter = requestCounter("invalid");
+            this.activeRequests = activeGauge("mcp.server.requests.active", "处理中的MCP请求数", tags);
+            this.requestSize = DistributionSummary.builder("mcp.server.request.size")
+                    .description("MCP请求体大小").baseUnit("bytes").tags(tags).register(meterRegistry);
+            this.responseSize = DistributionSummary.builder("mcp.server.response.size")
+                    .description("MCP响应体大小").baseUnit("bytes").tags(tags).register(meterRegistry);
+        }
+
+        private Counter requestCounter(String method) {
+            return Counter.builder("mcp.server.requests").description("MCP JSON-RPC消息数")
+                    .tags(tags).tag("method", method).register(meterRegistry);
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public void requestStarted() {
+            activeRequests.incrementAndGet();
+        }
+
+        @Override
+        public void requestCompleted(long requestBytes, long responseBytes) {
+            activeRequests.decrementAndGet();
+            requestSize.record(requestBytes);
+            responseSize.record(responseBytes);
+        }
+
+        @Override
+        public void messageReceived(String method) {
+            if (method == null) {
+                invalidCounter.increment();
+                return;
+            }
+            methodCounters.getOrDefault(method, otherMethodCounter).increment();
+        }
+
+        @Override
+        public void errorReturned(int code) {
+            errorCounters.computeIfAbsent(code, c -> Counter.builder("mcp.server.errors").description("MCP JSON-RPC错误响应数")
+                    .tags(tags).tag("code", String.valueOf(c)).register(meterRegistry)).increment();
+        }
+
+        @Override
+        public long toolCallStarted(String tool) {
+            toolMeters(tool).active.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        @Override
+        public void toolCallCompleted(String tool, long startNanos, boolean success) {
+            ToolMeters meters = toolMeters(tool);
+            meters.active.decrementAndGet();
+            (success ? meters.success : meters.error).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private ToolMeters toolMeters(String tool) {
+            ToolMeters meters = toolMeters.get(tool);
+            return meters != null ? meters : toolMeters.computeIfAbsent(tool, t -> new ToolMeters(tags.and("tool", t)));
+        }
+    }
+
+    private class ToolMeters {
+
+        private final Timer         success;
+        private final Timer         error;
+        private final AtomicInteger active;
+
+        ToolMeters(Tags tags) {
+            this.success = toolTimer(tags, "success");
+            this.error = toolTimer(tags, "error");
+            this.active = activeGauge("mcp.server.tool.active", "执行中的MCP工具调用数", tags);
+        }
+
+        private Timer toolTimer(Tags tags, String outcome) {
+            return Timer.builder("mcp.server.tool.calls").description("MCP工具调用耗时")
+                    .tags(tags).tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+    }
+}
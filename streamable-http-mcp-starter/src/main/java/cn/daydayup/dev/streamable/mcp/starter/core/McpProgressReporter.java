@@ -0,0 +1,101 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+
+/**
+ * @ClassName McpProgressReporter
+ * @Description 工具执行进度报告器, 声明为 @McpFunction 方法参数即可注入
+ * 客户端以 text/event-stream 接收响应时, 进度与部分结果会以通知形式实时推送; 否则或响应结束(完成、超时、取消)后调用为空操作
+ * @Author ZhaoYanNing
+ * @Date 2025/10/19 10:30
+ * @Version 1.0
+ */
+@Slf4j
+public class McpProgressReporter {
+
+    /**
+     * 不推送任何通知的报告器
+     */
+    public static final McpProgressReporter NOOP = new McpProgressReporter(null, null);
+
+    private final McpSseWriter sseWriter;
+    private final JsonNode     progressToken;
+
+    public McpProgressReporter(McpSseWriter sseWriter, JsonNode progressToken) {
+        this.sseWriter = sseWriter;
+        this.progressToken = progressToken;
+    }
+
+    /**
+     * 当前调用是否能推送通知
+     */
+    public boolean isStreaming() {
+        return sseWriter != null;
+    }
+
+    /**
+     * 推送 notifications/progress 通知, 仅当客户端在 _meta 中提供了 progressToken 时生效
+     *
+     * @param progress 当前进度
+     * @param total    总量, 未知时为 null
+     * @param message  进度描述, 可为 null
+     */
+    public void progress(double progress, Double total, String message) {
+        if (sseWriter == null || progressToken == null) {
+            return;
+        }
+        send(g -> {
+            g.writeStartObject();
+            g.writeStringField("jsonrpc", "2.0");
+            g.writeStringField("method", "notifications/progress");
+            g.writeObjectFieldStart("params");
+            g.writeFieldName("progressToken");
+            g.writeTree(progressToken);
+            g.writeNumberField("progress", progress);
+            if (total != null) {
+                g.writeNumberField("total", total);
+            }
+            if (message != null) {
+                g.writeStringField("message", message);
+            }
+            g.writeEndObject();
+            g.writeEndObject();
+        });
+    }
+
+    /**
+     * 以 notifications/message 通知推送部分结果文本
+     *
+     * @param text 部分结果
+     */
+    public void partial(String text) {
+        if (sseWriter == null) {
+            return;
+        }
+        send(g -> {
+            g.writeStartObject();
+            g.writeStringField("jsonrpc", "2.0");
+            g.writeStringField("method", "notifications/message");
+            g.writeObjectFieldStart("params");
+            g.writeStringField("level", "info");
+            g.writeObjectFieldStart("data");
+            g.writeStringField("type", "text");
+            g.writeStringField("text", text);
+            g.writeEndObject();
+            g.writeEndObject();
+            g.writeEndObject();
+        });
+    }
+
+    private void send(McpJsonCodec.ResultWriter messageWriter) {
+        try {
+            sseWriter.send(messageWriter);
+        } catch (IOException e) {
+            // 客户端断开时不中断工具执行, 最终响应写出时再处理
+            log.debug("MCP进度通知推送失败: {}", e.getMessage());
+        }
+    }
+}
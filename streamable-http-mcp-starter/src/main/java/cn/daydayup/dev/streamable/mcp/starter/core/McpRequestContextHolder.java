@@ -1,15 +1,73 @@
 package cn.daydayup.dev.streamable.mcp.starter.core;
 
 import javax.servlet.http.HttpServletRequest;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 
 /**
  * MCP请求上下文持有者
- * 用于在工具方法中获取当前的HttpServletRequest
+ * 用于在工具方法中获取当前的HttpServletRequest与调用上下文 McpCallContext
+ * JDK 25+ 时工具执行期间的调用上下文通过 ScopedValue 绑定, 不在执行线程上创建 ThreadLocalMap, 适合每次调用一个虚拟线程的执行方式
  */
 public class McpRequestContextHolder {
-    
+
     private static final ThreadLocal<HttpServletRequest> requestHolder = new ThreadLocal<>();
-    
+
+    private static final ThreadLocal<McpCallContext> contextHolder = new ThreadLocal<>();
+
+    /**
+     * ScopedValue<McpCallContext> 及其方法, 低于 JDK 25(ScopedValue 正式发布的版本)时为 null
+     */
+    private static final Object       scopedContext;
+    private static final MethodHandle scopedWhere;
+    private static final MethodHandle carrierRun;
+    private static final MethodHandle scopedIsBound;
+    private static final MethodHandle scopedGet;
+
+    static {
+        Object key = null;
+        MethodHandle where = null;
+        MethodHandle run = null;
+        MethodHandle isBound = null;
+        MethodHandle get = null;
+        if (javaFeatureVersion() >= 25) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                Class<?> scopedValueClass = Class.forName("java.lang.ScopedValue");
+                Class<?> carrierClass = Class.forName("java.lang.ScopedValue$Carrier");
+                key = scopedValueClass.getMethod("newInstance").invoke(null);
+                where = lookup.findStatic(scopedValueClass, "where",
+                                MethodType.methodType(carrierClass, scopedValueClass, Object.class))
+                        .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+                run = lookup.findVirtual(carrierClass, "run", MethodType.methodType(void.class, Runnable.class))
+                        .asType(MethodType.methodType(void.class, Object.class, Runnable.class));
+                isBound = lookup.findVirtual(scopedValueClass, "isBound", MethodType.methodType(boolean.class))
+                        .asType(MethodType.methodType(boolean.class, Object.class));
+                get = lookup.findVirtual(scopedValueClass, "get", MethodType.methodType(Object.class))
+                        .asType(MethodType.methodType(Object.class, Object.class));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                key = null;
+            }
+        }
+        scopedContext = key;
+        scopedWhere = where;
+        carrierRun = run;
+        scopedIsBound = isBound;
+        scopedGet = get;
+    }
+
+    private static int javaFeatureVersion() {
+        String version = System.getProperty("java.specification.version", "1.8");
+        try {
+            return version.startsWith("1.") ? Integer.parseInt(version.substring(2)) : Integer.parseInt(version);
+        } catch (NumberFormatException e) {
+            return 8;
+        }
+    }
+
     /**
      * 设置当前请求
      * @param request HttpServletRequest
@@ -17,19 +75,102 @@ public class McpRequestContextHolder {
     public static void setRequest(HttpServletRequest request) {
         requestHolder.set(request);
     }
-    
+
     /**
-     * 获取当前请求
+     * 获取当前请求, 工具调用结束后(如传递到其他线程的任务在调用结束后执行)返回 null
      * @return HttpServletRequest
      */
     public static HttpServletRequest getCurrentRequest() {
+        McpCallContext context = getCurrentContext();
+        if (context != null) {
+            return context.getRequest();
+        }
         return requestHolder.get();
     }
-    
+
+    /**
+     * 获取当前工具调用的上下文
+     * @return McpCallContext, 不在工具调用中时为 null
+     */
+    public static McpCallContext getCurrentContext() {
+        if (scopedContext != null) {
+            try {
+                return (boolean) scopedIsBound.invokeExact(scopedContext)
+                        ? (McpCallContext) (Object) scopedGet.invokeExact(scopedContext) : null;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return contextHolder.get();
+    }
+
     /**
      * 清除当前请求上下文
      */
     public static void clear() {
         requestHolder.remove();
     }
-}
\ No newline at end of file
+
+    /**
+     * 包装任务, 使其在执行线程中持有指定的调用上下文, 执行完毕后恢复原有上下文
+     * @param context 调用上下文
+     * @param task 任务
+     * @return 包装后的任务
+     */
+    public static <T> Supplier<T> withContext(McpCallContext context, Supplier<T> task) {
+        return () -> {
+            try {
+                return call(context, task::get);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    /**
+     * 持有指定的调用上下文执行任务, 执行完毕后恢复原有上下文
+     */
+    static <T> T call(McpCallContext context, Callable<T> task) throws Exception {
+        if (scopedContext != null) {
+            return callScoped(context, task);
+        }
+        McpCallContext previous = contextHolder.get();
+        contextHolder.set(context);
+        try {
+            return task.call();
+        } finally {
+            if (previous != null) {
+                contextHolder.set(previous);
+            } else {
+                contextHolder.remove();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T callScoped(McpCallContext context, Callable<T> task) throws Exception {
+        Object[] result = new Object[1];
+        Exception[] failure = new Exception[1];
+        Runnable runnable = () -> {
+            try {
+                result[0] = task.call();
+            } catch (Exception e) {
+                failure[0] = e;
+            }
+        };
+        try {
+            Object carrier = (Object) scopedWhere.invokeExact(scopedContext, (Object) context);
+            carrierRun.invokeExact(carrier, runnable);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        return (T) result[0];
+    }
+}
@@ -0,0 +1,92 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @ClassName McpResponseTemplate
+ * @Description 预序列化的JSON-RPC响应模板, 仅在输出时拼接请求ID
+ * @Author ZhaoYanNing
+ * @Date 2025/10/18 10:12
+ * @Version 1.0
+ */
+public class McpResponseTemplate {
+
+    private static final byte[] PREFIX = "{\"jsonrpc\":\"2.0\",\"id\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RESULT = ",\"result\":".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 序列化后的result部分, 以 "}" 结尾
+     */
+    private final byte[] suffix;
+
+    /**
+     * 序列化后的result内容, 用于写入批量响应等生成器场景
+     */
+    private final SerializedString rawResult;
+
+    /**
+     * result内容的摘要, 用作HTTP ETag
+     */
+    @Getter
+    private final String etag;
+
+    private McpResponseTemplate(byte[] result) {
+        this.suffix = new byte[RESULT.length + result.length + 1];
+        System.arraycopy(RESULT, 0, suffix, 0, RESULT.length);
+        System.arraycopy(result, 0, suffix, RESULT.length, result.length);
+        this.suffix[suffix.length - 1] = '}';
+        this.rawResult = new SerializedString(new String(result, StandardCharsets.UTF_8));
+        this.etag = "\"" + DigestUtils.md5DigestAsHex(result) + "\"";
+    }
+
+    /**
+     * 根据result节点构建模板
+     *
+     * @param objectMapper 序列化器
+     * @param result       result节点
+     * @return 响应模板
+     */
+    public static McpResponseTemplate ofResult(ObjectMapper objectMapper, JsonNode result) throws JsonProcessingException {
+        return new McpResponseTemplate(objectMapper.writeValueAsBytes(result));
+    }
+
+    /**
+     * 拼接请求ID后的完整响应长度
+     *
+     * @param id 已序列化的请求ID
+     */
+    public int length(byte[] id) {
+        return PREFIX.length + id.length + suffix.length;
+    }
+
+    /**
+     * 拼接请求ID并写出完整响应
+     *
+     * @param out 输出流
+     * @param id  已序列化的请求ID
+     */
+    public void writeTo(OutputStream out, byte[] id) throws IOException {
+        out.write(PREFIX);
+        out.write(id);
+        out.write(suffix);
+    }
+
+    /**
+     * 以原始JSON形式写出result内容
+     *
+     * @param generator JSON生成器
+     */
+    public void writeResult(JsonGenerator generator) throws IOException {
+        generator.writeRawValue(rawResult);
+    }
+}
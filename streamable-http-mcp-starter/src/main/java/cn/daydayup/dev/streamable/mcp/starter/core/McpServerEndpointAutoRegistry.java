@@ -3,6 +3,8 @@ package cn.daydayup.dev.streamable.mcp.starter.core;
 import cn.daydayup.dev.streamable.mcp.starter.annotation.McpFunction;
 import cn.daydayup.dev.streamable.mcp.starter.annotation.McpParam;
 import cn.daydayup.dev.streamable.mcp.starter.annotation.McpServerEndpoint;
+import cn.daydayup.dev.streamable.mcp.starter.autoconfigure.McpServerAutoConfiguration;
+import cn.daydayup.dev.streamable.mcp.starter.autoconfigure.McpServerProperties;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactory;
@@ -14,15 +16,20 @@ import org.springframework.boot.autoconfigure.web.servlet.WebMvcProperties;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.util.AntPathMatcher;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 
 /**
  * @ClassName McpServerEndpointAutoRegistry
@@ -38,6 +45,13 @@ public class McpServerEndpointAutoRegistry implements BeanPostProcessor, Applica
     private BeanFactory        beanFactory;
     private WebMvcProperties   webMvcProperties;
 
+    private static final RequestMethod[] ENDPOINT_METHODS = {RequestMethod.GET, RequestMethod.POST, RequestMethod.DELETE};
+
+    /**
+     * 已注册的接口处理器, 键为接口路径
+     */
+    private final ConcurrentMap<String, McpStreamableHttpHandler> handlers = new ConcurrentHashMap<>();
+
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         this.applicationContext = applicationContext;
@@ -59,49 +73,141 @@ public class McpServerEndpointAutoRegistry implements BeanPostProcessor, Applica
      */
     @Override
     public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
-        Class<?> beanClass = bean.getClass();
-
         // 检查类是否有 McpServerEndpoint 注解
-        McpServerEndpoint annotation = beanClass.getAnnotation(McpServerEndpoint.class);
-        if (annotation != null) {
-            String path = annotation.path();
+        if (bean.getClass().getAnnotation(McpServerEndpoint.class) != null) {
             try {
-                // 从beanClass中获取所有MCP方法
-                List<McpFunctionInfo> functionInfos = collectMcpFunctions(beanClass);
+                registerEndpoint(bean);
+            } catch (Exception e) {
+                log.error("Mcp服务接口创建失败: {}", e.getMessage(), e);
+            }
+        }
+        return bean;
+    }
 
-                // 手动创建Bean
-                BeanDefinitionRegistry beanRegistry = (BeanDefinitionRegistry) beanFactory;
-                String handlerBeanName = beanClass.getSimpleName() + "@McpServerEndpoint";
+    /**
+     * 注册MCP接口, 启动后也可调用以动态上线被 @McpServerEndpoint 注解标注的对象
+     *
+     * @param bean 被 @McpServerEndpoint 注解标注的对象
+     * @return 接口处理器, 可继续通过 registerTool/unregisterTool 增减工具
+     * @throws IllegalArgumentException 对象未标注 @McpServerEndpoint
+     * @throws IllegalStateException    路径已注册
+     */
+    public synchronized McpStreamableHttpHandler registerEndpoint(Object bean) throws NoSuchMethodException {
+        Class<?> beanClass = bean.getClass();
+        McpServerEndpoint annotation = beanClass.getAnnotation(McpServerEndpoint.class);
+        if (annotation == null) {
+            throw new IllegalArgumentException(beanClass.getName() + " 未标注 @McpServerEndpoint");
+        }
+        String path = annotation.path();
+        if (handlers.containsKey(path)) {
+            throw new IllegalStateException("Mcp服务接口已存在: " + path);
+        }
+        // 获取所有MCP方法, 优先使用编译期生成的描述符
+        List<McpFunctionInfo> functionInfos = loadMcpFunctions(beanClass);
 
-                // 注册McpStreamableHttpHandler
-                BeanDefinitionBuilder beanDefinitionBuilder = BeanDefinitionBuilder
-                        .genericBeanDefinition(McpStreamableHttpHandler.class);
-                beanRegistry.registerBeanDefinition(handlerBeanName, beanDefinitionBuilder.getBeanDefinition());
+        // 手动创建Bean
+        BeanDefinitionRegistry beanRegistry = (BeanDefinitionRegistry) beanFactory;
+        String handlerBeanName = handlerBeanName(beanClass);
 
-                // 获取创建的Bean并设置functionInfos
-                McpStreamableHttpHandler handler = (McpStreamableHttpHandler) applicationContext.getBean(handlerBeanName);
-                handler.setName(annotation.name());
-                handler.setVersion(annotation.version());
-                handler.setTargetBean(bean);
-                handler.setFunctionInfos(functionInfos);
+        // 注册McpStreamableHttpHandler
+        BeanDefinitionBuilder beanDefinitionBuilder = BeanDefinitionBuilder
+                .genericBeanDefinition(McpStreamableHttpHandler.class);
+        beanRegistry.registerBeanDefinition(handlerBeanName, beanDefinitionBuilder.getBeanDefinition());
 
-                // 注册MCP接口服务
-                registerMcpServerEndpoint(path, handler);
+        // 获取创建的Bean并设置functionInfos
+        McpStreamableHttpHandler handler = (McpStreamableHttpHandler) applicationContext.getBean(handlerBeanName);
+        handler.setName(annotation.name());
+        handler.setVersion(annotation.version());
+        handler.setPath(path);
+        handler.setTargetBean(bean);
+        handler.setFunctionInfos(functionInfos);
+        McpServerProperties properties = applicationContext.getBean(McpServerProperties.class);
+        String executorName = annotation.executor().isEmpty()
+                ? McpServerAutoConfiguration.TOOL_EXECUTOR_BEAN_NAME : annotation.executor();
+        handler.setToolExecutor(applicationContext.getBean(executorName, Executor.class));
+        handler.setAsyncTimeout(properties.getAsync().getTimeout().toMillis());
+        handler.setMaxBatchSize(properties.getBatch().getMaxSize());
+        handler.setSseTimeout(properties.getSse().getTimeout().toMillis());
+        handler.setCompressionEnabled(properties.getCompression().isEnabled());
+        handler.setCompressionMinSize((int) properties.getCompression().getMinResponseSize().toBytes());
+        handler.setMaxRequestSize(properties.getCompression().getMaxRequestSize().toBytes());
+        handler.setContextHeaders(properties.getContext().getHeaders());
+        handler.setSessionStore(applicationContext.getBeanProvider(McpSessionStore.class).getIfAvailable());
+        handler.setMetrics(applicationContext.getBeanProvider(McpServerMetrics.class)
+                .getIfAvailable(() -> McpServerMetrics.NOOP).forEndpoint(path));
 
-                log.info("StreamableHttp Mcp服务接口创建成功, mcpServerEndpoint:{}, functions:{}个", path, functionInfos.size());
-            } catch (Exception e) {
-                log.error("Mcp服务接口创建失败: {}", e.getMessage(), e);
-            }
+        // 注册MCP接口服务
+        registerMcpServerEndpoint(path, handler);
+        handlers.put(path, handler);
+
+        log.info("StreamableHttp Mcp服务接口创建成功, mcpServerEndpoint:{}, functions:{}个", path, functionInfos.size());
+        return handler;
+    }
+
+    /**
+     * 注销MCP接口: 移除路径映射与处理器Bean并关闭GET SSE流, 执行中的调用不受影响
+     *
+     * @param path 接口路径
+     * @return 接口存在并已注销时为 true
+     */
+    public synchronized boolean unregisterEndpoint(String path) {
+        McpStreamableHttpHandler handler = handlers.remove(path);
+        if (handler == null) {
+            return false;
         }
-        return bean;
+        RequestMappingHandlerMapping mapping = applicationContext.getBean(RequestMappingHandlerMapping.class);
+        for (RequestMethod method : ENDPOINT_METHODS) {
+            mapping.unregisterMapping(mappingInfo(path, method));
+        }
+        handler.closeStreams();
+        ((BeanDefinitionRegistry) beanFactory).removeBeanDefinition(handlerBeanName(handler.getTargetBean().getClass()));
+        log.info("StreamableHttp Mcp服务接口已注销, mcpServerEndpoint:{}", path);
+        return true;
+    }
+
+    /**
+     * 已注册的MCP接口处理器
+     *
+     * @param path 接口路径
+     * @return 接口处理器, 不存在时为 null
+     */
+    public McpStreamableHttpHandler getEndpoint(String path) {
+        return handlers.get(path);
+    }
+
+    private static String handlerBeanName(Class<?> beanClass) {
+        return beanClass.getSimpleName() + "@McpServerEndpoint";
     }
 
     /**
      * 获取所有MCP方法
+     * 存在编译期生成的 McpEndpointDescriptor 时直接使用, 否则通过反射扫描
      *
      * @param beanClass 类
      */
-    private List<McpFunctionInfo> collectMcpFunctions(Class<?> beanClass) {
+    public static List<McpFunctionInfo> loadMcpFunctions(Class<?> beanClass) {
+        Class<?> userClass = ClassUtils.getUserClass(beanClass);
+        String descriptorName = userClass.getName() + McpEndpointDescriptor.CLASS_NAME_SUFFIX;
+        ClassLoader classLoader = userClass.getClassLoader();
+        if (ClassUtils.isPresent(descriptorName, classLoader)) {
+            try {
+                McpEndpointDescriptor descriptor = (McpEndpointDescriptor) ClassUtils.forName(descriptorName, classLoader)
+                        .getDeclaredConstructor().newInstance();
+                log.debug("使用编译期生成的MCP描述符: {}", descriptorName);
+                return descriptor.getFunctionInfos();
+            } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+                log.warn("MCP描述符 {} 加载失败, 回退到反射扫描: {}", descriptorName, e.getMessage());
+            }
+        }
+        return collectMcpFunctions(beanClass);
+    }
+
+    /**
+     * 通过反射获取所有MCP方法
+     *
+     * @param beanClass 类
+     */
+    public static List<McpFunctionInfo> collectMcpFunctions(Class<?> beanClass) {
         // 获取类中所有被@McpFunction注解标注的方法
         Method[] methods = beanClass.getDeclaredMethods();
         List<McpFunctionInfo> functionInfos = new ArrayList<>();
@@ -129,12 +235,15 @@ public class McpServerEndpointAutoRegistry implements BeanPostProcessor, Applica
         List<McpFunctionInfo.ParamInfo> paramInfos = new ArrayList<>();
 
         // 遍历所有参数,查找带有McpParam注解的参数
-        for (Parameter parameter : parameters) {
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter parameter = parameters[i];
             McpParam mcpParam = parameter.getAnnotation(McpParam.class);
             if (mcpParam != null) {
                 // 构建参数信息对象
                 McpFunctionInfo.ParamInfo paramInfo = new McpFunctionInfo.ParamInfo(
-                        mcpParam.name(), mcpParam.description(), mcpParam.enums(), mcpParam.required(), parameter.getType());
+                        i, mcpParam.name(), mcpParam.description(), mcpParam.enums(), mcpParam.required(), parameter.getType(),
+                        parameter.getParameterizedType(), mcpParam.minimum(), mcpParam.maximum(), mcpParam.minLength(),
+                        mcpParam.maxLength());
                 paramInfos.add(paramInfo);
             }
         }
@@ -150,14 +259,19 @@ public class McpServerEndpointAutoRegistry implements BeanPostProcessor, Applica
      */
     private void registerMcpServerEndpoint(String path, Object bean) throws NoSuchMethodException {
         RequestMappingHandlerMapping mapping = applicationContext.getBean(RequestMappingHandlerMapping.class);
+        mapping.registerMapping(mappingInfo(path, RequestMethod.GET), bean,
+                McpStreamableHttpHandler.class.getMethod("handleGet", HttpServletRequest.class, HttpServletResponse.class));
+        mapping.registerMapping(mappingInfo(path, RequestMethod.POST), bean,
+                McpStreamableHttpHandler.class.getMethod("handlePost", HttpServletRequest.class, HttpServletResponse.class));
+        mapping.registerMapping(mappingInfo(path, RequestMethod.DELETE), bean,
+                McpStreamableHttpHandler.class.getMethod("handleDelete", HttpServletRequest.class, HttpServletResponse.class));
+    }
+
+    private static RequestMappingInfo mappingInfo(String path, RequestMethod method) {
         RequestMappingInfo.BuilderConfiguration config = new RequestMappingInfo.BuilderConfiguration();
 
         // 根据 WebMvcProperties 选择路径匹配器
         config.setPathMatcher(new AntPathMatcher());
-        RequestMappingInfo handleGet = RequestMappingInfo.paths(path).methods(RequestMethod.GET).options(config).build();
-        mapping.registerMapping(handleGet, bean, McpStreamableHttpHandler.class.getMethod("handleGet"));
-
-        RequestMappingInfo handlePost = RequestMappingInfo.paths(path).methods(RequestMethod.POST).options(config).build();
-        mapping.registerMapping(handlePost, bean, McpStreamableHttpHandler.class.getMethod("handlePost", String.class, HttpServletRequest.class));
+        return RequestMappingInfo.paths(path).methods(method).options(config).build();
     }
 }
\ No newline at end of file
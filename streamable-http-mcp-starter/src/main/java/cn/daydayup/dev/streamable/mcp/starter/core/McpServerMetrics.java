@@ -0,0 +1,25 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+/**
+ * @ClassName McpServerMetrics
+ * @Description MCP服务指标采集器, 为每个 @McpServerEndpoint 提供按接口路径区分的指标
+ * @Author ZhaoYanNing
+ * @Date 2025/10/20 09:30
+ * @Version 1.0
+ */
+@FunctionalInterface
+public interface McpServerMetrics {
+
+    /**
+     * 不采集任何指标
+     */
+    McpServerMetrics NOOP = path -> McpEndpointMetrics.NOOP;
+
+    /**
+     * 获取指定接口的指标采集器
+     *
+     * @param path @McpServerEndpoint 的接口路径
+     * @return 接口指标采集器
+     */
+    McpEndpointMetrics forEndpoint(String path);
+}
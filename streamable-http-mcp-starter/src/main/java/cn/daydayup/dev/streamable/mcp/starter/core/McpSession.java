@@ -0,0 +1,187 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @ClassName McpSession
+ * @Description MCP会话, 由 initialize 创建并通过 Mcp-Session-Id 请求头关联后续请求
+ * 仅保存协商结果与访问时间, 自定义属性在首次写入时才分配, 使大量空闲会话的内存占用保持在百字节级别
+ * @Author ZhaoYanNing
+ * @Date 2025/10/21 09:20
+ * @Version 1.0
+ */
+@Getter
+@Slf4j
+public class McpSession {
+
+    /**
+     * 当前会话在HTTP请求属性中的名称
+     */
+    public static final String REQUEST_ATTRIBUTE = McpSession.class.getName();
+
+    /**
+     * 访问时间的更新粒度(毫秒), 同一粒度内的请求不重复写入, 减少高并发下的缓存行争用
+     */
+    private static final long TOUCH_GRANULARITY_MILLIS = 1000L;
+
+    private final String id;
+
+    /**
+     * 创建会话的 @McpServerEndpoint 路径, 会话只在该接口内有效
+     */
+    private final String endpoint;
+
+    /**
+     * 客户端在 initialize 中声明的协议版本
+     */
+    private final String protocolVersion;
+
+    /**
+     * 客户端在 initialize 中声明的名称
+     */
+    private final String clientName;
+
+    private final long createdAt;
+
+    private volatile long lastAccessedAt;
+
+    @Getter(AccessLevel.NONE)
+    private volatile ConcurrentMap<String, Object> attributes;
+
+    /**
+     * 会话结束时的回调(如关闭该会话的GET SSE流), 首次注册时才分配, 由 this 保护
+     */
+    @Getter(AccessLevel.NONE)
+    private List<Runnable> closeCallbacks;
+
+    @Getter(AccessLevel.NONE)
+    private boolean closed;
+
+    public McpSession(String id, String endpoint, String protocolVersion, String clientName, long now) {
+        this.id = id;
+        this.endpoint = endpoint;
+        this.protocolVersion = protocolVersion;
+        this.clientName = clientName;
+        this.createdAt = now;
+        this.lastAccessedAt = now;
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param now 当前时间(毫秒)
+     */
+    void touch(long now) {
+        if (now - lastAccessedAt >= TOUCH_GRANULARITY_MILLIS) {
+            lastAccessedAt = now;
+        }
+    }
+
+    /**
+     * 注册会话结束(终止或过期)时的回调, 会话已结束时立即执行
+     *
+     * @param callback 回调, 不应阻塞
+     */
+    public void onClose(Runnable callback) {
+        synchronized (this) {
+            if (!closed) {
+                if (closeCallbacks == null) {
+                    closeCallbacks = new ArrayList<>(2);
+                }
+                closeCallbacks.add(callback);
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    /**
+     * 移除会话结束时的回调, 如GET SSE流已自行结束
+     *
+     * @param callback 注册时的回调
+     */
+    public synchronized void removeOnClose(Runnable callback) {
+        if (closeCallbacks != null) {
+            closeCallbacks.remove(callback);
+        }
+    }
+
+    /**
+     * 结束会话并执行已注册的回调, 由会话存储在移除会话时调用
+     */
+    void close() {
+        List<Runnable> callbacks;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            callbacks = closeCallbacks;
+            closeCallbacks = null;
+        }
+        if (callbacks == null) {
+            return;
+        }
+        for (Runnable callback : callbacks) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                log.debug("MCP会话结束回调执行失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 获取会话属性
+     *
+     * @param name 属性名称
+     * @return 属性值, 不存在时为 null
+     */
+    public Object getAttribute(String name) {
+        ConcurrentMap<String, Object> map = attributes;
+        return map != null ? map.get(name) : null;
+    }
+
+    /**
+     * 设置会话属性, 可用于保存会话级缓存、订阅等状态
+     *
+     * @param name  属性名称
+     * @param value 属性值, 为 null 时移除该属性
+     */
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            removeAttribute(name);
+            return;
+        }
+        ConcurrentMap<String, Object> map = attributes;
+        if (map == null) {
+            synchronized (this) {
+                map = attributes;
+                if (map == null) {
+                    map = new ConcurrentHashMap<>(4);
+                    attributes = map;
+                }
+            }
+        }
+        map.put(name, value);
+    }
+
+    /**
+     * 移除会话属性
+     *
+     * @param name 属性名称
+     */
+    public void removeAttribute(String name) {
+        ConcurrentMap<String, Object> map = attributes;
+        if (map != null) {
+            map.remove(name);
+        }
+    }
+}
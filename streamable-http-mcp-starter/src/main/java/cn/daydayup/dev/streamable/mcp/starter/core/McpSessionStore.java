@@ -0,0 +1,187 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @ClassName McpSessionStore
+ * @Description 内存会话存储, 所有 @McpServerEndpoint 共享
+ * 会话空闲超过指定时间后失效, 由后台线程定期清理, 读取时也会校验; 会话数达到上限时拒绝创建新会话并提前触发一次后台清理
+ * 会话被终止或清理时执行其结束回调, 关闭该会话的GET SSE流
+ * @Author ZhaoYanNing
+ * @Date 2025/10/21 09:40
+ * @Version 1.0
+ */
+@Slf4j
+public class McpSessionStore {
+
+    private final ConcurrentMap<String, McpSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * 当前会话数, 创建前先占位以保证并发创建时不超过上限
+     */
+    private final AtomicInteger count = new AtomicInteger();
+
+    private final long idleTimeoutMillis;
+    private final int  maxSessions;
+
+    private final ScheduledExecutorService evictor;
+
+    /**
+     * 是否已因会话数达到上限提交了一次后台清理, 避免高并发下重复提交
+     */
+    private final AtomicBoolean evictionScheduled = new AtomicBoolean();
+
+    /**
+     * @param idleTimeoutMillis 会话空闲超时时间(毫秒)
+     * @param maxSessions       最大会话数
+     */
+    public McpSessionStore(long idleTimeoutMillis, int maxSessions) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxSessions = maxSessions;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("mcp-session-evictor-");
+        threadFactory.setDaemon(true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        long period = Math.max(1000L, Math.min(idleTimeoutMillis / 2, 60000L));
+        this.evictor.scheduleWithFixedDelay(this::evictExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 为 initialize 请求创建会话
+     *
+     * @param endpoint         接口路径
+     * @param initializeParams initialize 请求的 params, 可为 null
+     * @return 新会话, 会话数已达上限时为 null
+     */
+    public McpSession create(String endpoint, JsonNode initializeParams) {
+        if (!reserve()) {
+            // 不在请求线程中遍历全部会话, 由后台线程清理过期会话后再接受新会话
+            scheduleEviction();
+            log.warn("MCP会话数已达上限: {}", maxSessions);
+            return null;
+        }
+        String protocolVersion = null;
+        String clientName = null;
+        if (initializeParams != null) {
+            protocolVersion = initializeParams.path("protocolVersion").asText(null);
+            clientName = initializeParams.path("clientInfo").path("name").asText(null);
+        }
+        McpSession session = new McpSession(UUID.randomUUID().toString(), endpoint, protocolVersion, clientName,
+                System.currentTimeMillis());
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    /**
+     * 获取有效会话并记录访问
+     *
+     * @param endpoint  接口路径
+     * @param sessionId 会话ID
+     * @return 会话, 不存在、已过期或不属于该接口时为 null
+     */
+    public McpSession get(String endpoint, String sessionId) {
+        McpSession session = sessions.get(sessionId);
+        if (session == null || !session.getEndpoint().equals(endpoint)) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (isExpired(session, now)) {
+            remove(session);
+            return null;
+        }
+        session.touch(now);
+        return session;
+    }
+
+    /**
+     * 终止会话
+     *
+     * @param endpoint  接口路径
+     * @param sessionId 会话ID
+     * @return 会话是否存在
+     */
+    public boolean remove(String endpoint, String sessionId) {
+        McpSession session = sessions.get(sessionId);
+        return session != null && session.getEndpoint().equals(endpoint) && remove(session);
+    }
+
+    /**
+     * 清理已过期的会话
+     *
+     * @return 清理的会话数
+     */
+    public int evictExpired() {
+        long now = System.currentTimeMillis();
+        int evicted = 0;
+        for (Iterator<McpSession> iterator = sessions.values().iterator(); iterator.hasNext(); ) {
+            McpSession session = iterator.next();
+            if (isExpired(session, now) && remove(session)) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("清理过期MCP会话{}个, 剩余{}个", evicted, count.get());
+        }
+        return evicted;
+    }
+
+    /**
+     * 当前会话数
+     */
+    public int size() {
+        return count.get();
+    }
+
+    /**
+     * 停止后台清理线程
+     */
+    public void close() {
+        evictor.shutdownNow();
+    }
+
+    private void scheduleEviction() {
+        if (evictionScheduled.compareAndSet(false, true)) {
+            try {
+                evictor.execute(() -> {
+                    evictionScheduled.set(false);
+                    evictExpired();
+                });
+            } catch (RejectedExecutionException e) {
+                evictionScheduled.set(false);
+            }
+        }
+    }
+
+    private boolean reserve() {
+        if (count.incrementAndGet() > maxSessions) {
+            count.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private boolean remove(McpSession session) {
+        if (sessions.remove(session.getId(), session)) {
+            count.decrementAndGet();
+            session.close();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isExpired(McpSession session, long now) {
+        return now - session.getLastAccessedAt() > idleTimeoutMillis;
+    }
+}
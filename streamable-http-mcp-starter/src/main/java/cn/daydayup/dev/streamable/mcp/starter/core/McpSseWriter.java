@@ -0,0 +1,76 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @ClassName McpSseWriter
+ * @Description 在响应输出流上写出 text/event-stream 事件, 每条JSON-RPC消息为一个 message 事件
+ * @Author ZhaoYanNing
+ * @Date 2025/10/19 10:20
+ * @Version 1.0
+ */
+public class McpSseWriter {
+
+    private static final byte[] EVENT_PREFIX = "event: message\ndata: ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EVENT_SUFFIX = "\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final OutputStream out;
+    private final McpJsonCodec jsonCodec;
+
+    /**
+     * 响应已结束, 由 this 保护; 此后的写出为空操作, 避免工具线程写入已完成或已被容器回收复用的响应
+     */
+    private boolean closed;
+
+    public McpSseWriter(OutputStream out, McpJsonCodec jsonCodec) {
+        this.out = out;
+        this.jsonCodec = jsonCodec;
+    }
+
+    /**
+     * 写出一条事件并立即刷新, 可被工具线程与请求线程并发调用; 写出器关闭后为空操作
+     *
+     * @param messageWriter JSON-RPC消息写出器
+     * @return 是否已写出
+     */
+    public synchronized boolean send(McpJsonCodec.ResultWriter messageWriter) throws IOException {
+        if (closed) {
+            return false;
+        }
+        write(messageWriter);
+        return true;
+    }
+
+    /**
+     * 写出最后一条事件(调用结果)并关闭写出器, 此后工具线程的进度通知不再写出
+     *
+     * @param messageWriter JSON-RPC消息写出器
+     */
+    public synchronized void sendLast(McpJsonCodec.ResultWriter messageWriter) throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        write(messageWriter);
+    }
+
+    /**
+     * 关闭写出器, 须在响应完成之前调用
+     */
+    public synchronized void close() {
+        closed = true;
+    }
+
+    private void write(McpJsonCodec.ResultWriter messageWriter) throws IOException {
+        out.write(EVENT_PREFIX);
+        try (JsonGenerator generator = jsonCodec.createGenerator(out)) {
+            messageWriter.write(generator);
+        }
+        out.write(EVENT_SUFFIX);
+        out.flush();
+    }
+}
@@ -1,336 +1,527 @@
 package cn.daydayup.dev.streamable.mcp.starter.core;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import lombok.Data;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.server.MethodNotAllowedException;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.http.HttpServletRequest;
-import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
-import java.util.ArrayList;
-import java.util.HashMap;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipException;
 
 /**
  * @ClassName McpStreamableHttpHandler
- * @Description MCP HTTP接口处理器
+ * @Description MCP HTTP接口处理器(Servlet 传输), JSON-RPC分发与工具调用见 McpEndpointSupport
  * @Author ZhaoYanNing
  * @Date 2025/9/30 16:22
  * @Version 1.0
  */
-@Data
+@Getter
+@Setter
 @Slf4j
-public class McpStreamableHttpHandler {
+public class McpStreamableHttpHandler extends McpEndpointSupport {
 
-    private String name;
-    private String version;
-    private List<McpFunctionInfo> functionInfos = new ArrayList<>();
-    private Object targetBean;
+    /**
+     * 异步请求的超时时间(毫秒)
+     */
+    private long asyncTimeout = 60000L;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * GET SSE流的超时时间(毫秒), 为 null 时使用容器默认的异步超时
+     */
+    private Long sseTimeout;
 
-    public ResponseEntity<ObjectNode> handleGet() {
-        throw new MethodNotAllowedException(HttpMethod.GET, null);
-    }
+    /**
+     * 是否按 Accept-Encoding 压缩POST响应
+     */
+    private boolean compressionEnabled = true;
 
-    public ResponseEntity<ObjectNode> handlePost(@RequestBody String body, HttpServletRequest request) throws Exception {
-        try {
-            // 设置当前请求上下文
-            McpRequestContextHolder.setRequest(request);
-            
-            ObjectNode requestNode = objectMapper.readValue(body, ObjectNode.class);
-            if (requestNode == null || !requestNode.has("id")) {
-                return ResponseEntity.status(HttpStatus.ACCEPTED).body(null);
+    /**
+     * 响应压缩阈值(字节), text/event-stream 响应不受此限制
+     */
+    private int compressionMinSize = 2048;
+
+    /**
+     * 已建立的GET SSE流
+     */
+    @Setter(AccessLevel.NONE)
+    private final Set<SseEmitter> sseEmitters = new CopyOnWriteArraySet<>();
+
+    /**
+     * 建立服务端推送的SSE流, 客户端不接受 text/event-stream 时返回 405; 启用会话时需携带有效的 Mcp-Session-Id, 会话终止或过期时流随之结束
+     *
+     * @param request  HTTP请求
+     * @param response HTTP响应
+     * @return SSE发送器
+     */
+    public SseEmitter handleGet(HttpServletRequest request, HttpServletResponse response) {
+        if (!acceptsEventStream(request)) {
+            response.setStatus(HttpStatus.METHOD_NOT_ALLOWED.value());
+            return null;
+        }
+        McpSessionStore sessionStore = getSessionStore();
+        McpSession session = null;
+        if (sessionStore != null) {
+            String sessionId = request.getHeader(SESSION_ID_HEADER);
+            if (sessionId == null) {
+                response.setStatus(HttpStatus.BAD_REQUEST.value());
+                return null;
             }
-            String id = requestNode.get("id").asText();
-            String method = requestNode.get("method").asText();
-
-            switch (method) {
-                case "initialize":
-                    return handleInitialize(id);
-                case "tools/list":
-                    return handleListTools(id);
-                case "tools/call":
-                    return handleCallTool(requestNode);
-                case "ping":
-                    return handlePing(id);
-                default:
-                    return handleUnsupportedMethod(id, method);
+            session = sessionStore.get(getPath(), sessionId);
+            if (session == null) {
+                response.setStatus(HttpStatus.NOT_FOUND.value());
+                return null;
             }
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
-        } finally {
-            // 清除请求上下文
-            McpRequestContextHolder.clear();
         }
+        SseEmitter emitter = new SseEmitter(sseTimeout);
+        sseEmitters.add(emitter);
+        // 会话终止或过期时结束该会话的SSE流
+        Runnable closer = emitter::complete;
+        McpSession owner = session;
+        Runnable cleanup = () -> {
+            sseEmitters.remove(emitter);
+            if (owner != null) {
+                owner.removeOnClose(closer);
+            }
+        };
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(e -> cleanup.run());
+        if (session != null) {
+            session.onClose(closer);
+        }
+        return emitter;
     }
 
     /**
-     * 处理初始化请求
+     * 终止会话, 未启用会话时返回 405, 会话不存在时返回 404
      *
-     * @param id 请求ID
-     * @return 响应实体
+     * @param request  HTTP请求
+     * @param response HTTP响应
      */
-    private ResponseEntity<ObjectNode> handleInitialize(String id) {
-        ObjectNode response = objectMapper.createObjectNode();
-        response.put("jsonrpc", "2.0");
-        response.put("id", id);
-
-        ObjectNode result = response.putObject("result");
-        result.put("protocolVersion", "2024-11-05");
-        ObjectNode capabilities = result.putObject("capabilities");
-
-        ObjectNode serverInfo = result.putObject("serverInfo");
-        serverInfo.put("name", name);
-        serverInfo.put("version", version);
-        return ResponseEntity.ok(response);
+    public void handleDelete(HttpServletRequest request, HttpServletResponse response) {
+        McpSessionStore sessionStore = getSessionStore();
+        if (sessionStore == null) {
+            response.setStatus(HttpStatus.METHOD_NOT_ALLOWED.value());
+            return;
+        }
+        String sessionId = request.getHeader(SESSION_ID_HEADER);
+        if (sessionId == null) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+        response.setStatus(sessionStore.remove(getPath(), sessionId) ? HttpStatus.OK.value() : HttpStatus.NOT_FOUND.value());
     }
 
     /**
-     * 处理未知方法请求
+     * 向所有已建立的GET SSE流推送服务端通知
      *
-     * @param id     请求ID
-     * @param method 请求方法
-     * @return 响应实体
+     * @param method       通知方法
+     * @param paramsWriter params内容写出器, 为 null 时不输出 params
      */
-    private ResponseEntity<ObjectNode> handleUnsupportedMethod(String id, String method) {
-        ObjectNode response = objectMapper.createObjectNode();
-        response.put("jsonrpc", "2.0");
-        response.put("id", id);
+    @Override
+    public void sendNotification(String method, McpJsonCodec.ResultWriter paramsWriter) throws IOException {
+        if (sseEmitters.isEmpty()) {
+            return;
+        }
+        String message = getJsonCodec().writeNotificationAsString(method, paramsWriter);
+        for (SseEmitter emitter : sseEmitters) {
+            try {
+                emitter.send(SseEmitter.event().name("message").data(message, MediaType.APPLICATION_JSON_UTF8));
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开
+                sseEmitters.remove(emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    /**
+     * 关闭全部GET SSE流, 接口注销时调用
+     */
+    public void closeStreams() {
+        for (SseEmitter emitter : sseEmitters) {
+            sseEmitters.remove(emitter);
+            emitter.complete();
+        }
+    }
 
-        ObjectNode error = response.putObject("error");
-        error.put("code", -32601);
-        error.put("message", "本服务器不支持 " + method + " 方法");
+    public void handlePost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (compressionEnabled) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        McpEndpointMetrics endpointMetrics = getMetrics();
+        if (!endpointMetrics.isEnabled()) {
+            handlePost(request, compress(request, response), request.getInputStream(), () -> {
+            });
+            return;
+        }
+        // 计数包装位于压缩包装之内, 统计的是实际传输的字节数
+        McpCountingInputStream body = new McpCountingInputStream(request.getInputStream());
+        McpCountingResponse countingResponse = new McpCountingResponse(response);
+        endpointMetrics.requestStarted();
+        handlePost(request, compress(request, countingResponse), body,
+                () -> endpointMetrics.requestCompleted(body.getCount(), countingResponse.getCount()));
+    }
 
-        return ResponseEntity.badRequest().body(response);
+    /**
+     * 按 Accept-Encoding 包装响应, 未开启压缩或客户端不支持时原样返回
+     */
+    private HttpServletResponse compress(HttpServletRequest request, HttpServletResponse response) {
+        String encoding = compressionEnabled ? McpContentEncoding.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING)) : null;
+        return encoding != null ? new McpCompressingResponse(response, encoding, compressionMinSize) : response;
     }
 
     /**
-     * 处理工具列表请求
+     * 结束压缩响应体, 须在请求完成(含异步完成)之前调用
+     */
+    private void finishResponse(HttpServletResponse response) {
+        try {
+            McpCompressingResponse.finish(response);
+        } catch (IOException e) {
+            log.debug("MCP响应写出失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 处理POST请求
      *
-     * @param id 请求ID
-     * @return 响应实体
+     * @param request     HTTP请求
+     * @param response    HTTP响应
+     * @param body        请求体
+     * @param onCompleted 请求处理完成(含异步完成)后的回调
      */
-    private ResponseEntity<ObjectNode> handleListTools(String id) {
-        log.info("获取工具列表, 请求ID: {}", id);
-        ObjectNode response = objectMapper.createObjectNode();
-        response.put("jsonrpc", "2.0");
-        response.put("id", id);
-
-        ObjectNode result = response.putObject("result");
-        result.putArray("tools");
-
-        // 将functionInfos转换为工具列表
-        if (functionInfos != null && !functionInfos.isEmpty()) {
-            for (McpFunctionInfo functionInfo : functionInfos) {
-                ObjectNode tool = result.withArray("tools").addObject();
-                tool.put("name", functionInfo.getName());
-                tool.put("description", functionInfo.getDescription());
-
-                // 添加 inputSchema（MCP 规范要求即使无参数也必须存在）
-                ObjectNode paramsNode = tool.putObject("inputSchema");
-                paramsNode.put("type", "object");
-                ObjectNode properties = paramsNode.putObject("properties");
-
-                // 添加参数信息
-                if (functionInfo.getParams() != null && !functionInfo.getParams().isEmpty()) {
-                    List<String> required = new ArrayList<>();
-
-                    for (McpFunctionInfo.ParamInfo paramInfo : functionInfo.getParams()) {
-                        if (paramInfo == null) {
-                            continue;
-                        }
-                        ObjectNode paramNode = properties.putObject(paramInfo.getName());
-                        paramNode.put("type", getJsonSchemaType(paramInfo.getType()));
-                        paramNode.put("description", paramInfo.getDescription());
-
-                        // 如果有枚举值，添加枚举值
-                        if (paramInfo.getEnums() != null) {
-                            for (String enumValue : paramInfo.getEnums()) {
-                                paramNode.withArray("enum").add(enumValue);
-                            }
-                        }
-                        // 如果是必需参数，添加到必需参数列表
-                        if (paramInfo.isRequired()) {
-                            required.add(paramInfo.getName());
-                        }
-                    }
-                    // 添加必需参数列表
-                    if (!required.isEmpty()) {
-                        for (String req : required) {
-                            paramsNode.withArray("required").add(req);
-                        }
-                    }
+    private void handlePost(HttpServletRequest request, HttpServletResponse response, InputStream body,
+                            Runnable onCompleted) {
+        boolean async = false;
+        McpExchange exchange = McpExchange.of(request);
+        try {
+            // 设置当前请求上下文
+            McpRequestContextHolder.setRequest(request);
+
+            InputStream decoded = McpContentEncoding.decode(body, request.getHeader(HttpHeaders.CONTENT_ENCODING), getMaxRequestSize());
+            if (decoded == null) {
+                log.warn("不支持的请求体编码: {}", request.getHeader(HttpHeaders.CONTENT_ENCODING));
+                response.setStatus(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value());
+                return;
+            }
+            McpJsonRpcMessage message = getJsonCodec().readMessage(decoded);
+            McpJsonRpcResponse sessionError = bindSession(message, exchange);
+            if (sessionError != null) {
+                writeResponse(sessionError, response);
+                return;
+            }
+            if (exchange.isNewSession()) {
+                response.setHeader(SESSION_ID_HEADER, exchange.getSession().getId());
+            }
+            if (message.isBatch()) {
+                async = handleBatch(message.getRequests(), exchange, request, response, onCompleted);
+                return;
+            }
+            McpJsonRpcRequest rpcRequest = message.getRequests().get(0);
+            getMetrics().messageReceived(rpcRequest.getMethod());
+            if (rpcRequest.isNotification()) {
+                handleNotification(rpcRequest, exchange);
+                response.setStatus(HttpStatus.ACCEPTED.value());
+                return;
+            }
+            if ("tools/call".equals(rpcRequest.getMethod()) && acceptsEventStream(request)) {
+                McpToolInvoker invoker = getToolInvokers().get(getToolName(rpcRequest));
+                if (invoker != null && invoker.isProgressReporting()) {
+                    async = handleCallToolStream(rpcRequest, exchange, request, response, onCompleted);
+                    return;
                 }
             }
+            CompletableFuture<McpJsonRpcResponse> future = dispatch(rpcRequest, exchange, McpProgressReporter.NOOP);
+            async = completeResponse(future, rpcRequest.getId(), exchange, request, response, null,
+                    rpcResponse -> writeResponse(rpcResponse, response), onCompleted);
+        } catch (McpContentEncoding.PayloadTooLargeException e) {
+            log.warn("MCP请求处理失败: {}", e.getMessage());
+            resetResponse(response, HttpStatus.PAYLOAD_TOO_LARGE);
+        } catch (ZipException e) {
+            log.warn("MCP请求体解压失败: {}", e.getMessage());
+            resetResponse(response, HttpStatus.BAD_REQUEST);
+        } catch (McpJsonRpcException e) {
+            log.warn("MCP请求解析失败: {}", e.getMessage());
+            writeRequestError(e, response);
+        } catch (Exception e) {
+            log.warn("MCP请求处理失败: {}", e.getMessage());
+            resetResponse(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        } finally {
+            // 清除请求上下文
+            McpRequestContextHolder.clear();
+            if (!async) {
+                finishResponse(response);
+                onCompleted.run();
+            }
         }
-
-        return ResponseEntity.ok(response);
     }
 
     /**
-     * 处理工具调用请求
-     *
-     * @param request 请求实体
-     * @return 响应实体
+     * 写出请求解析失败的错误响应
      */
-    private ResponseEntity<ObjectNode> handleCallTool(ObjectNode request) {
-        ObjectNode response = objectMapper.createObjectNode();
-        response.put("jsonrpc", "2.0");
-        response.put("id", request.get("id").asText());
+    private void writeRequestError(McpJsonRpcException e, HttpServletResponse response) {
+        if (response.isCommitted()) {
+            return;
+        }
+        try {
+            writeResponse(requestErrorResponse(e), response);
+        } catch (IOException ex) {
+            log.debug("MCP响应写出失败: {}", ex.getMessage());
+        }
+    }
 
-        // 获取工具名称和参数
-        String toolName = null;
-        ObjectNode params = null;
+    /**
+     * 响应尚未提交时清空响应并设置错误状态码
+     */
+    private static void resetResponse(HttpServletResponse response, HttpStatus status) {
+        if (!response.isCommitted()) {
+            response.reset();
+            response.setStatus(status.value());
+        }
+    }
 
-        if (request.has("params") && request.get("params").has("name")) {
-            toolName = request.get("params").get("name").asText();
+    /**
+     * 处理批量请求
+     * 各条目并发分发, 其中 tools/call 在工具线程池中执行; 响应按请求顺序组装并忽略通知消息
+     *
+     * @param requests    批量请求
+     * @param exchange    当前请求
+     * @param request     HTTP请求
+     * @param response    HTTP响应
+     * @param onCompleted 异步处理完成后的回调
+     * @return 是否以异步模式完成响应
+     */
+    private boolean handleBatch(List<McpJsonRpcRequest> requests, McpExchange exchange, HttpServletRequest request,
+                                HttpServletResponse response, Runnable onCompleted) throws IOException {
+        List<CompletableFuture<McpJsonRpcResponse>> futures = dispatchBatch(requests, exchange);
+        if (futures == null) {
+            writeResponse(invalidBatchResponse(), response);
+            return false;
+        }
+        if (futures.isEmpty()) {
+            response.setStatus(HttpStatus.ACCEPTED.value());
+            return false;
+        }
 
-            if (request.get("params").has("arguments")) {
-                params = (ObjectNode) request.get("params").get("arguments");
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+        McpJsonCodec jsonCodec = getJsonCodec();
+        return completeResponse(all, NullNode.getInstance(), exchange, request, response, null, ignored -> {
+            response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+            try (JsonGenerator generator = jsonCodec.createGenerator(response.getOutputStream())) {
+                generator.writeStartArray();
+                for (CompletableFuture<McpJsonRpcResponse> future : futures) {
+                    McpJsonRpcResponse rpcResponse = future.join();
+                    recordError(rpcResponse);
+                    rpcResponse.writeTo(generator, jsonCodec);
+                }
+                generator.writeEndArray();
             }
-        }
+        }, onCompleted);
+    }
 
-        // 查找对应的函数
-        McpFunctionInfo targetFunction = null;
-        for (McpFunctionInfo functionInfo : functionInfos) {
-            if (functionInfo.getName().equals(toolName)) {
-                targetFunction = functionInfo;
-                break;
+    /**
+     * 在异步结果就绪后写出响应
+     * 已完成的结果直接在请求线程写出; 否则开启Servlet异步模式释放请求线程, 超时后返回 -32003 错误响应
+     * 结果意外失败时返回 -32603 错误响应; SSE响应的错误以最后一个SSE事件写出
+     *
+     * @param future      异步结果
+     * @param id          请求ID, 用于错误响应
+     * @param exchange    当前请求
+     * @param request     HTTP请求
+     * @param response    HTTP响应
+     * @param sseWriter   SSE响应的事件写出器, 在响应完成前关闭; 普通JSON响应为 null
+     * @param writer      结果写出器
+     * @param onCompleted 异步处理完成后的回调, 同步写出时由调用方负责执行
+     * @return 是否以异步模式完成响应
+     */
+    private <T> boolean completeResponse(CompletableFuture<T> future, JsonNode id, McpExchange exchange,
+                                         HttpServletRequest request, HttpServletResponse response, McpSseWriter sseWriter,
+                                         ResponseWriter<T> writer, Runnable onCompleted) throws IOException {
+        if (future.isDone() || !request.isAsyncSupported()) {
+            try {
+                T result;
+                try {
+                    result = future.join();
+                } catch (CompletionException | CancellationException e) {
+                    writeError(failureResponse(id, e), response, sseWriter);
+                    return false;
+                }
+                writer.write(result);
+            } finally {
+                close(sseWriter);
             }
+            return false;
         }
 
-        // 如果找到了函数，尝试调用
-        if (targetFunction != null && targetBean != null) {
-            try {
-                Method method = targetFunction.getMethod();
-                Parameter[] parameters = method.getParameters();
-                Object[] args = new Object[parameters.length];
-
-                // 准备参数
-                for (int i = 0; i < parameters.length; i++) {
-                    McpFunctionInfo.ParamInfo paramInfo = targetFunction.getParams().get(i);
-                    String paramName = paramInfo.getName();
-                    Class<?> paramType = parameters[i].getType();
-
-                    if (params != null && params.has(paramName)) {
-                        args[i] = convertParamValue(params.get(paramName).asText(), paramType);
-                    } else if (paramInfo.isRequired()) {
-                        // 必需参数缺失
-                        log.warn("缺少必需参数: {}", paramName);
-                        ObjectNode error = response.putObject("error");
-                        error.put("code", -32602);
-                        error.put("message", "缺少必需参数: " + paramName);
-                        return ResponseEntity.ok(response);
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(asyncTimeout);
+        AtomicBoolean completed = new AtomicBoolean();
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) throws IOException {
+                if (completed.compareAndSet(false, true)) {
+                    log.warn("MCP请求处理超时, 请求ID: {}", id);
+                    exchange.cancelCalls("请求处理超时");
+                    try {
+                        writeError(timeoutResponse(id), response, sseWriter);
+                    } finally {
+                        finishResponse(response);
+                        asyncContext.complete();
                     }
                 }
+            }
 
-                // 调用方法
-                Object result = method.invoke(targetBean, args);
-
-                // 构建响应
-                ObjectNode resultNode = response.putObject("result");
-
-                List<Map<String, Object>> content = new ArrayList<>();
-                Map<String, Object> textContent = new HashMap<>();
-                textContent.put("type", "text");
-                textContent.put("text", result != null ? result.toString() : "");
-                content.add(textContent);
+            @Override
+            public void onComplete(AsyncEvent event) {
+                onCompleted.run();
+            }
 
-                resultNode.set("content", objectMapper.valueToTree(content));
+            @Override
+            public void onError(AsyncEvent event) {
+                completed.set(true);
+                close(sseWriter);
+                exchange.cancelCalls("连接已断开");
+            }
 
-            } catch (Exception e) {
-                // 处理其他异常
-                log.error("工具 {} 执行时发生异常", toolName, e);
-                ObjectNode error = response.putObject("error");
-                error.put("code", -32603);
-                error.put("message", "工具 " + toolName + " 执行时发生异常" + e.getMessage());
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        future.whenComplete((result, e) -> {
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                if (e != null) {
+                    writeError(failureResponse(id, e), response, sseWriter);
+                } else {
+                    writer.write(result);
+                }
+            } catch (IOException ex) {
+                log.debug("MCP响应写出失败: {}", ex.getMessage());
+            } finally {
+                close(sseWriter);
+                finishResponse(response);
+                asyncContext.complete();
             }
+        });
+        return true;
+    }
+
+    /**
+     * 写出错误响应, 已切换为 text/event-stream 的响应以SSE事件结束
+     */
+    private void writeError(McpJsonRpcResponse errorResponse, HttpServletResponse response, McpSseWriter sseWriter)
+            throws IOException {
+        if (sseWriter != null) {
+            recordError(errorResponse);
+            sseWriter.sendLast(g -> errorResponse.writeTo(g, getJsonCodec()));
         } else {
-            // 如果没有找到函数，返回错误
-            log.warn("找不到指定的工具: {}", toolName);
-            ObjectNode error = response.putObject("error");
-            error.put("code", -32601);
-            error.put("message", "找不到指定的工具: " + toolName);
+            writeResponse(errorResponse, response);
         }
-
-        return ResponseEntity.ok(response);
     }
 
-    private ResponseEntity<ObjectNode> handlePing(String id) {
-        ObjectNode response = objectMapper.createObjectNode();
-        response.put("jsonrpc", "2.0");
-        response.put("id", id);
-        response.put("result",objectMapper.createObjectNode());
-
-        return ResponseEntity.ok(response);
+    /**
+     * 关闭SSE事件写出器, 工具线程此后的进度通知不再写入响应
+     */
+    private static void close(McpSseWriter sseWriter) {
+        if (sseWriter != null) {
+            sseWriter.close();
+        }
     }
 
     /**
-     * 根据参数类型获取对应的JSON Schema类型
+     * 以 text/event-stream 处理工具调用请求
+     * 执行期间的进度通知与最终响应依次作为SSE事件写出
      *
-     * @param type 参数类型
-     * @return JSON Schema类型字符串
+     * @param rpcRequest  JSON-RPC请求
+     * @param exchange    当前请求
+     * @param request     HTTP请求
+     * @param response    HTTP响应
+     * @param onCompleted 异步处理完成后的回调
+     * @return 是否以异步模式完成响应
      */
-    private String getJsonSchemaType(Class<?> type) {
-        if (String.class.equals(type)) {
-            return "string";
-        } else if (Double.class.equals(type) || double.class.equals(type)) {
-            return "number";
-        } else if (Float.class.equals(type) || float.class.equals(type)) {
-            return "number";
-        } else if (Integer.class.equals(type) || int.class.equals(type)) {
-            return "integer";
-        } else if (Long.class.equals(type) || long.class.equals(type)) {
-            return "number";
-        } else if (Boolean.class.equals(type) || boolean.class.equals(type)) {
-            return "boolean";
-        } else {
-            // 默认返回string类型
-            return "string";
-        }
+    private boolean handleCallToolStream(McpJsonRpcRequest rpcRequest, McpExchange exchange, HttpServletRequest request,
+                                         HttpServletResponse response, Runnable onCompleted) throws IOException {
+        response.setContentType(TEXT_EVENT_STREAM_UTF8);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.setHeader("X-Accel-Buffering", "no");
+        McpJsonCodec jsonCodec = getJsonCodec();
+        McpSseWriter sseWriter = new McpSseWriter(response.getOutputStream(), jsonCodec);
+        JsonNode progressToken = rpcRequest.getParams().path("_meta").get("progressToken");
+
+        CompletableFuture<McpJsonRpcResponse> future = handleCallTool(rpcRequest, exchange, new McpProgressReporter(sseWriter, progressToken));
+        return completeResponse(future, rpcRequest.getId(), exchange, request, response, sseWriter, rpcResponse -> {
+            recordError(rpcResponse);
+            sseWriter.sendLast(g -> rpcResponse.writeTo(g, jsonCodec));
+        }, onCompleted);
     }
 
     /**
-     * 根据目标参数类型转换参数值
+     * 写出单个请求的响应
+     * 预构建模板直接拼接写出; tools/list 携带 ETag 供客户端判断工具目录是否变化
+     * POST 不是安全方法, 不按 If-None-Match 返回 304
      *
-     * @param value 参数值（字符串形式）
-     * @param targetType 目标类型
-     * @return 转换后的参数值
+     * @param rpcResponse 待写出的响应
+     * @param response    HTTP响应
      */
-    private Object convertParamValue(String value, Class<?> targetType) {
-        if (value == null) {
-            return null;
+    private void writeResponse(McpJsonRpcResponse rpcResponse, HttpServletResponse response) throws IOException {
+        McpResponseTemplate template = rpcResponse.getTemplate();
+        if (template == getListToolsTemplate()) {
+            response.setHeader(HttpHeaders.ETAG, template.getEtag());
         }
-        
-        try {
-            if (String.class.equals(targetType)) {
-                return value;
-            } else if (Double.class.equals(targetType) || double.class.equals(targetType)) {
-                return Double.parseDouble(value);
-            } else if (Float.class.equals(targetType) || float.class.equals(targetType)) {
-                return Float.parseFloat(value);
-            } else if (Integer.class.equals(targetType) || int.class.equals(targetType)) {
-                return Integer.parseInt(value);
-            } else if (Long.class.equals(targetType) || long.class.equals(targetType)) {
-                return Long.parseLong(value);
-            } else if (Boolean.class.equals(targetType) || boolean.class.equals(targetType)) {
-                return Boolean.parseBoolean(value);
-            } else {
-                // 默认返回原始字符串
-                return value;
-            }
-        } catch (NumberFormatException e) {
-            // 类型转换失败时返回原始字符串值
-            log.warn("参数类型转换失败: value={}, targetType={}", value, targetType.getSimpleName(), e);
-            return value;
+
+        recordError(rpcResponse);
+        response.setStatus(rpcResponse.getStatus().value());
+        if (rpcResponse.getStatus() == HttpStatus.TOO_MANY_REQUESTS) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
         }
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        McpJsonCodec jsonCodec = getJsonCodec();
+        if (template != null) {
+            byte[] idBytes = jsonCodec.writeIdAsBytes(rpcResponse.getId());
+            response.setContentLength(template.length(idBytes));
+            template.writeTo(response.getOutputStream(), idBytes);
+            return;
+        }
+        try (JsonGenerator generator = jsonCodec.createGenerator(response.getOutputStream())) {
+            rpcResponse.writeTo(generator, jsonCodec);
+        }
+    }
+
+    /**
+     * 客户端是否接受 text/event-stream 响应
+     */
+    private static boolean acceptsEventStream(HttpServletRequest request) {
+        return acceptsEventStream(request.getHeader(HttpHeaders.ACCEPT));
+    }
+
+    /**
+     * 响应写出器
+     */
+    @FunctionalInterface
+    private interface ResponseWriter<T> {
+
+        void write(T result) throws IOException;
     }
 }
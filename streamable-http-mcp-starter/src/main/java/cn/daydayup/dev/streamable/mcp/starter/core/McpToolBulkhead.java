@@ -0,0 +1,148 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * @ClassName McpToolBulkhead
+ * @Description 单个工具的并发隔离舱, 限制同时执行的调用数与排队数, 超出时立即拒绝
+ * 排队的调用不占用线程, 在前序调用完成时依次交给工具线程池启动; 排队期间取消的调用直接移出队列
+ * @Author ZhaoYanNing
+ * @Date 2025/10/19 15:40
+ * @Version 1.0
+ */
+public class McpToolBulkhead {
+
+    @Getter
+    private final int maxConcurrency;
+    @Getter
+    private final int maxWaiting;
+
+    /**
+     * 以下字段由 this 保护
+     */
+    private final Queue<Pending<?>> waiting = new ArrayDeque<>();
+    private int running;
+
+    public McpToolBulkhead(int maxConcurrency, int maxWaiting) {
+        this.maxConcurrency = maxConcurrency;
+        this.maxWaiting = maxWaiting;
+    }
+
+    /**
+     * 提交调用, 有空闲名额时在当前线程启动, 否则排队
+     *
+     * @param task     启动调用的任务
+     * @param token    调用的取消令牌, 排队期间取消时移出队列并以取消原因结束
+     * @param executor 启动排队调用的线程池, 避免在完成前序调用的线程(如定时器、IO线程)上启动
+     * @return 调用结果
+     * @throws McpJsonRpcException 并发与排队均已满时抛出
+     */
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> task, McpCancellationToken token,
+                                           Executor executor) {
+        Pending<T> pending = new Pending<>(task, executor);
+        synchronized (this) {
+            if (running < maxConcurrency) {
+                running++;
+            } else if (waiting.size() < maxWaiting) {
+                waiting.add(pending);
+                pending.queued = true;
+            } else {
+                throw busy();
+            }
+        }
+        if (pending.queued) {
+            token.onCancel(() -> {
+                if (dequeue(pending)) {
+                    pending.result.completeExceptionally(token.toException());
+                }
+            });
+        } else {
+            start(pending);
+        }
+        return pending.result;
+    }
+
+    /**
+     * 当前排队的调用数
+     */
+    public synchronized int getWaitingCount() {
+        return waiting.size();
+    }
+
+    private synchronized boolean dequeue(Pending<?> pending) {
+        return waiting.remove(pending);
+    }
+
+    private <T> void start(Pending<T> pending) {
+        CompletableFuture<T> future;
+        try {
+            future = pending.task.get();
+        } catch (Throwable e) {
+            release();
+            pending.result.completeExceptionally(e);
+            return;
+        }
+        future.whenComplete((value, e) -> {
+            release();
+            if (e != null) {
+                pending.result.completeExceptionally(e);
+            } else {
+                pending.result.complete(value);
+            }
+        });
+    }
+
+    /**
+     * 释放并发名额, 有排队调用时将名额交给队首调用并提交到其线程池启动
+     * 线程池拒绝时该调用以繁忙结束, 名额继续交给下一个排队调用
+     */
+    private void release() {
+        while (true) {
+            Pending<?> next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    running--;
+                    return;
+                }
+            }
+            try {
+                next.executor.execute(() -> start(next));
+                return;
+            } catch (RejectedExecutionException e) {
+                next.result.completeExceptionally(busy());
+            }
+        }
+    }
+
+    private static McpJsonRpcException busy() {
+        return new McpJsonRpcException(McpJsonRpcException.SERVER_BUSY, "工具繁忙, 请稍后重试");
+    }
+
+    /**
+     * 等待启动的调用
+     */
+    private static final class Pending<T> {
+
+        final Supplier<CompletableFuture<T>> task;
+        final Executor                       executor;
+        final CompletableFuture<T>           result = new CompletableFuture<>();
+
+        /**
+         * 提交时是否进入了排队, 仅由提交线程读写
+         */
+        boolean queued;
+
+        Pending(Supplier<CompletableFuture<T>> task, Executor executor) {
+            this.task = task;
+            this.executor = executor;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * @ClassName McpToolCallCoalescer
+ * @Description 单个工具的调用合并器, 调用键相同的并发调用共享同一次执行及其结果或异常
+ * 共享执行使用独立的取消令牌, 截止时间取各等待方中最晚者: 单个等待方取消或超时只放弃自身的等待,
+ * 全部等待方都放弃后才取消执行; 执行结束后立即移除, 不保留结果
+ * @Author ZhaoYanNing
+ * @Date 2025/10/19 20:15
+ * @Version 1.0
+ */
+public class McpToolCallCoalescer {
+
+    private final ConcurrentMap<String, Execution> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * 执行调用, 已有相同调用键的调用在执行时直接复用其结果
+     *
+     * @param key    调用键
+     * @param waiter 当前调用的取消令牌
+     * @param call   以共享执行的取消令牌发起实际调用的任务
+     * @return 调用结果, 当前调用取消或超时时以对应的 McpJsonRpcException 结束
+     */
+    public CompletableFuture<Object> execute(String key, McpCancellationToken waiter,
+                                             Function<McpCancellationToken, CompletableFuture<Object>> call) {
+        while (true) {
+            Execution execution = inFlight.get(key);
+            if (execution == null) {
+                Execution created = new Execution(waiter.getDeadlineNanos());
+                execution = inFlight.putIfAbsent(key, created);
+                if (execution == null) {
+                    start(key, created, call);
+                    return await(key, created, waiter);
+                }
+            }
+            if (execution.join(waiter.getDeadlineNanos())) {
+                coalescedCount.incrementAndGet();
+                return await(key, execution, waiter);
+            }
+            // 执行已被全部等待方放弃, 移除后重新发起
+            inFlight.remove(key, execution);
+        }
+    }
+
+    private void start(String key, Execution execution, Function<McpCancellationToken, CompletableFuture<Object>> call) {
+        CompletableFuture<Object> future;
+        try {
+            future = call.apply(execution.token);
+        } catch (RuntimeException e) {
+            inFlight.remove(key, execution);
+            execution.token.close();
+            execution.promise.completeExceptionally(e);
+            throw e;
+        }
+        future.whenComplete((result, e) -> {
+            inFlight.remove(key, execution);
+            execution.token.close();
+            if (e != null) {
+                execution.promise.completeExceptionally(e);
+            } else {
+                execution.promise.complete(result);
+            }
+        });
+    }
+
+    /**
+     * 等待共享执行的结果, 等待方取消时离开执行, 最后一个离开时以其取消原因取消执行
+     */
+    private CompletableFuture<Object> await(String key, Execution execution, McpCancellationToken waiter) {
+        CompletableFuture<Object> result = waiter.abandonOnCancel(execution.promise);
+        waiter.onCancel(() -> {
+            if (execution.leave()) {
+                inFlight.remove(key, execution);
+                execution.token.cancel(waiter.getReason(), waiter.isTimedOut());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 被合并（复用已有执行）的调用次数
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * 正在执行的调用数
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * 一次共享执行及其等待方计数
+     */
+    private static final class Execution {
+
+        final CompletableFuture<Object> promise = new CompletableFuture<>();
+        final McpCancellationToken      token;
+
+        /**
+         * 仍在等待的调用数, 由 this 保护; 降为 0 后不再接受新的等待方
+         */
+        private int waiters = 1;
+
+        Execution(long deadlineNanos) {
+            this.token = McpCancellationToken.forSharedCall(deadlineNanos);
+        }
+
+        synchronized boolean join(long deadlineNanos) {
+            if (waiters == 0) {
+                return false;
+            }
+            waiters++;
+            token.extendDeadline(deadlineNanos);
+            return true;
+        }
+
+        /**
+         * @return 是否为最后一个离开的等待方
+         */
+        synchronized boolean leave() {
+            return --waiters == 0;
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.TextNode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName McpToolInvoker
+ * @Description 预绑定的MCP工具调用器, 注册时完成参数绑定器的构建
+ * 优先使用编译期生成的直接调用器, 否则构建 MethodHandle 调用
+ * @Author ZhaoYanNing
+ * @Date 2025/10/18 14:10
+ * @Version 1.0
+ */
+@Slf4j
+public class McpToolInvoker {
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    @Getter
+    private final McpFunctionInfo functionInfo;
+
+    /**
+     * 工具所在的Bean
+     */
+    private final Object targetBean;
+
+    /**
+     * 编译期生成的直接调用器, 不存在时为 null
+     */
+    private final McpDirectInvoker directInvoker;
+
+    /**
+     * 已绑定目标Bean的方法句柄, 签名为 (Object[])Object, 使用直接调用器时为 null
+     */
+    private final MethodHandle handle;
+
+    /**
+     * 工具的 inputSchema JSON, 优先使用编译期生成的结果
+     */
+    @Getter
+    private final String inputSchema;
+
+    /**
+     * 由 inputSchema 编译的参数校验器, 工具没有参数时为 null
+     */
+    private final McpArgumentValidator validator;
+
+    /**
+     * 按方法参数位置排列的参数绑定器, 未标注 @McpParam 的位置为 null
+     */
+    private final ParamBinder[] binders;
+
+    /**
+     * McpProgressReporter 类型参数的位置, 不存在时为 -1
+     */
+    private final int progressReporterIndex;
+
+    /**
+     * McpCancellationToken 类型参数的位置, 不存在时为 -1
+     */
+    private final int cancellationTokenIndex;
+
+    /**
+     * 并发隔离舱, 未配置并发上限时为 null
+     */
+    @Getter
+    private final McpToolBulkhead bulkhead;
+
+    /**
+     * 调用结果缓存, 未配置缓存时间时为 null
+     */
+    @Getter
+    private final McpToolResultCache resultCache;
+
+    /**
+     * 相同参数并发调用的合并器, 未开启合并时为 null
+     */
+    @Getter
+    private final McpToolCallCoalescer coalescer;
+
+    /**
+     * 参与调用键计算的参数名称, 为空时使用全部参数
+     */
+    private final String[] keyParams;
+
+    /**
+     * @param objectMapper 用于构建参数绑定器, 每个参数预先创建对应类型的 ObjectReader
+     */
+    public McpToolInvoker(McpFunctionInfo functionInfo, Object targetBean, ObjectMapper objectMapper) throws IllegalAccessException {
+        this.functionInfo = functionInfo;
+        this.targetBean = targetBean;
+        this.directInvoker = functionInfo.getDirectInvoker();
+        int parameterCount = functionInfo.getParameterCount();
+        if (directInvoker != null) {
+            this.handle = null;
+        } else {
+            Method method = functionInfo.getMethod();
+            method.setAccessible(true);
+            MethodHandle methodHandle = MethodHandles.lookup().unreflect(method);
+            if (!Modifier.isStatic(method.getModifiers())) {
+                methodHandle = methodHandle.bindTo(targetBean);
+            }
+            this.handle = methodHandle.asSpreader(Object[].class, parameterCount).asType(INVOKER_TYPE);
+        }
+        this.inputSchema = functionInfo.getInputSchema() != null
+                ? functionInfo.getInputSchema() : McpInputSchema.of(functionInfo.getParams(), objectMapper);
+        try {
+            this.validator = McpArgumentValidator.compile(objectMapper.readTree(inputSchema));
+        } catch (IOException e) {
+            throw new IllegalStateException("工具 " + functionInfo.getName() + " 的 inputSchema 解析失败", e);
+        }
+        this.binders = new ParamBinder[parameterCount];
+        for (McpFunctionInfo.ParamInfo paramInfo : functionInfo.getParams()) {
+            binders[paramInfo.getIndex()] = new ParamBinder(paramInfo, objectMapper);
+        }
+        this.progressReporterIndex = functionInfo.getProgressReporterIndex();
+        this.cancellationTokenIndex = functionInfo.getCancellationTokenIndex();
+
+        this.bulkhead = functionInfo.getMaxConcurrency() > 0
+                ? new McpToolBulkhead(functionInfo.getMaxConcurrency(), functionInfo.getMaxWaiting()) : null;
+        this.resultCache = functionInfo.getCacheTtl() > 0
+                ? new McpToolResultCache(TimeUnit.SECONDS.toMillis(functionInfo.getCacheTtl()), functionInfo.getCacheMaxEntries()) : null;
+        this.coalescer = functionInfo.isCoalesce() ? new McpToolCallCoalescer() : null;
+        this.keyParams = functionInfo.getCacheKeys();
+    }
+
+    /**
+     * 根据请求参数计算规范化的调用键, 对象字段按名称排序, 用于结果缓存与调用合并
+     *
+     * @param arguments 请求中的 arguments 节点, 可为 null
+     * @return 调用键
+     */
+    public String callKey(JsonNode arguments) {
+        if (arguments == null) {
+            return "";
+        }
+        StringBuilder key = new StringBuilder(64);
+        if (keyParams.length == 0) {
+            appendCanonical(key, arguments);
+            return key.toString();
+        }
+        for (String param : keyParams) {
+            key.append(param).append('=');
+            appendCanonical(key, arguments.get(param));
+            key.append('&');
+        }
+        return key.toString();
+    }
+
+    private static void appendCanonical(StringBuilder key, JsonNode node) {
+        if (node == null || node.isNull()) {
+            key.append("null");
+        } else if (node.isObject()) {
+            List<String> names = new ArrayList<>();
+            Iterator<String> iterator = node.fieldNames();
+            while (iterator.hasNext()) {
+                names.add(iterator.next());
+            }
+            Collections.sort(names);
+            key.append('{');
+            for (String name : names) {
+                key.append(TextNode.valueOf(name)).append(':');
+                appendCanonical(key, node.get(name));
+                key.append(',');
+            }
+            key.append('}');
+        } else if (node.isArray()) {
+            key.append('[');
+            for (JsonNode element : node) {
+                appendCanonical(key, element);
+                key.append(',');
+            }
+            key.append(']');
+        } else {
+            key.append(node.toString());
+        }
+    }
+
+    /**
+     * 按 inputSchema 校验参数, 须在进入缓存、合并与工具执行之前调用
+     *
+     * @param arguments 请求中的 arguments 节点, 可为 null
+     * @throws McpJsonRpcException 校验失败时抛出, 错误码 -32602, data 中列出全部违规项
+     */
+    public void validate(JsonNode arguments) {
+        if (validator != null) {
+            validator.validate(arguments);
+        }
+    }
+
+    /**
+     * 工具方法所在的对象
+     */
+    Object getTargetBean() {
+        return targetBean;
+    }
+
+    /**
+     * 工具方法是否返回 CompletionStage 或 Publisher
+     */
+    public boolean isAsync() {
+        return functionInfo.isAsync();
+    }
+
+    /**
+     * 工具方法是否返回多值的 Publisher(如 Flux)
+     */
+    public boolean isStreaming() {
+        return functionInfo.isStreaming();
+    }
+
+    /**
+     * 工具方法是否声明了 McpProgressReporter 参数
+     */
+    public boolean isProgressReporting() {
+        return progressReporterIndex >= 0;
+    }
+
+    /**
+     * 工具调用的超时时间(毫秒), 0 表示不限制
+     */
+    public long getTimeout() {
+        return functionInfo.getTimeout();
+    }
+
+    /**
+     * 绑定参数并调用工具方法
+     *
+     * @param arguments        请求中的 arguments 节点, 可为 null
+     * @param progressReporter 注入到工具方法的进度报告器
+     * @return 工具方法返回值
+     */
+    public Object invoke(JsonNode arguments, McpProgressReporter progressReporter) throws Exception {
+        return invoke(arguments, progressReporter, McpCancellationToken.NONE);
+    }
+
+    /**
+     * 绑定参数并调用工具方法
+     *
+     * @param arguments         请求中的 arguments 节点, 可为 null
+     * @param progressReporter  注入到工具方法的进度报告器
+     * @param cancellationToken 注入到工具方法的取消令牌
+     * @return 工具方法返回值
+     */
+    public Object invoke(JsonNode arguments, McpProgressReporter progressReporter,
+                         McpCancellationToken cancellationToken) throws Exception {
+        Object[] args = new Object[binders.length];
+        for (int i = 0; i < binders.length; i++) {
+            if (binders[i] != null) {
+                args[i] = binders[i].bind(arguments);
+            }
+        }
+        if (progressReporterIndex >= 0) {
+            args[progressReporterIndex] = progressReporter;
+        }
+        if (cancellationTokenIndex >= 0) {
+            args[cancellationTokenIndex] = cancellationToken;
+        }
+        if (directInvoker != null) {
+            return directInvoker.invoke(targetBean, args);
+        }
+        try {
+            return (Object) handle.invokeExact(args);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * 单个参数的绑定器, 直接从已解析的JSON节点绑定, 不经过字符串中转
+     */
+    private static class ParamBinder {
+
+        private final String  name;
+        private final boolean required;
+
+        /**
+         * 参数类型的读取器, String 参数为 null
+         */
+        private final ObjectReader reader;
+
+        /**
+         * 参数缺失时的取值, 基本类型为其默认值, 其余为 null
+         */
+        private final Object defaultValue;
+
+        ParamBinder(McpFunctionInfo.ParamInfo paramInfo, ObjectMapper objectMapper) {
+            this.name = paramInfo.getName();
+            this.required = paramInfo.isRequired();
+            Class<?> type = paramInfo.getType();
+            this.reader = String.class.equals(type)
+                    ? null : objectMapper.readerFor(objectMapper.getTypeFactory().constructType(paramInfo.getGenericType()));
+            this.defaultValue = type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null;
+        }
+
+        Object bind(JsonNode arguments) {
+            JsonNode value = arguments != null ? arguments.get(name) : null;
+            if (value == null) {
+                if (required) {
+                    // 必需参数缺失
+                    log.warn("缺少必需参数: {}", name);
+                    throw new McpJsonRpcException(McpJsonRpcException.INVALID_PARAMS, "缺少必需参数: " + name);
+                }
+                return defaultValue;
+            }
+            if (reader == null) {
+                // String 参数接受任意JSON值, 对象与数组以JSON文本传入
+                return value.isNull() ? null : value.isContainerNode() ? value.toString() : value.asText();
+            }
+            try {
+                Object bound = reader.readValue(value);
+                return bound != null ? bound : defaultValue;
+            } catch (IOException e) {
+                String message = e instanceof JsonProcessingException ? ((JsonProcessingException) e).getOriginalMessage() : e.getMessage();
+                log.warn("参数类型转换失败: name={}, value={}", name, value);
+                throw new McpJsonRpcException(McpJsonRpcException.INVALID_PARAMS, "参数 " + name + " 类型错误: " + message);
+            }
+        }
+    }
+}
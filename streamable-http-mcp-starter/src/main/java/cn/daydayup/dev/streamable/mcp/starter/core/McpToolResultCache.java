@@ -0,0 +1,144 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @ClassName McpToolResultCache
+ * @Description 单个工具的调用结果缓存, 以规范化后的参数(McpToolInvoker#callKey)作为键, 支持过期时间与容量上限
+ * 按键哈希分段加锁, 每段独立按最近访问顺序淘汰
+ * @Author ZhaoYanNing
+ * @Date 2025/10/19 17:10
+ * @Version 1.0
+ */
+public class McpToolResultCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final long      ttlNanos;
+    private final Segment[] segments;
+
+    private final AtomicLong hitCount      = new AtomicLong();
+    private final AtomicLong missCount     = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * @param ttlMillis  缓存时间(毫秒)
+     * @param maxEntries 最大条目数
+     */
+    public McpToolResultCache(long ttlMillis, int maxEntries) {
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        int segmentCount = Math.max(1, Math.min(MAX_SEGMENTS, maxEntries / MAX_SEGMENTS));
+        this.segments = new Segment[segmentCount];
+        int segmentCapacity = (maxEntries + segmentCount - 1) / segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * 获取未过期的缓存结果
+     *
+     * @param key 缓存键
+     * @return 缓存结果, 未命中时为 null
+     */
+    public Object get(String key) {
+        Object value = segmentFor(key).get(key, System.nanoTime());
+        if (value == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * 写入缓存结果, null 值不缓存
+     *
+     * @param key   缓存键
+     * @param value 工具调用结果
+     */
+    public void put(String key, Object value) {
+        if (value != null) {
+            segmentFor(key).put(key, new Entry(value, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode();
+        return segments[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % segments.length];
+    }
+
+    private static class Entry {
+
+        private final Object value;
+        private final long   expireAt;
+
+        Entry(Object value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
+    /**
+     * 按最近访问顺序淘汰的缓存分段
+     */
+    private class Segment {
+
+        private final Map<String, Entry> entries;
+
+        Segment(int capacity) {
+            this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    if (size() > capacity) {
+                        evictionCount.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized Object get(String key, long now) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (now - entry.expireAt >= 0) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+
+        synchronized void put(String key, Entry entry) {
+            entries.put(key, entry);
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import cn.daydayup.dev.streamable.mcp.starter.response.ResponseSchema;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.BufferRecyclers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * @ClassName McpToolResultWriter
+ * @Description 将工具返回值直接写入响应生成器, 作为 tools/call 的 result(CallToolResult)
+ * ResponseSchema 原样作为 result 写出; byte[]、InputStream、Path 分块写出并即时Base64编码, Reader、CharSequence 分块写出为字符串;
+ * 其余对象只序列化一次, 写为 structuredContent, 并将其JSON文本直接转义写出作为 text 内容, 不生成中间字符串
+ * Supplier 须在调用上下文释放前由 {@link #resolve} 取值, 写出时不再持有调用上下文
+ * @Author ZhaoYanNing
+ * @Date 2025/10/22 16:10
+ * @Version 1.0
+ */
+public final class McpToolResultWriter {
+
+    private static final String DEFAULT_MIME_TYPE = "application/octet-stream";
+
+    private McpToolResultWriter() {
+    }
+
+    /**
+     * 写出工具调用结果
+     *
+     * @param generator    JSON生成器
+     * @param toolName     工具名称, 用作二进制结果的资源URI
+     * @param result       工具返回值
+     * @param objectMapper 用于序列化 structuredContent 及其JSON文本
+     */
+    public static void write(JsonGenerator generator, String toolName, Object result, ObjectMapper objectMapper) throws IOException {
+        Object value = unwrap(result);
+        if (value instanceof ResponseSchema) {
+            writeResponseSchema(generator, (ResponseSchema) value, objectMapper);
+            return;
+        }
+
+        TokenBuffer structured = null;
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("content");
+        generator.writeStartObject();
+        if (value == null || isText(value)) {
+            generator.writeStringField("type", "text");
+            generator.writeFieldName("text");
+            writeValue(generator, value == null ? "" : value, true);
+        } else if (isBinary(value)) {
+            // 未声明类型的二进制结果作为内嵌资源返回
+            generator.writeStringField("type", "resource");
+            generator.writeObjectFieldStart("resource");
+            generator.writeStringField("uri", value instanceof Path ? ((Path) value).toUri().toString() : "mcp://tool/" + toolName);
+            generator.writeStringField("mimeType", mimeTypeOf(value));
+            generator.writeFieldName("blob");
+            writeValue(generator, value, false);
+            generator.writeEndObject();
+        } else if (isScalar(value)) {
+            generator.writeStringField("type", "text");
+            generator.writeStringField("text", value.toString());
+        } else {
+            // structuredContent 必须为JSON对象; 对象只序列化一次, 文本与 structuredContent 均由其回放
+            Object json = value;
+            if (!(value instanceof Collection) && !value.getClass().isArray()) {
+                structured = new TokenBuffer(objectMapper, false);
+                objectMapper.writeValue(structured, value);
+                json = structured;
+            }
+            generator.writeStringField("type", "text");
+            generator.writeFieldName("text");
+            writeJsonText(generator, json, objectMapper);
+        }
+        generator.writeEndObject();
+        generator.writeEndArray();
+        if (structured != null) {
+            generator.writeFieldName("structuredContent");
+            structured.serialize(generator);
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * 在调用上下文释放前解析结果中的 Supplier(含 Map、Collection 中的元素)
+     * 包含 Supplier 的 Map、Collection 复制后替换, 不修改工具返回的对象
+     *
+     * @param result 工具返回值
+     * @return 不含 Supplier 的结果, 不含 Supplier 时原样返回
+     */
+    public static Object resolve(Object result) {
+        Object value = unwrap(result);
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            Map<Object, Object> copy = null;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                Object resolved = resolve(entry.getValue());
+                if (resolved != entry.getValue() && copy == null) {
+                    copy = copyOf(map);
+                }
+                if (copy != null) {
+                    copy.put(entry.getKey(), resolved);
+                }
+            }
+            return copy != null ? copy : value;
+        }
+        if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            List<Object> copy = null;
+            int index = 0;
+            for (Object element : collection) {
+                Object resolved = resolve(element);
+                if (resolved != element && copy == null) {
+                    copy = new ArrayList<>(collection);
+                }
+                if (copy != null) {
+                    copy.set(index, resolved);
+                }
+                index++;
+            }
+            return copy != null ? copy : value;
+        }
+        return value;
+    }
+
+    /**
+     * 复制 Map, ResponseSchema 仍复制为 ResponseSchema 以保持原样写出
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> copyOf(Map<?, ?> map) {
+        Map<Object, Object> copy = map instanceof ResponseSchema ? (Map) new ResponseSchema() : new LinkedHashMap<>(map.size() * 2);
+        copy.putAll(map);
+        return copy;
+    }
+
+    /**
+     * 结果能否重复写出, InputStream、Reader 只能读取一次, 不能写入结果缓存
+     * 未解析的 Supplier 无法判断其取值, 视为不可重复写出
+     *
+     * @param result 工具返回值
+     */
+    public static boolean isReplayable(Object result) {
+        if (result instanceof InputStream || result instanceof Reader || result instanceof Supplier) {
+            return false;
+        }
+        if (result instanceof Map) {
+            for (Object value : ((Map<?, ?>) result).values()) {
+                if (!isReplayable(value)) {
+                    return false;
+                }
+            }
+        } else if (result instanceof Collection) {
+            for (Object value : (Collection<?>) result) {
+                if (!isReplayable(value)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 写出 ResponseSchema, 未包含 content 但包含 structuredContent 时补充其JSON文本作为 text 内容
+     */
+    private static void writeResponseSchema(JsonGenerator generator, ResponseSchema schema, ObjectMapper objectMapper) throws IOException {
+        generator.writeStartObject();
+        if (!schema.containsKey("content")) {
+            generator.writeArrayFieldStart("content");
+            Object structuredContent = unwrap(schema.get("structuredContent"));
+            if (structuredContent != null) {
+                generator.writeStartObject();
+                generator.writeStringField("type", "text");
+                generator.writeFieldName("text");
+                writeJsonText(generator, structuredContent, objectMapper);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        for (Map.Entry<String, Object> entry : schema.entrySet()) {
+            generator.writeFieldName(entry.getKey());
+            writeValue(generator, entry.getValue(), false);
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * 写出任意值, 流式来源分块写出
+     *
+     * @param text true 时二进制来源按UTF-8解码为字符串(text 字段), 否则Base64编码(data、blob 字段)
+     */
+    private static void writeValue(JsonGenerator generator, Object value, boolean text) throws IOException {
+        value = unwrap(value);
+        if (value == null || value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof CharSequence) {
+            writeReader(generator, new CharSequenceReader((CharSequence) value));
+        } else if (value instanceof Reader) {
+            writeReader(generator, (Reader) value);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            if (text) {
+                generator.writeString(new String(bytes, StandardCharsets.UTF_8));
+            } else {
+                generator.writeBinary(bytes);
+            }
+        } else if (value instanceof InputStream || value instanceof Path) {
+            try (InputStream in = value instanceof Path ? Files.newInputStream((Path) value) : (InputStream) value) {
+                if (text) {
+                    writeReader(generator, new InputStreamReader(in, StandardCharsets.UTF_8));
+                } else {
+                    generator.writeBinary(in, -1);
+                }
+            }
+        } else if (value instanceof Map) {
+            generator.writeStartObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                String name = String.valueOf(entry.getKey());
+                generator.writeFieldName(name);
+                writeValue(generator, entry.getValue(), "text".equals(name));
+            }
+            generator.writeEndObject();
+        } else if (value instanceof Collection) {
+            generator.writeStartArray();
+            for (Object element : (Collection<?>) value) {
+                writeValue(generator, element, false);
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeObject(value);
+        }
+    }
+
+    private static void writeReader(JsonGenerator generator, Reader reader) throws IOException {
+        try (Reader in = reader) {
+            generator.writeString(in, -1);
+        }
+    }
+
+    /**
+     * 将值的JSON文本作为字符串写出, 序列化输出经转义后直接写入生成器, 不生成中间字符串
+     */
+    private static void writeJsonText(JsonGenerator generator, Object value, ObjectMapper objectMapper) throws IOException {
+        generator.writeRawValue("\"");
+        // ObjectMapper 写完后关闭 Writer, 由 close 输出剩余字符
+        objectMapper.writeValue(new JsonTextWriter(generator), value);
+        generator.writeRaw('"');
+    }
+
+    private static Object unwrap(Object value) {
+        while (value instanceof Supplier) {
+            value = ((Supplier<?>) value).get();
+        }
+        return value;
+    }
+
+    private static boolean isText(Object value) {
+        return value instanceof CharSequence || value instanceof Reader;
+    }
+
+    private static boolean isBinary(Object value) {
+        return value instanceof byte[] || value instanceof InputStream || value instanceof Path;
+    }
+
+    private static boolean isScalar(Object value) {
+        return value instanceof Number || value instanceof Boolean || value instanceof Character || value instanceof Enum;
+    }
+
+    private static String mimeTypeOf(Object value) {
+        if (value instanceof Path) {
+            try {
+                String mimeType = Files.probeContentType((Path) value);
+                return mimeType != null ? mimeType : DEFAULT_MIME_TYPE;
+            } catch (IOException e) {
+                return DEFAULT_MIME_TYPE;
+            }
+        }
+        return DEFAULT_MIME_TYPE;
+    }
+
+    /**
+     * 将写入的JSON文本按字符串转义后原样写入外层生成器
+     * 分块末尾的高代理项留到下一块, 避免代理对被拆开写出
+     */
+    private static class JsonTextWriter extends Writer {
+
+        private final JsonGenerator generator;
+        private char                pendingHighSurrogate;
+
+        JsonTextWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return;
+            }
+            StringBuilder text = new StringBuilder(length + 1);
+            if (pendingHighSurrogate != 0) {
+                text.append(pendingHighSurrogate);
+                pendingHighSurrogate = 0;
+            }
+            text.append(buffer, offset, length);
+            int last = text.length() - 1;
+            if (Character.isHighSurrogate(text.charAt(last))) {
+                pendingHighSurrogate = text.charAt(last);
+                text.setLength(last);
+            }
+            writeQuoted(text.toString());
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (pendingHighSurrogate != 0) {
+                writeQuoted(String.valueOf(pendingHighSurrogate));
+                pendingHighSurrogate = 0;
+            }
+        }
+
+        private void writeQuoted(String text) throws IOException {
+            if (!text.isEmpty()) {
+                char[] quoted = BufferRecyclers.getJsonStringEncoder().quoteAsString(text);
+                generator.writeRaw(quoted, 0, quoted.length);
+            }
+        }
+    }
+
+    /**
+     * 以 Reader 分块读取 CharSequence, 避免 toString 复制大文本
+     */
+    private static class CharSequenceReader extends Reader {
+
+        private final CharSequence text;
+        private int position;
+
+        CharSequenceReader(CharSequence text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position >= text.length()) {
+                return -1;
+            }
+            int count = Math.min(length, text.length() - position);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = text.charAt(position + i);
+            }
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * @ClassName McpVirtualThreads
+ * @Description 虚拟线程支持, 运行时通过反射检测 JDK 21+ 的虚拟线程API, starter 仍以 Java 8 编译
+ * @Author ZhaoYanNing
+ * @Date 2025/10/24 10:10
+ * @Version 1.0
+ */
+public final class McpVirtualThreads {
+
+    private static final boolean AVAILABLE = detect();
+
+    private McpVirtualThreads() {
+    }
+
+    private static boolean detect() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 当前JDK是否支持虚拟线程
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * 创建为每个任务启动一个虚拟线程的执行器, 线程按 prefix + 序号命名
+     *
+     * @param prefix 线程名前缀
+     * @return 执行器, 当前JDK不支持虚拟线程时返回 null
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        if (!AVAILABLE) {
+            return null;
+        }
+        try {
+            // Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory())
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            Object threadFactory = builderClass.getMethod("factory").invoke(builder);
+            Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newExecutor.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("创建虚拟线程执行器失败", e);
+        }
+    }
+}
@@ -5,11 +5,12 @@ import javax.servlet.http.HttpServletRequest;
 /**
  * MCP Web工具类
  * 提供便捷方法访问当前HTTP请求上下文
+ * 请求头、会话与客户端IP优先从调用上下文快照(McpCallContext)读取, 经 McpCallContext 传递到其他线程后仍可使用
  */
 public class McpWebUtils {
     
     /**
-     * 获取当前HTTP请求
+     * 获取当前HTTP请求, 工具调用结束后返回 null
      * 
      * @return HttpServletRequest 当前HTTP请求对象
      */
@@ -24,6 +25,10 @@ public class McpWebUtils {
      * @return String 头信息值
      */
     public static String getRequestHeader(String headerName) {
+        McpCallContext context = McpCallContext.current();
+        if (context != null) {
+            return context.getHeader(headerName);
+        }
         HttpServletRequest request = getCurrentRequest();
         if (request != null) {
             return request.getHeader(headerName);
@@ -45,25 +50,36 @@ public class McpWebUtils {
         return null;
     }
     
+    /**
+     * 获取当前请求所属的MCP会话
+     * 
+     * @return McpSession 当前会话, 未启用会话管理时为 null
+     */
+    public static McpSession getSession() {
+        McpCallContext context = McpCallContext.current();
+        if (context != null) {
+            return context.getSession();
+        }
+        HttpServletRequest request = getCurrentRequest();
+        if (request != null) {
+            return (McpSession) request.getAttribute(McpSession.REQUEST_ATTRIBUTE);
+        }
+        return null;
+    }
+    
     /**
      * 获取客户端IP地址
      * 
      * @return String 客户端IP地址
      */
     public static String getClientIpAddress() {
+        McpCallContext context = McpCallContext.current();
+        if (context != null) {
+            return context.getClientIp();
+        }
         HttpServletRequest request = getCurrentRequest();
         if (request != null) {
-            String xForwardedFor = request.getHeader("X-Forwarded-For");
-            if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-                return xForwardedFor.split(",")[0].trim();
-            }
-            
-            String xRealIp = request.getHeader("X-Real-IP");
-            if (xRealIp != null && !xRealIp.isEmpty()) {
-                return xRealIp;
-            }
-            
-            return request.getRemoteAddr();
+            return McpCallContext.resolveClientIp(request);
         }
         return null;
     }
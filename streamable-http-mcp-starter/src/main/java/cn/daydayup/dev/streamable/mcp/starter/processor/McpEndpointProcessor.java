@@ -0,0 +1,336 @@
+package cn.daydayup.dev.streamable.mcp.starter.processor;
+
+import cn.daydayup.dev.streamable.mcp.starter.annotation.McpFunction;
+import cn.daydayup.dev.streamable.mcp.starter.annotation.McpParam;
+import cn.daydayup.dev.streamable.mcp.starter.annotation.McpServerEndpoint;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpEndpointDescriptor;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpInputSchema;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @ClassName McpEndpointProcessor
+ * @Description 编译期注解处理器, 为每个 @McpServerEndpoint 类生成 McpEndpointDescriptor
+ * 描述符包含预先生成的 inputSchema 与直接调用工具方法的调用器, 注册时无需反射扫描, 调用时无需反射传参
+ * 仅处理顶层类; 存在 private 工具方法或声明抛出 Throwable 的类不生成描述符, 运行时回退到反射
+ * @Author ZhaoYanNing
+ * @Date 2025/10/21 15:00
+ * @Version 1.0
+ */
+@SupportedAnnotationTypes("cn.daydayup.dev.streamable.mcp.starter.annotation.McpServerEndpoint")
+public class McpEndpointProcessor extends AbstractProcessor {
+
+    private static final String CORE_PACKAGE = "cn.daydayup.dev.streamable.mcp.starter.core.";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(McpServerEndpoint.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            String reason = checkSupported(type);
+            if (reason != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "未生成MCP描述符, 运行时将使用反射: " + reason, type);
+                continue;
+            }
+            try {
+                generate(type);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "MCP描述符生成失败: " + e.getMessage(), type);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 检查端点类能否由生成的代码直接调用
+     *
+     * @return 不支持的原因, 支持时为 null
+     */
+    private String checkSupported(TypeElement type) {
+        if (type.getNestingKind() != NestingKind.TOP_LEVEL) {
+            return "仅支持顶层类";
+        }
+        TypeMirror exception = processingEnv.getElementUtils().getTypeElement(Exception.class.getName()).asType();
+        TypeMirror error = processingEnv.getElementUtils().getTypeElement(Error.class.getName()).asType();
+        for (ExecutableElement method : functionMethods(type)) {
+            if (method.getModifiers().contains(Modifier.PRIVATE)) {
+                return "工具方法 " + method.getSimpleName() + " 为 private";
+            }
+            if (!method.getTypeParameters().isEmpty()) {
+                return "工具方法 " + method.getSimpleName() + " 声明了类型参数";
+            }
+            for (TypeMirror thrown : method.getThrownTypes()) {
+                if (!processingEnv.getTypeUtils().isAssignable(thrown, exception)
+                        && !processingEnv.getTypeUtils().isAssignable(thrown, error)) {
+                    return "工具方法 " + method.getSimpleName() + " 声明抛出 " + thrown;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static List<ExecutableElement> functionMethods(TypeElement type) {
+        List<ExecutableElement> methods = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (method.getAnnotation(McpFunction.class) != null) {
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    private void generate(TypeElement type) throws IOException {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        String typeName = type.getQualifiedName().toString();
+        String simpleName = type.getSimpleName() + McpEndpointDescriptor.CLASS_NAME_SUFFIX;
+        List<ExecutableElement> methods = functionMethods(type);
+
+        StringBuilder source = new StringBuilder(1024);
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n * 由 McpEndpointProcessor 根据 ").append(type.getSimpleName()).append(" 生成, 请勿修改\n */\n");
+        source.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        source.append("public final class ").append(simpleName).append(" implements ")
+                .append(CORE_PACKAGE).append("McpEndpointDescriptor {\n\n");
+        source.append("    @Override\n");
+        source.append("    public java.util.List<").append(CORE_PACKAGE).append("McpFunctionInfo> getFunctionInfos() {\n");
+        source.append("        java.util.List<").append(CORE_PACKAGE).append("McpFunctionInfo> functionInfos = new java.util.ArrayList<>(")
+                .append(methods.size()).append(");\n");
+        for (ExecutableElement method : methods) {
+            appendFunctionInfo(source, typeName, method);
+        }
+        source.append("        return java.util.Collections.unmodifiableList(functionInfos);\n");
+        source.append("    }\n}\n");
+
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+
+    private void appendFunctionInfo(StringBuilder source, String typeName, ExecutableElement method) {
+        McpFunction function = method.getAnnotation(McpFunction.class);
+        List<? extends VariableElement> parameters = method.getParameters();
+        TypeMirror returnType = method.getReturnType();
+        // 返回 Publisher(如 Mono、Flux)的工具同样视为异步, 其中非 Mono 的 Publisher 为多值流
+        boolean publisher = isAssignableTo(returnType, "org.reactivestreams.Publisher");
+        boolean async = isAssignableTo(returnType, "java.util.concurrent.CompletionStage") || publisher;
+        boolean streaming = publisher && !isAssignableTo(returnType, "reactor.core.publisher.Mono");
+
+        // 仅含标量参数时预先生成 inputSchema, 否则由运行时根据泛型类型生成嵌套的Schema
+        McpInputSchema inputSchema = new McpInputSchema();
+        boolean scalarParams = true;
+        StringBuilder params = new StringBuilder();
+        StringBuilder arguments = new StringBuilder();
+        int progressReporterIndex = -1;
+        int cancellationTokenIndex = -1;
+        for (int i = 0; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            TypeMirror parameterType = processingEnv.getTypeUtils().erasure(parameter.asType());
+            McpParam param = parameter.getAnnotation(McpParam.class);
+            if (param != null) {
+                String schemaType = McpInputSchema.typeOf(parameterType.toString());
+                if (schemaType != null) {
+                    inputSchema.property(param.name(), param.description(), schemaType, param.enums(), param.required(),
+                            param.minimum(), param.maximum(), param.minLength(), param.maxLength());
+                } else {
+                    scalarParams = false;
+                }
+                params.append(params.length() > 0 ? ",\n" : "\n")
+                        .append("                        new ").append(CORE_PACKAGE).append("McpFunctionInfo.ParamInfo(")
+                        .append(i).append(", ").append(literal(param.name())).append(", ").append(literal(param.description()))
+                        .append(", ").append(literal(param.enums())).append(", ").append(param.required()).append(", ")
+                        .append(parameterType).append(".class");
+                boolean constrained = !Double.isInfinite(param.minimum()) || !Double.isInfinite(param.maximum())
+                        || param.minLength() >= 0 || param.maxLength() >= 0;
+                if (isParameterized(parameter.asType())) {
+                    params.append(", new com.fasterxml.jackson.core.type.TypeReference<").append(parameter.asType())
+                            .append(">() {}.getType()");
+                } else if (constrained) {
+                    params.append(", ").append(parameterType).append(".class");
+                }
+                if (constrained) {
+                    params.append(", ").append(literal(param.minimum())).append(", ").append(literal(param.maximum()))
+                            .append(", ").append(param.minLength()).append(", ").append(param.maxLength());
+                }
+                params.append(')');
+            } else if (progressReporterIndex < 0 && parameterType.toString().equals(CORE_PACKAGE + "McpProgressReporter")) {
+                progressReporterIndex = i;
+            } else if (cancellationTokenIndex < 0 && parameterType.toString().equals(CORE_PACKAGE + "McpCancellationToken")) {
+                cancellationTokenIndex = i;
+            }
+            arguments.append(i > 0 ? ", " : "").append('(').append(castType(parameterType)).append(") args[").append(i).append(']');
+        }
+
+        String receiver = method.getModifiers().contains(Modifier.STATIC) ? typeName : "((" + typeName + ") target)";
+        String call = receiver + "." + method.getSimpleName() + "(" + arguments + ")";
+        String invoker = returnType.getKind() == TypeKind.VOID
+                ? "(target, args) -> {\n                    " + call + ";\n                    return null;\n                }"
+                : "(target, args) -> " + call;
+
+        source.append("        functionInfos.add(").append(CORE_PACKAGE).append("McpFunctionInfo.builder()\n")
+                .append("                .name(").append(literal(function.name())).append(")\n")
+                .append("                .description(").append(literal(function.description())).append(")\n")
+                .append("                .params(java.util.Arrays.asList(").append(params).append("))\n")
+                .append("                .parameterCount(").append(parameters.size()).append(")\n")
+                .append("                .progressReporterIndex(").append(progressReporterIndex).append(")\n")
+                .append("                .cancellationTokenIndex(").append(cancellationTokenIndex).append(")\n")
+                .append("                .async(").append(async).append(")\n")
+                .append("                .streaming(").append(streaming).append(")\n")
+                .append("                .inputSchema(").append(scalarParams ? literal(inputSchema.toJson()) : "null").append(")\n")
+                .append("                .maxConcurrency(").append(function.maxConcurrency()).append(")\n")
+                .append("                .maxWaiting(").append(function.maxWaiting()).append(")\n")
+                .append("                .cacheTtl(").append(function.cacheTtl()).append("L)\n")
+                .append("                .cacheMaxEntries(").append(function.cacheMaxEntries()).append(")\n")
+                .append("                .cacheKeys(").append(literal(function.cacheKeys())).append(")\n")
+                .append("                .coalesce(").append(function.coalesce()).append(")\n")
+                .append("                .timeout(").append(function.timeout()).append("L)\n")
+                .append("                .directInvoker(").append(invoker).append(")\n")
+                .append("                .build());\n");
+    }
+
+    /**
+     * 类型擦除后是否可赋值给指定类型, 指定类型不在编译类路径上时返回 false
+     */
+    private boolean isAssignableTo(TypeMirror type, String className) {
+        TypeElement target = processingEnv.getElementUtils().getTypeElement(className);
+        return target != null && type.getKind() == TypeKind.DECLARED && processingEnv.getTypeUtils()
+                .isAssignable(processingEnv.getTypeUtils().erasure(type), processingEnv.getTypeUtils().erasure(target.asType()));
+    }
+
+    /**
+     * 是否为可在生成代码中书写的泛型类型, 如 List<Long>; 含类型变量时只能使用擦除后的类型
+     */
+    private static boolean isParameterized(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return isParameterized(((ArrayType) type).getComponentType());
+        }
+        if (type.getKind() != TypeKind.DECLARED || ((DeclaredType) type).getTypeArguments().isEmpty()) {
+            return false;
+        }
+        return isConcrete(type);
+    }
+
+    private static boolean isConcrete(TypeMirror type) {
+        switch (type.getKind()) {
+            case TYPEVAR:
+            case INTERSECTION:
+            case UNION:
+            case ERROR:
+                return false;
+            case ARRAY:
+                return isConcrete(((ArrayType) type).getComponentType());
+            case WILDCARD:
+                WildcardType wildcard = (WildcardType) type;
+                return (wildcard.getExtendsBound() == null || isConcrete(wildcard.getExtendsBound()))
+                        && (wildcard.getSuperBound() == null || isConcrete(wildcard.getSuperBound()));
+            case DECLARED:
+                for (TypeMirror argument : ((DeclaredType) type).getTypeArguments()) {
+                    if (!isConcrete(argument)) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * 参数强制转换的目标类型, 基本类型转换为包装类型后自动拆箱
+     */
+    private String castType(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) type).getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+
+    private static String literal(double value) {
+        if (Double.isNaN(value)) {
+            return "Double.NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+        }
+        return value + "D";
+    }
+
+    private static String literal(String[] values) {
+        StringBuilder literal = new StringBuilder("new String[]{");
+        for (int i = 0; i < values.length; i++) {
+            literal.append(i > 0 ? ", " : "").append(literal(values[i]));
+        }
+        return literal.append('}').toString();
+    }
+
+    /**
+     * 生成Java字符串字面量, 非ASCII字符转义为 Unicode 形式, 与编译编码无关
+     */
+    private static String literal(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder literal = new StringBuilder(value.length() + 16).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    literal.append("\\\"");
+                    break;
+                case '\\':
+                    literal.append("\\\\");
+                    break;
+                case '\n':
+                    literal.append("\\n");
+                    break;
+                case '\r':
+                    literal.append("\\r");
+                    break;
+                case '\t':
+                    literal.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        literal.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        literal.append(c);
+                    }
+            }
+        }
+        return literal.append('"').toString();
+    }
+}
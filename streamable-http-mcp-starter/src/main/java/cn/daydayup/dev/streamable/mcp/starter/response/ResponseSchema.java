@@ -7,19 +7,69 @@ import java.util.Map;
 
 /**
  * @ClassName ResponseSchema
- * @Description 响应模式
+ * @Description 响应模式, 作为 tools/call 的 result(CallToolResult) 原样写出
+ * 内容值可以是 byte[]、InputStream、java.nio.file.Path、Reader、CharSequence 或返回它们的 Supplier(调用结束时取值), 写出时分块输出:
+ * text 字段输出为字符串, data、blob 等其他字段即时Base64编码. InputStream、Reader 只能写出一次, 此类结果不会被缓存
  * @Author ZhaoYanNing
  * @Date 2025/9/30 13:58
  * @Version 1.0
  */
 public class ResponseSchema extends HashMap<String, Object> {
 
-    public static ResponseSchema text(String text, boolean isError){
-        List<Map<String, Object>> result = new ArrayList<>();
+    public static ResponseSchema text(CharSequence text, boolean isError){
         Map<String, Object> textContent = new HashMap<>();
         textContent.put("type", "text");
         textContent.put("text", text);
-        result.add(textContent);
+        return of(textContent, isError);
+    }
+
+    /**
+     * 图片内容
+     *
+     * @param data     图片数据, byte[]、InputStream、Path 或返回它们的 Supplier
+     * @param mimeType 图片类型, 如 image/png
+     */
+    public static ResponseSchema image(Object data, String mimeType) {
+        Map<String, Object> imageContent = new HashMap<>();
+        imageContent.put("type", "image");
+        imageContent.put("data", data);
+        imageContent.put("mimeType", mimeType);
+        return of(imageContent, false);
+    }
+
+    /**
+     * 内嵌的二进制资源内容
+     *
+     * @param uri      资源URI
+     * @param mimeType 资源类型
+     * @param blob     资源数据, byte[]、InputStream、Path 或返回它们的 Supplier
+     */
+    public static ResponseSchema resource(String uri, String mimeType, Object blob) {
+        Map<String, Object> resource = new HashMap<>();
+        resource.put("uri", uri);
+        resource.put("mimeType", mimeType);
+        resource.put("blob", blob);
+        Map<String, Object> resourceContent = new HashMap<>();
+        resourceContent.put("type", "resource");
+        resourceContent.put("resource", resource);
+        return of(resourceContent, false);
+    }
+
+    /**
+     * 结构化结果, 写出时附带其JSON文本作为 text 内容
+     *
+     * @param structuredContent 序列化为JSON对象的结果, 如POJO或Map
+     */
+    public static ResponseSchema structured(Object structuredContent, boolean isError) {
+        ResponseSchema responseSchema = new ResponseSchema();
+        responseSchema.put("structuredContent", structuredContent);
+        responseSchema.put("isError", isError);
+        return responseSchema;
+    }
+
+    private static ResponseSchema of(Map<String, Object> content, boolean isError) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        result.add(content);
 
         ResponseSchema responseSchema = new ResponseSchema();
         responseSchema.put("content", result);
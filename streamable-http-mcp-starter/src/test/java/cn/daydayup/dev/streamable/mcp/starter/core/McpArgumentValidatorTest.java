@@ -0,0 +1,117 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+/**
+ * @ClassName McpArgumentValidatorTest
+ * @Description McpArgumentValidator 的单元测试: 类型转换规则、取值约束、违规路径与违规项上限
+ * @Author ZhaoYanNing
+ * @Date 2025/10/26 15:50
+ * @Version 1.0
+ */
+public class McpArgumentValidatorTest {
+
+    private static final String SCHEMA = "{\"type\":\"object\",\"properties\":{"
+            + "\"query\":{\"type\":\"string\",\"minLength\":1,\"maxLength\":5},"
+            + "\"limit\":{\"type\":\"integer\",\"minimum\":1,\"maximum\":10},"
+            + "\"mode\":{\"type\":\"string\",\"enum\":[\"fast\",\"slow\"]},"
+            + "\"tags\":{\"type\":\"array\",\"maxItems\":3,\"items\":{\"type\":\"string\"}},"
+            + "\"filter\":{\"type\":\"object\",\"properties\":{\"score\":{\"type\":\"number\"}},\"required\":[\"score\"]}"
+            + "},\"required\":[\"query\"]}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final McpArgumentValidator validator = McpArgumentValidator.compile(json(SCHEMA));
+
+    @Test
+    public void schemaWithoutPropertiesCompilesToNull() {
+        assertThat(McpArgumentValidator.compile(json("{\"type\":\"object\",\"properties\":{}}"))).isNull();
+    }
+
+    @Test
+    public void acceptsValidAndConvertibleArguments() {
+        validator.validate(json("{\"query\":\"abc\",\"limit\":3,\"mode\":\"fast\",\"tags\":[\"a\"],"
+                + "\"filter\":{\"score\":0.5}}"));
+        // 与参数绑定规则一致: 数值接受可转换的字符串, 字符串接受数字, null 视为未传入
+        validator.validate(json("{\"query\":12,\"limit\":\"7\",\"mode\":null,\"filter\":{\"score\":\"1.5\"}}"));
+        validator.validate(json("{\"query\":\"x\",\"limit\":4.0}"));
+    }
+
+    @Test
+    public void reportsEveryViolationWithPath() {
+        McpJsonRpcException e = violations("{\"limit\":11,\"mode\":\"medium\",\"tags\":[\"a\",{}],"
+                + "\"filter\":{}}");
+
+        assertThat(e.getCode()).isEqualTo(McpJsonRpcException.INVALID_PARAMS);
+        JsonNode items = e.getData().path("violations");
+        assertThat(items).hasSize(5);
+        assertThat(e.getMessage()).startsWith("参数校验失败: ")
+                .contains("query 缺少必需参数", "limit 不能大于 10", "mode 取值应为 [\"fast\",\"slow\"] 之一",
+                        "tags[1] 类型应为 string", "filter.score 缺少必需参数");
+    }
+
+    @Test
+    public void checksTypesAndLengths() {
+        assertThat(violations("{\"query\":\"\"}").getMessage()).contains("query 长度不能小于 1");
+        assertThat(violations("{\"query\":\"abcdef\"}").getMessage()).contains("query 长度不能大于 5");
+        assertThat(violations("{\"query\":\"a\",\"limit\":2.5}").getMessage()).contains("limit 类型应为 integer");
+        assertThat(violations("{\"query\":\"a\",\"limit\":\"abc\"}").getMessage()).contains("limit 类型应为 integer");
+        assertThat(violations("{\"query\":\"a\",\"limit\":0}").getMessage()).contains("limit 不能小于 1");
+        assertThat(violations("{\"query\":\"a\",\"tags\":[\"a\",\"b\",\"c\",\"d\"]}").getMessage())
+                .contains("tags 元素个数不能大于 3");
+        assertThat(violations("{\"query\":[]}").getMessage()).contains("query 类型应为 string");
+    }
+
+    @Test
+    public void countsCodePointsForLength() {
+        // 5 个补充平面字符, 占 10 个 char
+        validator.validate(json("{\"query\":\"\\uD83D\\uDE00\\uD83D\\uDE00\\uD83D\\uDE00\\uD83D\\uDE00\\uD83D\\uDE00\"}"));
+    }
+
+    @Test
+    public void missingArgumentsReportRequired() {
+        McpJsonRpcException e = catchThrowableOfType(() -> validator.validate(null), McpJsonRpcException.class);
+
+        assertThat(e.getData().path("violations").get(0).path("path").asText()).isEqualTo("query");
+        assertThat(e.getData().path("violations").get(0).path("message").asText()).isEqualTo("缺少必需参数");
+    }
+
+    @Test
+    public void limitsRecordedViolations() {
+        McpArgumentValidator numbers = McpArgumentValidator.compile(json("{\"type\":\"object\",\"properties\":{"
+                + "\"values\":{\"type\":\"array\",\"items\":{\"type\":\"integer\"}}}}"));
+        StringBuilder values = new StringBuilder("{\"values\":[");
+        for (int i = 0; i < 60; i++) {
+            values.append(i > 0 ? "," : "").append("\"x\"");
+        }
+        values.append("]}");
+
+        McpJsonRpcException e = catchThrowableOfType(() -> numbers.validate(json(values.toString())),
+                McpJsonRpcException.class);
+
+        assertThat(e.getData().path("violations")).hasSize(McpArgumentValidator.MAX_VIOLATIONS);
+        assertThat(e.getData().path("violations").get(49).path("path").asText()).isEqualTo("values[49]");
+    }
+
+    private McpJsonRpcException violations(String arguments) {
+        McpJsonRpcException e = catchThrowableOfType(() -> validator.validate(json(arguments)),
+                McpJsonRpcException.class);
+        assertThat(e).isNotNull();
+        return e;
+    }
+
+    private JsonNode json(String text) {
+        try {
+            return objectMapper.readTree(text);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
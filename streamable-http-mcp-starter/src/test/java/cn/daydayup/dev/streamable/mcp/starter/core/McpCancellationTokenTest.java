@@ -0,0 +1,143 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+/**
+ * @ClassName McpCancellationTokenTest
+ * @Description McpCancellationToken 的单元测试: 截止时间、取消回调、中断执行线程与合并执行的截止时间延长
+ * @Author ZhaoYanNing
+ * @Date 2025/10/26 15:30
+ * @Version 1.0
+ */
+public class McpCancellationTokenTest {
+
+    @Test
+    public void cancelsWhenDeadlinePasses() throws InterruptedException {
+        McpCancellationToken token = new McpCancellationToken(50);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        token.onCancel(cancelled::countDown);
+
+        assertThat(token.getRemainingMillis()).isBetween(0L, 50L);
+        assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(token.isCancelled()).isTrue();
+        assertThat(token.isTimedOut()).isTrue();
+        assertThat(token.getRemainingMillis()).isZero();
+        McpJsonRpcException e = catchThrowableOfType(token::throwIfCancelled, McpJsonRpcException.class);
+        assertThat(e.getCode()).isEqualTo(McpJsonRpcException.REQUEST_TIMEOUT);
+    }
+
+    @Test
+    public void closedTokenDoesNotTimeOut() throws InterruptedException {
+        McpCancellationToken token = new McpCancellationToken(30);
+        token.close();
+
+        Thread.sleep(80);
+
+        assertThat(token.isCancelled()).isFalse();
+    }
+
+    @Test
+    public void tokenWithoutTimeoutHasNoDeadline() {
+        McpCancellationToken token = new McpCancellationToken(0);
+
+        assertThat(token.getRemainingMillis()).isEqualTo(Long.MAX_VALUE);
+        assertThat(token.getDeadlineNanos()).isZero();
+        assertThat(token.isCancelled()).isFalse();
+    }
+
+    @Test
+    public void callbacksRunOnceAndImmediatelyAfterCancel() {
+        McpCancellationToken token = new McpCancellationToken(0);
+        AtomicInteger calls = new AtomicInteger();
+        token.onCancel(calls::incrementAndGet);
+
+        assertThat(token.cancel("客户端取消")).isTrue();
+        assertThat(token.cancel("再次取消")).isFalse();
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(token.getReason()).isEqualTo("客户端取消");
+        assertThat(token.isTimedOut()).isFalse();
+
+        token.onCancel(calls::incrementAndGet);
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void cancelInterruptsRunningCallAndClearsInterrupt() throws InterruptedException {
+        McpCancellationToken token = new McpCancellationToken(0);
+        CountDownLatch started = new CountDownLatch(1);
+        Throwable[] error = new Throwable[1];
+        boolean[] interruptedAfterRun = new boolean[1];
+        Thread runner = new Thread(() -> {
+            try {
+                token.run(() -> {
+                    started.countDown();
+                    Thread.sleep(10000);
+                    return null;
+                });
+            } catch (Throwable e) {
+                error[0] = e;
+            }
+            interruptedAfterRun[0] = Thread.currentThread().isInterrupted();
+        });
+        runner.start();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        token.cancel("客户端取消");
+        runner.join(5000);
+
+        assertThat(runner.isAlive()).isFalse();
+        assertThat(error[0]).isInstanceOf(McpJsonRpcException.class);
+        assertThat(((McpJsonRpcException) error[0]).getCode()).isEqualTo(McpJsonRpcException.REQUEST_CANCELLED);
+        assertThat(interruptedAfterRun[0]).isFalse();
+    }
+
+    @Test
+    public void runRefusesCancelledToken() {
+        McpCancellationToken token = new McpCancellationToken(0);
+        token.cancel("客户端取消");
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> token.run(calls::incrementAndGet)).isInstanceOf(McpJsonRpcException.class);
+        assertThat(calls.get()).isZero();
+    }
+
+    @Test
+    public void noneTokenIgnoresCallbacksAndCancel() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+
+        McpCancellationToken.NONE.onCancel(calls::incrementAndGet);
+
+        assertThat(McpCancellationToken.NONE.cancel("客户端取消")).isFalse();
+        assertThat(McpCancellationToken.NONE.isCancelled()).isFalse();
+        assertThat(calls.get()).isZero();
+        assertThat(McpCancellationToken.NONE.run(() -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    public void sharedDeadlineOnlyExtends() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        McpCancellationToken shared = McpCancellationToken.forSharedCall(deadline);
+
+        shared.extendDeadline(deadline - TimeUnit.SECONDS.toNanos(5));
+        assertThat(shared.getDeadlineNanos()).isEqualTo(deadline);
+
+        shared.extendDeadline(deadline + TimeUnit.SECONDS.toNanos(5));
+        assertThat(shared.getDeadlineNanos()).isEqualTo(deadline + TimeUnit.SECONDS.toNanos(5));
+
+        shared.extendDeadline(0);
+        assertThat(shared.getDeadlineNanos()).isZero();
+        assertThat(shared.getRemainingMillis()).isEqualTo(Long.MAX_VALUE);
+
+        shared.extendDeadline(deadline);
+        assertThat(shared.getDeadlineNanos()).isZero();
+    }
+}
@@ -0,0 +1,206 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @ClassName McpCompressingResponseTest
+ * @Description McpCompressingResponse 的单元测试: 压缩阈值、gzip/deflate 输出、SSE分块压缩、reset 与写出失败
+ * @Author ZhaoYanNing
+ * @Date 2025/10/27 10:00
+ * @Version 1.0
+ */
+public class McpCompressingResponseTest {
+
+    private static final String LARGE = repeat("{\"type\":\"text\",\"text\":\"hello\"},", 200);
+
+    @Test
+    public void smallBodyIsWrittenAsIs() throws IOException {
+        MockHttpServletResponse target = new MockHttpServletResponse();
+        McpCompressingResponse response = new McpCompressingResponse(target, McpContentEncoding.GZIP, 1024);
+
+        response.getOutputStream().write(bytes("{\"ok\":true}"));
+        response.finish();
+
+        assertThat(target.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(target.getContentLength()).isEqualTo(11);
+        assertThat(target.getContentAsString()).isEqualTo("{\"ok\":true}");
+    }
+
+    @Test
+    public void largeBodyIsGzipped() throws IOException {
+        MockHttpServletResponse target = new MockHttpServletResponse();
+        McpCompressingResponse response = new McpCompressingResponse(target, McpContentEncoding.GZIP, 1024);
+
+        response.getOutputStream().write(bytes(LARGE));
+        response.finish();
+
+        assertThat(target.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(target.getContentAsByteArray().length).isLessThan(LARGE.length());
+        assertThat(text(new GZIPInputStream(new ByteArrayInputStream(target.getContentAsByteArray())))).isEqualTo(LARGE);
+    }
+
+    @Test
+    public void knownLargeContentLengthIsDeflatedWithoutLength() throws IOException {
+        MockHttpServletResponse target = new MockHttpServletResponse();
+        McpCompressingResponse response = new McpCompressingResponse(target, McpContentEncoding.DEFLATE, 1024);
+
+        response.setContentLength(LARGE.length());
+        response.getOutputStream().write(bytes(LARGE));
+        response.finish();
+
+        assertThat(target.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("deflate");
+        assertThat(target.getHeader(HttpHeaders.CONTENT_LENGTH)).isNull();
+        assertThat(text(new InflaterInputStream(new ByteArrayInputStream(target.getContentAsByteArray())))).isEqualTo(LARGE);
+    }
+
+    @Test
+    public void eventStreamFlushEmitsDecodableBlocks() throws IOException {
+        MockHttpServletResponse target = new MockHttpServletResponse();
+        McpCompressingResponse response = new McpCompressingResponse(target, McpContentEncoding.GZIP, 1024);
+        response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+
+        response.getOutputStream().write(bytes("event: message\ndata: {}\n\n"));
+        response.getOutputStream().flush();
+
+        // 首个事件在 finish 之前即可完整解压
+        byte[] flushed = target.getContentAsByteArray();
+        assertThat(flushed).isNotEmpty();
+        byte[] inflated = new byte[64];
+        int n = new GZIPInputStream(new ByteArrayInputStream(flushed)).read(inflated);
+        assertThat(new String(inflated, 0, n, StandardCharsets.UTF_8)).isEqualTo("event: message\ndata: {}\n\n");
+
+        response.getOutputStream().write(bytes("event: message\ndata: []\n\n"));
+        response.finish();
+
+        assertThat(text(new GZIPInputStream(new ByteArrayInputStream(target.getContentAsByteArray()))))
+                .isEqualTo("event: message\ndata: {}\n\nevent: message\ndata: []\n\n");
+    }
+
+    @Test
+    public void resetDiscardsCompressedOutput() throws IOException {
+        MockHttpServletResponse target = new MockHttpServletResponse();
+        McpCompressingResponse response = new McpCompressingResponse(target, McpContentEncoding.GZIP, 1024);
+        response.getOutputStream().write(bytes(LARGE));
+
+        response.reset();
+        response.getOutputStream().write(bytes("{}"));
+        response.finish();
+
+        assertThat(target.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(target.getContentAsString()).isEqualTo("{}");
+    }
+
+    @Test
+    public void failedWriteEndsCompression() throws IOException {
+        MockHttpServletResponse target = new MockHttpServletResponse() {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return new BrokenOutputStream();
+            }
+        };
+        McpCompressingResponse response = new McpCompressingResponse(target, McpContentEncoding.GZIP, 16);
+
+        assertThatThrownBy(() -> {
+            for (int i = 0; i < 100; i++) {
+                response.getOutputStream().write(bytes(LARGE));
+            }
+        }).isInstanceOf(IOException.class).hasMessage("连接已断开");
+
+        assertThatThrownBy(() -> response.getOutputStream().write(bytes("{}")))
+                .isInstanceOf(IOException.class).hasMessage("响应写出已失败");
+        response.finish();
+    }
+
+    @Test
+    public void writeListenerSwitchesToIdentity() throws IOException {
+        MockHttpServletResponse target = new MockHttpServletResponse() {
+            private final ServletOutputStream out = new ServletOutputStream() {
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                }
+
+                @Override
+                public void write(int b) throws IOException {
+                    delegate().write(b);
+                }
+            };
+
+            private ServletOutputStream delegate() throws IOException {
+                return super.getOutputStream();
+            }
+
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return out;
+            }
+        };
+        McpCompressingResponse response = new McpCompressingResponse(target, McpContentEncoding.GZIP, 16);
+
+        response.getOutputStream().setWriteListener(null);
+        response.getOutputStream().write(bytes(LARGE));
+        response.finish();
+
+        assertThat(response.getOutputStream().isReady()).isTrue();
+        assertThat(target.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(target.getContentAsString()).isEqualTo(LARGE);
+    }
+
+    private static String repeat(String text, int times) {
+        StringBuilder builder = new StringBuilder(text.length() * times);
+        for (int i = 0; i < times; i++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(InputStream in) throws IOException {
+        return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+    }
+
+    private static class BrokenOutputStream extends ServletOutputStream {
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            throw new IOException("连接已断开");
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            throw new IOException("连接已断开");
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import org.junit.Test;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @ClassName McpContentEncodingTest
+ * @Description McpContentEncoding 的单元测试: Accept-Encoding 协商与请求体解码的大小上限
+ * @Author ZhaoYanNing
+ * @Date 2025/10/27 10:20
+ * @Version 1.0
+ */
+public class McpContentEncodingTest {
+
+    @Test
+    public void negotiatesByQuality() {
+        assertThat(McpContentEncoding.negotiate(null)).isNull();
+        assertThat(McpContentEncoding.negotiate("br")).isNull();
+        assertThat(McpContentEncoding.negotiate("gzip, deflate")).isEqualTo("gzip");
+        assertThat(McpContentEncoding.negotiate("gzip;q=0.5, deflate")).isEqualTo("deflate");
+        assertThat(McpContentEncoding.negotiate("gzip;q=0, deflate;q=0")).isNull();
+        assertThat(McpContentEncoding.negotiate("*")).isEqualTo("gzip");
+        assertThat(McpContentEncoding.negotiate("gzip;q=0, *")).isEqualTo("deflate");
+        assertThat(McpContentEncoding.negotiate("x-gzip")).isEqualTo("gzip");
+    }
+
+    @Test
+    public void decodesSupportedEncodings() throws IOException {
+        byte[] body = "{\"jsonrpc\":\"2.0\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(read(McpContentEncoding.decode(new ByteArrayInputStream(gzip(body)), "gzip", 1024))).isEqualTo(body);
+        assertThat(read(McpContentEncoding.decode(new ByteArrayInputStream(deflate(body)), "deflate", 1024))).isEqualTo(body);
+        InputStream plain = new ByteArrayInputStream(body);
+        assertThat(McpContentEncoding.decode(plain, null, 1024)).isSameAs(plain);
+        assertThat(McpContentEncoding.decode(plain, "identity", 1024)).isSameAs(plain);
+        assertThat(McpContentEncoding.decode(plain, "br", 1024)).isNull();
+    }
+
+    @Test
+    public void rejectsBodiesOverLimitAfterDecoding() throws IOException {
+        byte[] body = new byte[64 * 1024];
+
+        InputStream decoded = McpContentEncoding.decode(new ByteArrayInputStream(gzip(body)), "gzip", 1024);
+
+        assertThatThrownBy(() -> read(decoded)).isInstanceOf(McpContentEncoding.PayloadTooLargeException.class);
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        return StreamUtils.copyToByteArray(in);
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out)) {
+            deflate.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,105 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+/**
+ * @ClassName McpJsonCodecTest
+ * @Description McpJsonCodec 的单元测试: 单个与批量请求的流式解析、解析错误码与响应写出
+ * @Author ZhaoYanNing
+ * @Date 2025/10/27 11:00
+ * @Version 1.0
+ */
+public class McpJsonCodecTest {
+
+    private final McpJsonCodec codec = McpJsonCodec.shared();
+
+    @Test
+    public void readsSingleRequestAndSkipsUnknownFields() throws IOException {
+        McpJsonRpcMessage message = read("{\"jsonrpc\":\"2.0\",\"extra\":{\"a\":[1,2]},\"id\":7,\"method\":\"tools/call\","
+                + "\"params\":{\"name\":\"echo\",\"arguments\":{\"text\":\"hi\"}}}");
+
+        assertThat(message.isBatch()).isFalse();
+        McpJsonRpcRequest request = message.getRequests().get(0);
+        assertThat(request.getId()).isEqualTo(IntNode.valueOf(7));
+        assertThat(request.getMethod()).isEqualTo("tools/call");
+        assertThat(request.getParams().path("arguments").path("text").asText()).isEqualTo("hi");
+        assertThat(request.isNotification()).isFalse();
+    }
+
+    @Test
+    public void readsBatchWithNotificationsAndInvalidEntries() throws IOException {
+        McpJsonRpcMessage message = read("[{\"jsonrpc\":\"2.0\",\"id\":\"a\",\"method\":\"ping\"},"
+                + "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"},1,{\"id\":2}]");
+
+        assertThat(message.isBatch()).isTrue();
+        assertThat(message.getRequests()).hasSize(4);
+        assertThat(message.getRequests().get(0).getId()).isEqualTo(TextNode.valueOf("a"));
+        assertThat(message.getRequests().get(1).isNotification()).isTrue();
+        assertThat(message.getRequests().get(2).isInvalid()).isTrue();
+        assertThat(message.getRequests().get(3).isInvalid()).isTrue();
+        assertThat(message.getRequests().get(3).getId()).isEqualTo(IntNode.valueOf(2));
+    }
+
+    @Test
+    public void nonStringMethodIsInvalidAndKeepsId() throws IOException {
+        for (String method : new String[]{"{\"x\":1}", "[\"ping\"]", "3", "null"}) {
+            McpJsonRpcRequest request = read("{\"id\":5,\"method\":" + method + ",\"params\":{}}").getRequests().get(0);
+
+            assertThat(request.isInvalid()).as(method).isTrue();
+            assertThat(request.getId()).isEqualTo(IntNode.valueOf(5));
+        }
+    }
+
+    @Test
+    public void malformedOrEmptyBodyIsParseError() {
+        for (String body : new String[]{"", "   ", "{\"id\":1,", "{id:1}", "garbage", "[{\"id\":1}"}) {
+            McpJsonRpcException e = catchThrowableOfType(() -> read(body), McpJsonRpcException.class);
+
+            assertThat(e).as(body).isNotNull();
+            assertThat(e.getCode()).as(body).isEqualTo(McpJsonRpcException.PARSE_ERROR);
+        }
+    }
+
+    @Test
+    public void scalarBodyIsInvalidRequest() {
+        for (String body : new String[]{"1", "\"ping\"", "true", "null"}) {
+            McpJsonRpcException e = catchThrowableOfType(() -> read(body), McpJsonRpcException.class);
+
+            assertThat(e.getCode()).as(body).isEqualTo(McpJsonRpcException.INVALID_REQUEST);
+        }
+    }
+
+    @Test
+    public void writesResultAndError() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = codec.createGenerator(out)) {
+            generator.writeStartArray();
+            codec.writeResult(generator, IntNode.valueOf(1), g -> g.writeString("ok"));
+            codec.writeError(generator, TextNode.valueOf("b"), McpJsonRpcException.INVALID_PARAMS, "参数错误",
+                    JsonNodeFactory.instance.objectNode().put("field", "q"));
+            generator.writeEndArray();
+        }
+
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(
+                "[{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"ok\"},"
+                        + "{\"jsonrpc\":\"2.0\",\"id\":\"b\",\"error\":{\"code\":-32602,\"message\":\"参数错误\",\"data\":{\"field\":\"q\"}}}]");
+        assertThat(codec.writeNotificationAsString("notifications/tools/list_changed", null))
+                .isEqualTo("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/tools/list_changed\"}");
+    }
+
+    private McpJsonRpcMessage read(String body) throws IOException {
+        return codec.readMessage(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
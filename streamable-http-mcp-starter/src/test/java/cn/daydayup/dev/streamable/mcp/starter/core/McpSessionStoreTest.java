@@ -0,0 +1,113 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @ClassName McpSessionStoreTest
+ * @Description McpSessionStore 的单元测试: 创建与读取、空闲过期、会话数上限与会话结束回调
+ * @Author ZhaoYanNing
+ * @Date 2025/10/26 15:40
+ * @Version 1.0
+ */
+public class McpSessionStoreTest {
+
+    private static final String ENDPOINT = "/mcp/test";
+
+    private McpSessionStore store;
+
+    @After
+    public void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    public void createdSessionIsBoundToEndpoint() throws Exception {
+        store = new McpSessionStore(60000, 10);
+        McpSession session = store.create(ENDPOINT, new ObjectMapper().readTree(
+                "{\"protocolVersion\":\"2025-03-26\",\"clientInfo\":{\"name\":\"client\"}}"));
+
+        assertThat(session.getProtocolVersion()).isEqualTo("2025-03-26");
+        assertThat(session.getClientName()).isEqualTo("client");
+        assertThat(store.get(ENDPOINT, session.getId())).isSameAs(session);
+        assertThat(store.get("/mcp/other", session.getId())).isNull();
+        assertThat(store.remove("/mcp/other", session.getId())).isFalse();
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void rejectsNewSessionsAtCapacity() {
+        store = new McpSessionStore(60000, 1);
+        McpSession first = store.create(ENDPOINT, null);
+
+        assertThat(store.create(ENDPOINT, null)).isNull();
+        assertThat(store.size()).isEqualTo(1);
+
+        assertThat(store.remove(ENDPOINT, first.getId())).isTrue();
+        assertThat(store.create(ENDPOINT, null)).isNotNull();
+    }
+
+    @Test
+    public void idleSessionExpires() throws InterruptedException {
+        store = new McpSessionStore(50, 10);
+        McpSession session = store.create(ENDPOINT, null);
+        AtomicInteger closed = new AtomicInteger();
+        session.onClose(closed::incrementAndGet);
+
+        Thread.sleep(100);
+
+        assertThat(store.get(ENDPOINT, session.getId())).isNull();
+        assertThat(store.size()).isZero();
+        assertThat(closed.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void evictExpiredRemovesOnlyIdleSessions() throws InterruptedException {
+        store = new McpSessionStore(60000, 10);
+        McpSession session = store.create(ENDPOINT, null);
+
+        assertThat(store.evictExpired()).isZero();
+        assertThat(store.get(ENDPOINT, session.getId())).isSameAs(session);
+
+        McpSessionStore shortLived = new McpSessionStore(50, 10);
+        try {
+            shortLived.create(ENDPOINT, null);
+            shortLived.create(ENDPOINT, null);
+            Thread.sleep(100);
+
+            assertThat(shortLived.evictExpired()).isEqualTo(2);
+            assertThat(shortLived.size()).isZero();
+        } finally {
+            shortLived.close();
+        }
+    }
+
+    @Test
+    public void removeRunsCloseCallbacksOnce() {
+        store = new McpSessionStore(60000, 10);
+        McpSession session = store.create(ENDPOINT, null);
+        AtomicInteger closed = new AtomicInteger();
+        AtomicInteger removed = new AtomicInteger();
+        Runnable removedCallback = removed::incrementAndGet;
+        session.onClose(closed::incrementAndGet);
+        session.onClose(removedCallback);
+        session.removeOnClose(removedCallback);
+
+        assertThat(store.remove(ENDPOINT, session.getId())).isTrue();
+        assertThat(store.remove(ENDPOINT, session.getId())).isFalse();
+
+        assertThat(closed.get()).isEqualTo(1);
+        assertThat(removed.get()).isZero();
+
+        // 会话结束后注册的回调立即执行
+        session.onClose(closed::incrementAndGet);
+        assertThat(closed.get()).isEqualTo(2);
+    }
+}
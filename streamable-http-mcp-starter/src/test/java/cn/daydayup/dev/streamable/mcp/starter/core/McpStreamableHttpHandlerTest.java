@@ -0,0 +1,398 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import cn.daydayup.dev.streamable.mcp.starter.annotation.McpFunction;
+import cn.daydayup.dev.streamable.mcp.starter.annotation.McpParam;
+import cn.daydayup.dev.streamable.mcp.starter.annotation.McpServerEndpoint;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @ClassName McpStreamableHttpHandlerTest
+ * @Description McpStreamableHttpHandler 的端到端测试: 经由真实的Servlet容器发送JSON-RPC请求并校验响应
+ * @Author ZhaoYanNing
+ * @Date 2025/10/27 11:30
+ * @Version 1.0
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "mcp.server.async.timeout=1s", "mcp.server.compression.max-request-size=64KB"})
+public class McpStreamableHttpHandlerTest {
+
+    private static final String PATH = "/mcp/test";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    public void malformedBodyIsParseError() throws IOException {
+        ResponseEntity<byte[]> response = post("{\"jsonrpc\":\"2.0\",\"id\":1,");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        JsonNode body = json(response);
+        assertThat(body.path("id").isNull()).isTrue();
+        assertThat(body.path("error").path("code").asInt()).isEqualTo(McpJsonRpcException.PARSE_ERROR);
+    }
+
+    @Test
+    public void emptyBodyIsParseError() throws IOException {
+        ResponseEntity<byte[]> response = post(" ");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(json(response).path("error").path("code").asInt()).isEqualTo(McpJsonRpcException.PARSE_ERROR);
+    }
+
+    @Test
+    public void scalarBodyIsInvalidRequest() throws IOException {
+        ResponseEntity<byte[]> response = post("42");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(json(response).path("error").path("code").asInt()).isEqualTo(McpJsonRpcException.INVALID_REQUEST);
+    }
+
+    @Test
+    public void nonStringMethodIsInvalidRequestWithId() throws IOException {
+        String sessionId = initialize();
+
+        ResponseEntity<byte[]> response = post("{\"jsonrpc\":\"2.0\",\"id\":9,\"method\":{\"name\":\"ping\"}}", sessionId);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        JsonNode body = json(response);
+        assertThat(body.path("id").asInt()).isEqualTo(9);
+        assertThat(body.path("error").path("code").asInt()).isEqualTo(McpJsonRpcException.INVALID_REQUEST);
+    }
+
+    @Test
+    public void callToolWritesResult() throws IOException {
+        String sessionId = initialize();
+
+        ResponseEntity<byte[]> response = post("{\"jsonrpc\":\"2.0\",\"id\":\"call-1\",\"method\":\"tools/call\","
+                + "\"params\":{\"name\":\"echo\",\"arguments\":{\"text\":\"你好\\n\\\"MCP\\\"\"}}}", sessionId);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        JsonNode body = json(response);
+        assertThat(body.path("id").asText()).isEqualTo("call-1");
+        assertThat(body.path("result").path("content").path(0).path("text").asText()).isEqualTo("你好\n\"MCP\"");
+    }
+
+    @Test
+    public void callToolStreamsLargeAndStructuredResults() throws IOException {
+        String sessionId = initialize();
+
+        ResponseEntity<byte[]> response = post("[{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/call\","
+                + "\"params\":{\"name\":\"repeat\",\"arguments\":{\"text\":\"文本\",\"times\":100000}}},"
+                + "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/call\","
+                + "\"params\":{\"name\":\"describe\",\"arguments\":{\"text\":\"a\\\"b\"}}}]", sessionId);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        JsonNode body = json(response);
+        assertThat(body.path(0).path("result").path("content").path(0).path("text").asText()).hasSize(200000);
+        JsonNode structured = body.path(1).path("result").path("structuredContent");
+        assertThat(structured.path("text").asText()).isEqualTo("a\"b");
+        assertThat(structured.path("length").asInt()).isEqualTo(3);
+        assertThat(objectMapper.readTree(body.path(1).path("result").path("content").path(0).path("text").asText()))
+                .isEqualTo(structured);
+    }
+
+    @Test
+    public void batchAnswersInRequestOrderAndSkipsNotifications() throws IOException {
+        String sessionId = initialize();
+
+        ResponseEntity<byte[]> response = post("[{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/call\","
+                + "\"params\":{\"name\":\"echo\",\"arguments\":{\"text\":\"a\"}}},"
+                + "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"},"
+                + "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"ping\"},"
+                + "7,"
+                + "{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"tools/call\","
+                + "\"params\":{\"name\":\"echo\",\"arguments\":{\"text\":\"b\"}}}]", sessionId);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        JsonNode body = json(response);
+        assertThat(body.isArray()).isTrue();
+        assertThat(body).hasSize(4);
+        assertThat(body.path(0).path("id").asInt()).isEqualTo(1);
+        assertThat(body.path(0).path("result").path("content").path(0).path("text").asText()).isEqualTo("a");
+        assertThat(body.path(1).path("id").asInt()).isEqualTo(2);
+        assertThat(body.path(1).has("result")).isTrue();
+        assertThat(body.path(2).path("id").isNull()).isTrue();
+        assertThat(body.path(2).path("error").path("code").asInt()).isEqualTo(McpJsonRpcException.INVALID_REQUEST);
+        assertThat(body.path(3).path("id").asInt()).isEqualTo(3);
+        assertThat(body.path(3).path("result").path("content").path(0).path("text").asText()).isEqualTo("b");
+    }
+
+    @Test
+    public void batchOfNotificationsIsAccepted() {
+        String sessionId = initialize();
+
+        ResponseEntity<byte[]> response = post("[{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}]", sessionId);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(response.getBody()).isNullOrEmpty();
+    }
+
+    @Test
+    public void emptyBatchIsInvalidRequest() throws IOException {
+        String sessionId = initialize();
+
+        ResponseEntity<byte[]> response = post("[]", sessionId);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(json(response).path("error").path("code").asInt()).isEqualTo(McpJsonRpcException.INVALID_REQUEST);
+    }
+
+    @Test
+    public void progressReportingToolStreamsEvents() {
+        String sessionId = initialize();
+        HttpHeaders headers = headers(sessionId);
+        headers.set(HttpHeaders.ACCEPT, "application/json, text/event-stream");
+
+        ResponseEntity<byte[]> response = post("{\"jsonrpc\":\"2.0\",\"id\":4,\"method\":\"tools/call\",\"params\":"
+                + "{\"name\":\"steps\",\"arguments\":{\"n\":3},\"_meta\":{\"progressToken\":\"p1\"}}}", headers);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType().isCompatibleWith(MediaType.TEXT_EVENT_STREAM)).isTrue();
+        String events = new String(response.getBody(), StandardCharsets.UTF_8);
+        assertThat(events).contains("\"method\":\"notifications/progress\"", "\"progressToken\":\"p1\"",
+                "\"progress\":1.0", "\"progress\":3.0", "\"total\":3.0");
+        assertThat(events).contains("\"method\":\"notifications/message\"", "\"text\":\"s0;\"", "\"text\":\"s2;\"");
+        assertThat(events).endsWith("\"id\":4,\"result\":{\"content\":[{\"type\":\"text\",\"text\":\"s0;s1;s2;\"}]}}\n\n");
+        assertThat(events.indexOf("\"progress\":3.0")).isLessThan(events.indexOf("\"id\":4"));
+    }
+
+    @Test
+    public void progressReportingToolAnswersJsonWithoutEventStreamAccept() throws IOException {
+        String sessionId = initialize();
+
+        ResponseEntity<byte[]> response = post("{\"jsonrpc\":\"2.0\",\"id\":5,\"method\":\"tools/call\",\"params\":"
+                + "{\"name\":\"steps\",\"arguments\":{\"n\":2},\"_meta\":{\"progressToken\":\"p2\"}}}", sessionId);
+
+        assertThat(response.getHeaders().getContentType().isCompatibleWith(MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(json(response).path("result").path("content").path(0).path("text").asText()).isEqualTo("s0;s1;");
+    }
+
+    @Test
+    public void asyncTimeoutAnswersRequestTimeout() throws IOException {
+        String sessionId = initialize();
+        long start = System.nanoTime();
+
+        ResponseEntity<byte[]> response = post("{\"jsonrpc\":\"2.0\",\"id\":6,\"method\":\"tools/call\","
+                + "\"params\":{\"name\":\"sleep\",\"arguments\":{\"millis\":10000}}}", sessionId);
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5000);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        JsonNode body = json(response);
+        assertThat(body.path("id").asInt()).isEqualTo(6);
+        assertThat(body.path("error").path("code").asInt()).isEqualTo(McpJsonRpcException.REQUEST_TIMEOUT);
+    }
+
+    @Test
+    public void asyncTimeoutEndsEventStreamWithErrorEvent() {
+        String sessionId = initialize();
+        HttpHeaders headers = headers(sessionId);
+        headers.set(HttpHeaders.ACCEPT, "application/json, text/event-stream");
+
+        ResponseEntity<byte[]> response = post("{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"tools/call\",\"params\":"
+                + "{\"name\":\"steps\",\"arguments\":{\"n\":100,\"delay\":100}}}", headers);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String events = new String(response.getBody(), StandardCharsets.UTF_8);
+        assertThat(events).contains("\"text\":\"s0;\"");
+        assertThat(events).endsWith("\"id\":7,\"error\":{\"code\":" + McpJsonRpcException.REQUEST_TIMEOUT
+                + ",\"message\":\"请求处理超时\"}}\n\n");
+    }
+
+    @Test
+    public void largeResponseIsGzippedWhenAccepted() throws IOException {
+        String sessionId = initialize();
+        HttpHeaders headers = headers(sessionId);
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        ResponseEntity<byte[]> response = post("{\"jsonrpc\":\"2.0\",\"id\":8,\"method\":\"tools/call\","
+                + "\"params\":{\"name\":\"repeat\",\"arguments\":{\"text\":\"abc\",\"times\":10000}}}", headers);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(response.getHeaders().getVary()).contains(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(response.getBody().length).isLessThan(30000);
+        JsonNode body = objectMapper.readTree(new GZIPInputStream(new ByteArrayInputStream(response.getBody())));
+        assertThat(body.path("result").path("content").path(0).path("text").asText()).hasSize(30000);
+    }
+
+    @Test
+    public void smallResponseIsNotCompressed() throws IOException {
+        String sessionId = initialize();
+        HttpHeaders headers = headers(sessionId);
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        ResponseEntity<byte[]> response = post("{\"jsonrpc\":\"2.0\",\"id\":9,\"method\":\"ping\"}", headers);
+
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(json(response).path("id").asInt()).isEqualTo(9);
+    }
+
+    @Test
+    public void gzipRequestBodyIsDecoded() throws IOException {
+        String sessionId = initialize();
+        HttpHeaders headers = headers(sessionId);
+        headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        ResponseEntity<byte[]> response = post(gzip("{\"jsonrpc\":\"2.0\",\"id\":10,\"method\":\"tools/call\","
+                + "\"params\":{\"name\":\"echo\",\"arguments\":{\"text\":\"压缩\"}}}"), headers);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(json(response).path("result").path("content").path(0).path("text").asText()).isEqualTo("压缩");
+    }
+
+    @Test
+    public void oversizedDecodedBodyIsRejected() throws IOException {
+        String sessionId = initialize();
+        HttpHeaders headers = headers(sessionId);
+        headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            text.append('a');
+        }
+
+        ResponseEntity<byte[]> response = post(gzip("{\"jsonrpc\":\"2.0\",\"id\":11,\"method\":\"tools/call\","
+                + "\"params\":{\"name\":\"echo\",\"arguments\":{\"text\":\"" + text + "\"}}}"), headers);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    @Test
+    public void unsupportedRequestEncodingIsRejected() {
+        String sessionId = initialize();
+        HttpHeaders headers = headers(sessionId);
+        headers.set(HttpHeaders.CONTENT_ENCODING, "br");
+
+        ResponseEntity<byte[]> response = post("{\"jsonrpc\":\"2.0\",\"id\":12,\"method\":\"ping\"}", headers);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+    }
+
+    private String initialize() {
+        ResponseEntity<byte[]> response = post("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{}}");
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return response.getHeaders().getFirst("Mcp-Session-Id");
+    }
+
+    private ResponseEntity<byte[]> post(String body) {
+        return post(body, headers(null));
+    }
+
+    private ResponseEntity<byte[]> post(String body, String sessionId) {
+        return post(body, headers(sessionId));
+    }
+
+    private ResponseEntity<byte[]> post(String body, HttpHeaders headers) {
+        return post(body.getBytes(StandardCharsets.UTF_8), headers);
+    }
+
+    private ResponseEntity<byte[]> post(byte[] body, HttpHeaders headers) {
+        return restTemplate.postForEntity(PATH, new HttpEntity<>(body, headers), byte[].class);
+    }
+
+    private static byte[] gzip(String body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static HttpHeaders headers(String sessionId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (sessionId != null) {
+            headers.set("Mcp-Session-Id", sessionId);
+        }
+        return headers;
+    }
+
+    private JsonNode json(ResponseEntity<byte[]> response) throws IOException {
+        return objectMapper.readTree(response.getBody());
+    }
+
+    @Configuration
+    @EnableAutoConfiguration
+    @Import(TestEndpoint.class)
+    static class TestConfiguration {
+    }
+
+    @McpServerEndpoint(path = PATH, name = "test", version = "1.0")
+    public static class TestEndpoint {
+
+        @McpFunction(name = "echo", description = "原样返回文本")
+        public String echo(@McpParam(name = "text", description = "文本") String text) {
+            return text;
+        }
+
+        @McpFunction(name = "repeat", description = "将文本重复指定次数")
+        public CharSequence repeat(@McpParam(name = "text", description = "文本") String text,
+                                   @McpParam(name = "times", description = "次数") Integer times) {
+            StringBuilder result = new StringBuilder(text.length() * times);
+            for (int i = 0; i < times; i++) {
+                result.append(text);
+            }
+            return result;
+        }
+
+        @McpFunction(name = "describe", description = "返回文本及其长度")
+        public Map<String, Object> describe(@McpParam(name = "text", description = "文本") String text) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("text", text);
+            result.put("length", text.length());
+            return result;
+        }
+
+        @McpFunction(name = "steps", description = "逐步执行并推送进度")
+        public String steps(@McpParam(name = "n", description = "步数") Integer n,
+                            @McpParam(name = "delay", description = "每步耗时(毫秒)") Integer delay,
+                            McpProgressReporter progressReporter) throws InterruptedException {
+            StringBuilder result = new StringBuilder();
+            for (int i = 0; i < n; i++) {
+                if (delay != null) {
+                    Thread.sleep(delay);
+                }
+                String step = "s" + i + ";";
+                progressReporter.partial(step);
+                progressReporter.progress(i + 1, (double) n, null);
+                result.append(step);
+            }
+            return result.toString();
+        }
+
+        @McpFunction(name = "sleep", description = "等待指定时长")
+        public String sleep(@McpParam(name = "millis", description = "时长(毫秒)") Integer millis) throws InterruptedException {
+            Thread.sleep(millis);
+            return "done";
+        }
+    }
+}
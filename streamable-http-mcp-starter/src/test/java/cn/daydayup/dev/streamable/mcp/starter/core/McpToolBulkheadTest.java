@@ -0,0 +1,119 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+/**
+ * @ClassName McpToolBulkheadTest
+ * @Description McpToolBulkhead 的单元测试: 排队、满载拒绝、排队期间取消与线程池拒绝
+ * @Author ZhaoYanNing
+ * @Date 2025/10/26 15:00
+ * @Version 1.0
+ */
+public class McpToolBulkheadTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    @Test
+    public void queuedCallStartsWhenRunningCallCompletes() {
+        McpToolBulkhead bulkhead = new McpToolBulkhead(1, 1);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        AtomicInteger secondStarts = new AtomicInteger();
+
+        CompletableFuture<String> firstResult = bulkhead.submit(() -> first, McpCancellationToken.NONE, DIRECT);
+        CompletableFuture<String> secondResult = bulkhead.submit(() -> {
+            secondStarts.incrementAndGet();
+            return CompletableFuture.completedFuture("second");
+        }, McpCancellationToken.NONE, DIRECT);
+
+        assertThat(secondStarts.get()).isZero();
+        assertThat(bulkhead.getWaitingCount()).isEqualTo(1);
+
+        first.complete("first");
+
+        assertThat(firstResult.join()).isEqualTo("first");
+        assertThat(secondResult.join()).isEqualTo("second");
+        assertThat(secondStarts.get()).isEqualTo(1);
+        assertThat(bulkhead.getWaitingCount()).isZero();
+    }
+
+    @Test
+    public void rejectsWhenRunningAndWaitingAreFull() {
+        McpToolBulkhead bulkhead = new McpToolBulkhead(1, 1);
+        bulkhead.submit(CompletableFuture::new, McpCancellationToken.NONE, DIRECT);
+        bulkhead.submit(CompletableFuture::new, McpCancellationToken.NONE, DIRECT);
+
+        McpJsonRpcException e = catchThrowableOfType(
+                () -> bulkhead.submit(CompletableFuture::new, McpCancellationToken.NONE, DIRECT), McpJsonRpcException.class);
+        assertThat(e.getCode()).isEqualTo(McpJsonRpcException.SERVER_BUSY);
+    }
+
+    @Test
+    public void cancelledWhileQueuedNeverStarts() {
+        McpToolBulkhead bulkhead = new McpToolBulkhead(1, 1);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        AtomicInteger queuedStarts = new AtomicInteger();
+        McpCancellationToken token = new McpCancellationToken(0);
+
+        bulkhead.submit(() -> first, McpCancellationToken.NONE, DIRECT);
+        CompletableFuture<String> queued = bulkhead.submit(() -> {
+            queuedStarts.incrementAndGet();
+            return CompletableFuture.completedFuture("queued");
+        }, token, DIRECT);
+
+        token.cancel("客户端取消");
+
+        assertThat(bulkhead.getWaitingCount()).isZero();
+        Throwable error = catchThrowable(queued::join);
+        assertThat(error.getCause()).isInstanceOf(McpJsonRpcException.class);
+        assertThat(((McpJsonRpcException) error.getCause()).getCode()).isEqualTo(McpJsonRpcException.REQUEST_CANCELLED);
+
+        first.complete("first");
+
+        assertThat(queuedStarts.get()).isZero();
+        // 取消的调用不占用名额, 后续调用立即启动
+        assertThat(bulkhead.submit(() -> CompletableFuture.completedFuture("next"), McpCancellationToken.NONE, DIRECT)
+                .join()).isEqualTo("next");
+    }
+
+    @Test
+    public void queuedCallEndsBusyWhenExecutorRejects() {
+        McpToolBulkhead bulkhead = new McpToolBulkhead(1, 1);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        Executor rejecting = command -> {
+            throw new RejectedExecutionException("full");
+        };
+
+        bulkhead.submit(() -> first, McpCancellationToken.NONE, DIRECT);
+        CompletableFuture<String> queued = bulkhead.submit(() -> CompletableFuture.completedFuture("queued"),
+                McpCancellationToken.NONE, rejecting);
+
+        first.complete("first");
+
+        Throwable error = catchThrowable(queued::join);
+        assertThat(((McpJsonRpcException) error.getCause()).getCode()).isEqualTo(McpJsonRpcException.SERVER_BUSY);
+        assertThat(bulkhead.submit(() -> CompletableFuture.completedFuture("next"), McpCancellationToken.NONE, DIRECT)
+                .join()).isEqualTo("next");
+    }
+
+    @Test
+    public void taskThrowingReleasesPermit() {
+        McpToolBulkhead bulkhead = new McpToolBulkhead(1, 0);
+
+        CompletableFuture<String> failed = bulkhead.submit(() -> {
+            throw new IllegalStateException("boom");
+        }, McpCancellationToken.NONE, DIRECT);
+
+        assertThat(failed).isCompletedExceptionally();
+        assertThat(bulkhead.submit(() -> CompletableFuture.completedFuture("next"), McpCancellationToken.NONE, DIRECT)
+                .join()).isEqualTo("next");
+    }
+}
@@ -0,0 +1,124 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * @ClassName McpToolCallCoalescerTest
+ * @Description McpToolCallCoalescer 的单元测试: 共享执行、单个等待方取消与全部等待方取消
+ * @Author ZhaoYanNing
+ * @Date 2025/10/26 15:20
+ * @Version 1.0
+ */
+public class McpToolCallCoalescerTest {
+
+    private final McpToolCallCoalescer coalescer = new McpToolCallCoalescer();
+
+    /**
+     * 每次实际调用使用的共享令牌与返回的 future
+     */
+    private final List<McpCancellationToken>      callTokens  = new ArrayList<>();
+    private final List<CompletableFuture<Object>> callFutures = new ArrayList<>();
+
+    private final Function<McpCancellationToken, CompletableFuture<Object>> call = token -> {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        callTokens.add(token);
+        callFutures.add(future);
+        return future;
+    };
+
+    @Test
+    public void sameKeySharesOneExecution() {
+        CompletableFuture<Object> first = coalescer.execute("k", new McpCancellationToken(0), call);
+        CompletableFuture<Object> second = coalescer.execute("k", new McpCancellationToken(0), call);
+
+        assertThat(callFutures).hasSize(1);
+        assertThat(coalescer.getCoalescedCount()).isEqualTo(1);
+        assertThat(coalescer.getInFlightCount()).isEqualTo(1);
+
+        callFutures.get(0).complete("result");
+
+        assertThat(first.join()).isEqualTo("result");
+        assertThat(second.join()).isEqualTo("result");
+        assertThat(coalescer.getInFlightCount()).isZero();
+    }
+
+    @Test
+    public void differentKeysExecuteSeparately() {
+        coalescer.execute("a", new McpCancellationToken(0), call);
+        coalescer.execute("b", new McpCancellationToken(0), call);
+
+        assertThat(callFutures).hasSize(2);
+        assertThat(coalescer.getCoalescedCount()).isZero();
+    }
+
+    @Test
+    public void cancelledWaiterLeavesWithoutCancellingExecution() {
+        McpCancellationToken leaving = new McpCancellationToken(0);
+        CompletableFuture<Object> first = coalescer.execute("k", leaving, call);
+        CompletableFuture<Object> second = coalescer.execute("k", new McpCancellationToken(0), call);
+
+        leaving.cancel("客户端取消");
+
+        Throwable error = catchThrowable(first::join);
+        assertThat(((McpJsonRpcException) error.getCause()).getCode()).isEqualTo(McpJsonRpcException.REQUEST_CANCELLED);
+        assertThat(callTokens.get(0).isCancelled()).isFalse();
+
+        callFutures.get(0).complete("result");
+
+        assertThat(second.join()).isEqualTo("result");
+    }
+
+    @Test
+    public void lastWaiterLeavingCancelsExecution() {
+        McpCancellationToken first = new McpCancellationToken(0);
+        McpCancellationToken second = new McpCancellationToken(0);
+        coalescer.execute("k", first, call);
+        coalescer.execute("k", second, call);
+
+        first.cancel("客户端取消");
+        second.cancel("调用超时", true);
+
+        McpCancellationToken shared = callTokens.get(0);
+        assertThat(shared.isCancelled()).isTrue();
+        assertThat(shared.isTimedOut()).isTrue();
+        assertThat(coalescer.getInFlightCount()).isZero();
+
+        // 被放弃的执行不再被复用, 相同调用键重新发起
+        coalescer.execute("k", new McpCancellationToken(0), call);
+        assertThat(callFutures).hasSize(2);
+    }
+
+    @Test
+    public void sharedDeadlineExtendsToLatestWaiter() {
+        McpCancellationToken early = new McpCancellationToken(1000);
+        McpCancellationToken late = new McpCancellationToken(60000);
+        coalescer.execute("k", early, call);
+        coalescer.execute("k", late, call);
+
+        assertThat(callTokens.get(0).getDeadlineNanos()).isEqualTo(late.getDeadlineNanos());
+
+        early.close();
+        late.close();
+    }
+
+    @Test
+    public void failurePropagatesToAllWaiters() {
+        CompletableFuture<Object> first = coalescer.execute("k", new McpCancellationToken(0), call);
+        CompletableFuture<Object> second = coalescer.execute("k", new McpCancellationToken(0), call);
+        IllegalStateException failure = new IllegalStateException("boom");
+
+        callFutures.get(0).completeExceptionally(failure);
+
+        assertThat(catchThrowable(first::join)).hasCause(failure);
+        assertThat(catchThrowable(second::join)).hasCause(failure);
+        assertThat(coalescer.getInFlightCount()).isZero();
+    }
+}
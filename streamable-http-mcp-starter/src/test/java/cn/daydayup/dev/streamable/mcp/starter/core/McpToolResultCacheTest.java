@@ -0,0 +1,71 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @ClassName McpToolResultCacheTest
+ * @Description McpToolResultCache 的单元测试: 过期、按最近访问顺序淘汰与命中统计
+ * @Author ZhaoYanNing
+ * @Date 2025/10/26 15:10
+ * @Version 1.0
+ */
+public class McpToolResultCacheTest {
+
+    @Test
+    public void entryExpiresAfterTtl() throws InterruptedException {
+        McpToolResultCache cache = new McpToolResultCache(50, 10);
+        cache.put("k", "v");
+
+        assertThat(cache.get("k")).isEqualTo("v");
+
+        Thread.sleep(80);
+
+        assertThat(cache.get("k")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedEntry() {
+        McpToolResultCache cache = new McpToolResultCache(60000, 2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        // 访问 a 后, b 成为最久未访问的条目
+        assertThat(cache.get("a")).isEqualTo(1);
+
+        cache.put("c", 3);
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isEqualTo(1);
+        assertThat(cache.get("c")).isEqualTo(3);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void sizeNeverExceedsMaxEntries() {
+        McpToolResultCache cache = new McpToolResultCache(60000, 256);
+        for (int i = 0; i < 1000; i++) {
+            cache.put("key-" + i, i);
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(256);
+        assertThat(cache.getEvictionCount()).isEqualTo(1000 - cache.size());
+    }
+
+    @Test
+    public void countsHitsAndMissesAndSkipsNull() {
+        McpToolResultCache cache = new McpToolResultCache(60000, 10);
+        cache.put("k", "v");
+        cache.put("n", null);
+
+        cache.get("k");
+        cache.get("n");
+        cache.get("missing");
+
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+}
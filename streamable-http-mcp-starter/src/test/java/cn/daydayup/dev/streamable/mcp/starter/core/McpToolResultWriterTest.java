@@ -0,0 +1,162 @@
+package cn.daydayup.dev.streamable.mcp.starter.core;
+
+import cn.daydayup.dev.streamable.mcp.starter.response.ResponseSchema;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @ClassName McpToolResultWriterTest
+ * @Description McpToolResultWriter 的单元测试: 文本、二进制、标量、对象与 ResponseSchema 结果的写出及 Supplier 解析
+ * @Author ZhaoYanNing
+ * @Date 2025/10/27 14:00
+ * @Version 1.0
+ */
+public class McpToolResultWriterTest {
+
+    private final ObjectMapper objectMapper = McpJsonCodec.createObjectMapper();
+
+    @Test
+    public void writesTextWithEscaping() throws IOException {
+        JsonNode result = write("引号\"与换行\n");
+
+        assertThat(result.path("content").path(0).path("type").asText()).isEqualTo("text");
+        assertThat(result.path("content").path(0).path("text").asText()).isEqualTo("引号\"与换行\n");
+        assertThat(result.has("structuredContent")).isFalse();
+    }
+
+    @Test
+    public void writesLargeCharSequenceInChunks() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            text.append("行").append(i).append('\n');
+        }
+
+        JsonNode result = write(text);
+
+        assertThat(result.path("content").path(0).path("text").asText()).isEqualTo(text.toString());
+    }
+
+    @Test
+    public void writesBinaryAsEmbeddedResource() throws IOException {
+        byte[] bytes = new byte[10000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+
+        for (Object value : new Object[]{bytes, new ByteArrayInputStream(bytes)}) {
+            JsonNode content = write(value).path("content").path(0);
+
+            assertThat(content.path("type").asText()).isEqualTo("resource");
+            assertThat(content.path("resource").path("uri").asText()).isEqualTo("mcp://tool/test");
+            assertThat(content.path("resource").path("mimeType").asText()).isEqualTo("application/octet-stream");
+            assertThat(Base64.getDecoder().decode(content.path("resource").path("blob").asText())).isEqualTo(bytes);
+        }
+    }
+
+    @Test
+    public void writesScalarAsText() throws IOException {
+        assertThat(write(42).path("content").path(0).path("text").asText()).isEqualTo("42");
+        assertThat(write(true).path("content").path(0).path("text").asText()).isEqualTo("true");
+        assertThat(write(null).path("content").path(0).path("text").asText()).isEmpty();
+    }
+
+    @Test
+    public void writesObjectAsStructuredContentAndJsonText() throws IOException {
+        StringBuilder emoji = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            emoji.append("😀\"");
+        }
+        Item item = new Item("名称\n" + emoji, 3);
+
+        JsonNode result = write(item);
+
+        JsonNode structured = result.path("structuredContent");
+        assertThat(structured.path("name").asText()).isEqualTo(item.getName());
+        assertThat(structured.path("count").asInt()).isEqualTo(3);
+        assertThat(objectMapper.readTree(result.path("content").path(0).path("text").asText())).isEqualTo(structured);
+    }
+
+    @Test
+    public void writesCollectionAsJsonTextOnly() throws IOException {
+        JsonNode result = write(Arrays.asList(new Item("a", 1), new Item("b", 2)));
+
+        assertThat(result.has("structuredContent")).isFalse();
+        JsonNode text = objectMapper.readTree(result.path("content").path(0).path("text").asText());
+        assertThat(text.path(1).path("name").asText()).isEqualTo("b");
+    }
+
+    @Test
+    public void writesResponseSchemaAsIs() throws IOException {
+        JsonNode image = write(ResponseSchema.image(new byte[]{1, 2, 3}, "image/png"));
+
+        assertThat(image.path("content").path(0).path("type").asText()).isEqualTo("image");
+        assertThat(image.path("content").path(0).path("data").asText()).isEqualTo("AQID");
+        assertThat(image.path("isError").asBoolean()).isFalse();
+
+        JsonNode structured = write(ResponseSchema.structured(Collections.singletonMap("k", "v"), true));
+
+        assertThat(structured.path("structuredContent").path("k").asText()).isEqualTo("v");
+        assertThat(structured.path("content").path(0).path("text").asText()).isEqualTo("{\"k\":\"v\"}");
+        assertThat(structured.path("isError").asBoolean()).isTrue();
+    }
+
+    @Test
+    public void resolvesSuppliersWithoutModifyingResult() throws IOException {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("plain", "a");
+        map.put("lazy", (Supplier<String>) () -> "b");
+        List<Object> list = Collections.singletonList(map);
+
+        assertThat(McpToolResultWriter.isReplayable(list)).isFalse();
+        Object resolved = McpToolResultWriter.resolve(list);
+
+        assertThat(resolved).isNotSameAs(list);
+        assertThat(map.get("lazy")).isInstanceOf(Supplier.class);
+        assertThat(McpToolResultWriter.isReplayable(resolved)).isTrue();
+        assertThat(write(resolved).path("content").path(0).path("text").asText()).isEqualTo("[{\"plain\":\"a\",\"lazy\":\"b\"}]");
+        assertThat(McpToolResultWriter.resolve(Collections.singletonMap("k", "v"))).isEqualTo(Collections.singletonMap("k", "v"));
+        assertThat(McpToolResultWriter.isReplayable(new ByteArrayInputStream(new byte[0]))).isFalse();
+    }
+
+    private JsonNode write(Object result) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = new McpJsonCodec(objectMapper).createGenerator(out)) {
+            McpToolResultWriter.write(generator, "test", result, objectMapper);
+        }
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    public static class Item {
+
+        private final String name;
+        private final int    count;
+
+        Item(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package cn.daydayup.dev.streamable.mcp.starter.processor;
+
+import cn.daydayup.dev.streamable.mcp.starter.annotation.McpServerEndpoint;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpFunctionInfo;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpInputSchema;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpJsonCodec;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpServerEndpointAutoRegistry;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @ClassName McpEndpointProcessorTest
+ * @Description McpEndpointProcessor 的单元测试: 编译示例端点, 校验生成的描述符与反射扫描结果一致且直接调用器可用
+ * @Author ZhaoYanNing
+ * @Date 2025/10/27 15:00
+ * @Version 1.0
+ */
+public class McpEndpointProcessorTest {
+
+    private static final String ENDPOINT = "package sample;\n"
+            + "import cn.daydayup.dev.streamable.mcp.starter.annotation.*;\n"
+            + "import cn.daydayup.dev.streamable.mcp.starter.core.*;\n"
+            + "import java.util.List;\n"
+            + "import java.util.concurrent.CompletableFuture;\n"
+            + "@McpServerEndpoint(path = \"/mcp/sample\", name = \"sample\", version = \"1.0\")\n"
+            + "public class SampleEndpoint {\n"
+            + "    @McpFunction(name = \"greet\", description = \"问候\\n\\\"示例\\\"\", timeout = 500)\n"
+            + "    public String greet(@McpParam(name = \"name\", description = \"名称\", required = true, minLength = 1) String name,\n"
+            + "                        @McpParam(name = \"times\", description = \"次数\", minimum = 1, maximum = 3) int times) {\n"
+            + "        StringBuilder result = new StringBuilder();\n"
+            + "        for (int i = 0; i < times; i++) result.append(\"你好, \").append(name);\n"
+            + "        return result.toString();\n"
+            + "    }\n"
+            + "    @McpFunction(name = \"sum\", description = \"求和\", coalesce = true)\n"
+            + "    public CompletableFuture<Integer> sum(@McpParam(name = \"values\", description = \"数值\") List<Integer> values) {\n"
+            + "        return CompletableFuture.completedFuture(values.stream().mapToInt(Integer::intValue).sum());\n"
+            + "    }\n"
+            + "    @McpFunction(name = \"touch\", description = \"无返回值\")\n"
+            + "    public void touch(McpProgressReporter progressReporter, McpCancellationToken cancellationToken) {\n"
+            + "    }\n"
+            + "    @McpFunction(name = \"version\", description = \"版本\")\n"
+            + "    public static String version() {\n"
+            + "        return \"1.0\";\n"
+            + "    }\n"
+            + "}\n";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final ObjectMapper objectMapper = McpJsonCodec.createObjectMapper();
+
+    @Test
+    public void generatedDescriptorMatchesReflection() throws Exception {
+        File output = compile("sample.SampleEndpoint", ENDPOINT, true);
+
+        assertThat(new File(output, "sample/SampleEndpoint_McpDescriptor.java")).exists();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{output.toURI().toURL()}, getClass().getClassLoader())) {
+            Class<?> endpointClass = classLoader.loadClass("sample.SampleEndpoint");
+            List<McpFunctionInfo> generated = sorted(McpServerEndpointAutoRegistry.loadMcpFunctions(endpointClass));
+            List<McpFunctionInfo> reflected = sorted(McpServerEndpointAutoRegistry.collectMcpFunctions(endpointClass));
+
+            assertThat(generated).hasSize(4);
+            for (int i = 0; i < generated.size(); i++) {
+                McpFunctionInfo expected = reflected.get(i);
+                McpFunctionInfo actual = generated.get(i);
+                assertThat(actual.getMethod()).isNull();
+                assertThat(actual.getDirectInvoker()).isNotNull();
+                assertThat(actual.getName()).isEqualTo(expected.getName());
+                assertThat(actual.getDescription()).isEqualTo(expected.getDescription());
+                assertThat(actual.getParameterCount()).isEqualTo(expected.getParameterCount());
+                assertThat(actual.getProgressReporterIndex()).isEqualTo(expected.getProgressReporterIndex());
+                assertThat(actual.getCancellationTokenIndex()).isEqualTo(expected.getCancellationTokenIndex());
+                assertThat(actual.isAsync()).isEqualTo(expected.isAsync());
+                assertThat(actual.isStreaming()).isEqualTo(expected.isStreaming());
+                assertThat(actual.getTimeout()).isEqualTo(expected.getTimeout());
+                assertThat(actual.isCoalesce()).isEqualTo(expected.isCoalesce());
+                assertThat(actual.getParams()).hasSameSizeAs(expected.getParams());
+                for (int j = 0; j < actual.getParams().size(); j++) {
+                    McpFunctionInfo.ParamInfo actualParam = actual.getParams().get(j);
+                    McpFunctionInfo.ParamInfo expectedParam = expected.getParams().get(j);
+                    assertThat(actualParam.getName()).isEqualTo(expectedParam.getName());
+                    assertThat(actualParam.getType()).isEqualTo(expectedParam.getType());
+                    assertThat(actualParam.getGenericType()).isEqualTo(expectedParam.getGenericType());
+                    assertThat(actualParam.isRequired()).isEqualTo(expectedParam.isRequired());
+                    assertThat(actualParam.getMinimum()).isEqualTo(expectedParam.getMinimum());
+                    assertThat(actualParam.getMaximum()).isEqualTo(expectedParam.getMaximum());
+                    assertThat(actualParam.getMinLength()).isEqualTo(expectedParam.getMinLength());
+                }
+                // 仅含标量参数时预先生成的 inputSchema 与运行时生成的一致
+                if (actual.getInputSchema() != null) {
+                    assertThat(objectMapper.readTree(actual.getInputSchema()))
+                            .isEqualTo(objectMapper.readTree(McpInputSchema.of(expected.getParams(), objectMapper)));
+                }
+            }
+
+            Object target = endpointClass.getDeclaredConstructor().newInstance();
+            assertThat(generated.get(0).getName()).isEqualTo("greet");
+            assertThat(generated.get(0).getDirectInvoker().invoke(target, new Object[]{"世界", 2})).isEqualTo("你好, 世界你好, 世界");
+            assertThat(generated.get(1).getInputSchema()).isNull();
+            assertThat(generated.get(1).getParams().get(0).getGenericType())
+                    .isEqualTo(new TypeReference<List<Integer>>() {}.getType());
+            assertThat(((CompletableFuture<?>) generated.get(1).getDirectInvoker().invoke(target,
+                    new Object[]{Arrays.asList(1, 2, 3)})).join()).isEqualTo(6);
+            assertThat(generated.get(2).getDirectInvoker().invoke(target, new Object[]{null, null})).isNull();
+            assertThat(generated.get(3).getDirectInvoker().invoke(null, new Object[0])).isEqualTo("1.0");
+        }
+    }
+
+    @Test
+    public void privateToolMethodFallsBackToReflection() throws Exception {
+        File output = compile("sample.PrivateEndpoint", "package sample;\n"
+                + "import cn.daydayup.dev.streamable.mcp.starter.annotation.*;\n"
+                + "@McpServerEndpoint(path = \"/mcp/private\", name = \"private\", version = \"1.0\")\n"
+                + "public class PrivateEndpoint {\n"
+                + "    @McpFunction(name = \"hidden\", description = \"私有工具\")\n"
+                + "    private String hidden() {\n"
+                + "        return \"hidden\";\n"
+                + "    }\n"
+                + "}\n", false);
+
+        assertThat(new File(output, "sample/PrivateEndpoint_McpDescriptor.java")).doesNotExist();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{output.toURI().toURL()}, getClass().getClassLoader())) {
+            List<McpFunctionInfo> functions = McpServerEndpointAutoRegistry.loadMcpFunctions(
+                    classLoader.loadClass("sample.PrivateEndpoint"));
+
+            assertThat(functions).hasSize(1);
+            assertThat(functions.get(0).getMethod()).isNotNull();
+        }
+    }
+
+    /**
+     * 编译单个源文件并运行注解处理器, 生成的源文件与类文件均输出到同一临时目录
+     *
+     * @param generates 是否期望生成描述符, 不生成时处理器应输出说明原因的提示
+     */
+    private File compile(String className, String source, boolean generates) throws IOException, URISyntaxException {
+        File output = temporaryFolder.newFolder();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+            String classPath = location(McpServerEndpoint.class) + File.pathSeparator + location(TypeReference.class);
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-classpath", classPath, "-d", output.getPath(), "-s", output.getPath()), null,
+                    Collections.singletonList(new SourceFile(className, source)));
+            task.setProcessors(Collections.singletonList(new McpEndpointProcessor()));
+
+            assertThat(task.call()).as(diagnostics.getDiagnostics().toString()).isTrue();
+        }
+        boolean noted = diagnostics.getDiagnostics().stream()
+                .anyMatch(d -> d.getKind() == Diagnostic.Kind.NOTE && d.getMessage(null).contains("未生成MCP描述符"));
+        assertThat(noted).isNotEqualTo(generates);
+        return output;
+    }
+
+    private static String location(Class<?> type) throws URISyntaxException {
+        return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+    }
+
+    private static List<McpFunctionInfo> sorted(List<McpFunctionInfo> functions) {
+        List<McpFunctionInfo> sorted = new ArrayList<>(functions);
+        List<String> order = Arrays.asList("greet", "sum", "touch", "version");
+        sorted.sort(Comparator.comparingInt(function -> order.indexOf(function.getName())));
+        return sorted;
+    }
+
+    private static class SourceFile extends SimpleJavaFileObject {
+
+        private final String source;
+
+        SourceFile(String className, String source) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+}
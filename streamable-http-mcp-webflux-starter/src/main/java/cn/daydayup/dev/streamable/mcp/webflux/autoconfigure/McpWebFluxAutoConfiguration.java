@@ -0,0 +1,35 @@
+package cn.daydayup.dev.streamable.mcp.webflux.autoconfigure;
+
+import cn.daydayup.dev.streamable.mcp.starter.autoconfigure.McpServerAutoConfiguration;
+import cn.daydayup.dev.streamable.mcp.webflux.core.McpWebFluxEndpointRegistry;
+import cn.daydayup.dev.streamable.mcp.webflux.core.McpWebFluxHandlerMapping;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @ClassName McpWebFluxAutoConfiguration
+ * @Description 响应式应用的自动配置, 工具线程池、会话存储与指标沿用 McpServerAutoConfiguration
+ * @Author ZhaoYanNing
+ * @Date 2025/10/25 15:20
+ * @Version 1.0
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@AutoConfigureAfter(McpServerAutoConfiguration.class)
+public class McpWebFluxAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public McpWebFluxHandlerMapping mcpWebFluxHandlerMapping() {
+        return new McpWebFluxHandlerMapping();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public McpWebFluxEndpointRegistry mcpWebFluxEndpointRegistry() {
+        return new McpWebFluxEndpointRegistry();
+    }
+}
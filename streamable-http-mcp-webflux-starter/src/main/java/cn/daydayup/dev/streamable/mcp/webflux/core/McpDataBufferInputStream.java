@@ -0,0 +1,165 @@
+package cn.daydayup.dev.streamable.mcp.webflux.core;
+
+import org.reactivestreams.Subscription;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.CoreSubscriber;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName McpDataBufferInputStream
+ * @Description 以阻塞输入流的方式逐块读取请求体, 每读完一个 DataBuffer 才请求下一个, 读完即释放
+ * 只能在允许阻塞的线程(如 Schedulers.elastic())中读取, 不得在事件循环线程中读取
+ * @Author ZhaoYanNing
+ * @Date 2025/10/26 10:20
+ * @Version 1.0
+ */
+class McpDataBufferInputStream extends InputStream implements CoreSubscriber<DataBuffer> {
+
+    private static final Object COMPLETE = new Object();
+
+    private final BlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+    private final long                  maxSize;
+    private final long                  timeoutMillis;
+
+    private volatile Subscription subscription;
+
+    /**
+     * 以下字段仅由读取线程访问
+     */
+    private DataBuffer current;
+    private boolean    done;
+    private long       count;
+
+    /**
+     * @param maxSize       允许读取的最大字节数, 超出时抛出 DataBufferLimitException
+     * @param timeoutMillis 等待下一个数据块的超时时间(毫秒)
+     */
+    McpDataBufferInputStream(long maxSize, long timeoutMillis) {
+        this.maxSize = maxSize;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        subscription = s;
+        s.request(1);
+    }
+
+    @Override
+    public void onNext(DataBuffer buffer) {
+        signals.add(buffer);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        signals.add(t);
+    }
+
+    @Override
+    public void onComplete() {
+        signals.add(COMPLETE);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!next()) {
+            return -1;
+        }
+        return current.read() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!next()) {
+            return -1;
+        }
+        int n = Math.min(len, current.readableByteCount());
+        current.read(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current != null ? current.readableByteCount() : 0;
+    }
+
+    /**
+     * 取消对请求体的订阅并释放未读取的数据块
+     */
+    @Override
+    public void close() {
+        release();
+        if (!done) {
+            done = true;
+            Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+        }
+        Object signal;
+        while ((signal = signals.poll()) != null) {
+            if (signal instanceof DataBuffer) {
+                DataBufferUtils.release((DataBuffer) signal);
+            }
+        }
+    }
+
+    /**
+     * 确保当前数据块可读, 读完后释放并请求下一个
+     *
+     * @return false 表示请求体已读完
+     */
+    private boolean next() throws IOException {
+        while (current == null || current.readableByteCount() == 0) {
+            if (current != null) {
+                release();
+                subscription.request(1);
+            }
+            if (done) {
+                return false;
+            }
+            Object signal;
+            try {
+                signal = signals.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("读取请求体被中断");
+            }
+            if (signal == null) {
+                throw new IOException("读取请求体超时");
+            }
+            if (signal == COMPLETE) {
+                done = true;
+                return false;
+            }
+            if (signal instanceof Throwable) {
+                done = true;
+                throw new IOException("读取请求体失败", (Throwable) signal);
+            }
+            current = (DataBuffer) signal;
+            count += current.readableByteCount();
+            if (count > maxSize) {
+                throw new DataBufferLimitException("请求体超过 " + maxSize + " 字节");
+            }
+        }
+        return true;
+    }
+
+    private void release() {
+        if (current != null) {
+            DataBufferUtils.release(current);
+            current = null;
+        }
+    }
+}
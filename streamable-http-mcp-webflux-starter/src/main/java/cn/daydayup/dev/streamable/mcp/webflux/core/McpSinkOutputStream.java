@@ -0,0 +1,103 @@
+package cn.daydayup.dev.streamable.mcp.webflux.core;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import reactor.core.publisher.FluxSink;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * @ClassName McpSinkOutputStream
+ * @Description 将写入的字节在 flush 或累计满一个分块时作为一个 DataBuffer 推送到 FluxSink
+ * McpSseWriter 每写完一个事件即 flush, 因此较小的SSE事件对应一个 DataBuffer, 由 writeAndFlushWith 立即发送;
+ * 写出完整响应体时使用 {@link #awaitingDemand}, 下游没有需求时阻塞写出线程, 使内存占用不超过网络层预取的分块数
+ * @Author ZhaoYanNing
+ * @Date 2025/10/25 14:10
+ * @Version 1.0
+ */
+class McpSinkOutputStream extends OutputStream {
+
+    static final int CHUNK_SIZE = 8192;
+
+    private final FluxSink<DataBuffer>  sink;
+    private final DataBufferFactory     bufferFactory;
+    private final boolean               awaitDemand;
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(256);
+
+    McpSinkOutputStream(FluxSink<DataBuffer> sink, DataBufferFactory bufferFactory) {
+        this(sink, bufferFactory, false);
+    }
+
+    private McpSinkOutputStream(FluxSink<DataBuffer> sink, DataBufferFactory bufferFactory, boolean awaitDemand) {
+        this.sink = sink;
+        this.bufferFactory = bufferFactory;
+        this.awaitDemand = awaitDemand;
+    }
+
+    /**
+     * 创建按下游需求写出的输出流, 只能在允许阻塞的线程中写入, 且不得再对该 sink 注册 onRequest、onCancel
+     */
+    static McpSinkOutputStream awaitingDemand(FluxSink<DataBuffer> sink, DataBufferFactory bufferFactory) {
+        McpSinkOutputStream out = new McpSinkOutputStream(sink, bufferFactory, true);
+        sink.onRequest(n -> out.signal());
+        sink.onCancel(out::signal);
+        return out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        pending.write(b);
+        if (pending.size() >= CHUNK_SIZE) {
+            emit();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        pending.write(b, off, len);
+        if (pending.size() >= CHUNK_SIZE) {
+            emit();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (pending.size() > 0) {
+            emit();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    private void emit() throws IOException {
+        if (awaitDemand) {
+            awaitDemand();
+        }
+        sink.next(bufferFactory.wrap(pending.toByteArray()));
+        pending.reset();
+    }
+
+    private synchronized void awaitDemand() throws IOException {
+        while (sink.isCancelled() || sink.requestedFromDownstream() == 0) {
+            if (sink.isCancelled()) {
+                throw new IOException("连接已断开");
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("响应写出被中断");
+            }
+        }
+    }
+
+    private synchronized void signal() {
+        notifyAll();
+    }
+}
@@ -0,0 +1,148 @@
+package cn.daydayup.dev.streamable.mcp.webflux.core;
+
+import cn.daydayup.dev.streamable.mcp.starter.annotation.McpServerEndpoint;
+import cn.daydayup.dev.streamable.mcp.starter.autoconfigure.McpServerAutoConfiguration;
+import cn.daydayup.dev.streamable.mcp.starter.autoconfigure.McpServerProperties;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpFunctionInfo;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpServerEndpointAutoRegistry;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpServerMetrics;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpSessionStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * @ClassName McpWebFluxEndpointRegistry
+ * @Description 为 @McpServerEndpoint 注册 McpWebFluxHandler, 与 Servlet 应用中的 McpServerEndpointAutoRegistry 对应
+ * @Author ZhaoYanNing
+ * @Date 2025/10/25 15:10
+ * @Version 1.0
+ */
+@Slf4j
+public class McpWebFluxEndpointRegistry implements BeanPostProcessor, ApplicationContextAware, BeanFactoryAware {
+
+    private ApplicationContext applicationContext;
+    private BeanFactory        beanFactory;
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+    }
+
+    /**
+     * 在 Bean 初始化后处理
+     * 为被 @McpServerEndpoint 注解标注的 Bean 创建 McpWebFluxHandler 并注册路径映射
+     *
+     * @param bean     处理的 Bean 实例
+     * @param beanName Bean 的名称
+     * @return 处理后的 Bean 实例
+     */
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean.getClass().getAnnotation(McpServerEndpoint.class) != null) {
+            try {
+                registerEndpoint(bean);
+            } catch (Exception e) {
+                log.error("Mcp服务接口创建失败: {}", e.getMessage(), e);
+            }
+        }
+        return bean;
+    }
+
+    /**
+     * 注册MCP接口, 启动后也可调用以动态上线被 @McpServerEndpoint 注解标注的对象
+     *
+     * @param bean 被 @McpServerEndpoint 注解标注的对象
+     * @return 接口处理器, 可继续通过 registerTool/unregisterTool 增减工具
+     * @throws IllegalArgumentException 对象未标注 @McpServerEndpoint
+     * @throws IllegalStateException    路径已注册
+     */
+    public synchronized McpWebFluxHandler registerEndpoint(Object bean) {
+        Class<?> beanClass = bean.getClass();
+        McpServerEndpoint annotation = beanClass.getAnnotation(McpServerEndpoint.class);
+        if (annotation == null) {
+            throw new IllegalArgumentException(beanClass.getName() + " 未标注 @McpServerEndpoint");
+        }
+        String path = annotation.path();
+        McpWebFluxHandlerMapping handlerMapping = applicationContext.getBean(McpWebFluxHandlerMapping.class);
+        if (handlerMapping.getEndpoint(path) != null) {
+            throw new IllegalStateException("Mcp服务接口已存在: " + path);
+        }
+        // 获取所有MCP方法, 优先使用编译期生成的描述符
+        List<McpFunctionInfo> functionInfos = McpServerEndpointAutoRegistry.loadMcpFunctions(beanClass);
+
+        BeanDefinitionRegistry beanRegistry = (BeanDefinitionRegistry) beanFactory;
+        String handlerBeanName = handlerBeanName(beanClass);
+        beanRegistry.registerBeanDefinition(handlerBeanName,
+                BeanDefinitionBuilder.genericBeanDefinition(McpWebFluxHandler.class).getBeanDefinition());
+
+        McpWebFluxHandler handler = (McpWebFluxHandler) applicationContext.getBean(handlerBeanName);
+        handler.setName(annotation.name());
+        handler.setVersion(annotation.version());
+        handler.setPath(path);
+        handler.setTargetBean(bean);
+        handler.setFunctionInfos(functionInfos);
+        McpServerProperties properties = applicationContext.getBean(McpServerProperties.class);
+        String executorName = annotation.executor().isEmpty()
+                ? McpServerAutoConfiguration.TOOL_EXECUTOR_BEAN_NAME : annotation.executor();
+        handler.setToolExecutor(applicationContext.getBean(executorName, Executor.class));
+        handler.setAsyncTimeout(properties.getAsync().getTimeout().toMillis());
+        handler.setMaxBatchSize(properties.getBatch().getMaxSize());
+        handler.setSseTimeout(properties.getSse().getTimeout().toMillis());
+        handler.setMaxRequestSize(properties.getCompression().getMaxRequestSize().toBytes());
+        handler.setContextHeaders(properties.getContext().getHeaders());
+        handler.setSessionStore(applicationContext.getBeanProvider(McpSessionStore.class).getIfAvailable());
+        handler.setMetrics(applicationContext.getBeanProvider(McpServerMetrics.class)
+                .getIfAvailable(() -> McpServerMetrics.NOOP).forEndpoint(path));
+
+        handlerMapping.registerEndpoint(path, handler);
+
+        log.info("StreamableHttp Mcp服务接口(WebFlux)创建成功, mcpServerEndpoint:{}, functions:{}个", path, functionInfos.size());
+        return handler;
+    }
+
+    /**
+     * 注销MCP接口: 移除路径映射与处理器Bean并关闭GET SSE流, 执行中的调用不受影响
+     *
+     * @param path 接口路径
+     * @return 接口存在并已注销时为 true
+     */
+    public synchronized boolean unregisterEndpoint(String path) {
+        McpWebFluxHandler handler = applicationContext.getBean(McpWebFluxHandlerMapping.class).unregisterEndpoint(path);
+        if (handler == null) {
+            return false;
+        }
+        handler.closeStreams();
+        ((BeanDefinitionRegistry) beanFactory).removeBeanDefinition(handlerBeanName(handler.getTargetBean().getClass()));
+        log.info("StreamableHttp Mcp服务接口(WebFlux)已注销, mcpServerEndpoint:{}", path);
+        return true;
+    }
+
+    /**
+     * 已注册的MCP接口处理器
+     *
+     * @param path 接口路径
+     * @return 接口处理器, 不存在时为 null
+     */
+    public McpWebFluxHandler getEndpoint(String path) {
+        return applicationContext.getBean(McpWebFluxHandlerMapping.class).getEndpoint(path);
+    }
+
+    private static String handlerBeanName(Class<?> beanClass) {
+        return beanClass.getSimpleName() + "@McpServerEndpoint";
+    }
+}
@@ -0,0 +1,599 @@
+package cn.daydayup.dev.streamable.mcp.webflux.core;
+
+import cn.daydayup.dev.streamable.mcp.starter.core.McpContentEncoding;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpCountingInputStream;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpEndpointMetrics;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpEndpointSupport;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpExchange;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpJsonCodec;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpJsonRpcException;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpJsonRpcMessage;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpJsonRpcRequest;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpJsonRpcResponse;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpProgressReporter;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpResponseTemplate;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpSession;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpSessionStore;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpSseWriter;
+import cn.daydayup.dev.streamable.mcp.starter.core.McpToolInvoker;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebHandler;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.zip.ZipException;
+
+/**
+ * @ClassName McpWebFluxHandler
+ * @Description MCP HTTP接口处理器(WebFlux 传输), 请求体以非阻塞方式读取, 工具可返回 Mono/Flux
+ * 较小的请求体在事件循环线程中聚合后解析, 较大或未声明长度的请求体在 elastic 线程中边接收边解析;
+ * 工具调用结果分块写出, 其序列化(可能读取 InputStream、Path 或调用 Supplier)在 elastic 线程中进行
+ * 同步工具仍在工具线程池中执行; 返回 CompletionStage、Mono、Flux 的工具在解析请求的线程中调用, 方法体不应阻塞
+ * 返回 Flux 的工具在客户端接受 text/event-stream 时逐个元素以 notifications/message 推送, 最终响应为全部元素的汇总
+ * @Author ZhaoYanNing
+ * @Date 2025/10/25 14:00
+ * @Version 1.0
+ */
+@Getter
+@Setter
+@Slf4j
+public class McpWebFluxHandler extends McpEndpointSupport implements WebHandler {
+
+    private static final byte[] SSE_EVENT_PREFIX = "event: message\ndata: ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SSE_EVENT_SUFFIX = "\n\n".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 声明长度不超过该值的请求体在事件循环线程中聚合后解析
+     */
+    private static final int AGGREGATE_REQUEST_SIZE = 16 * 1024;
+
+    /**
+     * 等待响应的超时时间(毫秒)
+     */
+    private long asyncTimeout = 60000L;
+
+    /**
+     * GET SSE流的超时时间(毫秒), 为 null 时不限制
+     */
+    private Long sseTimeout;
+
+    /**
+     * 已建立的GET SSE流
+     */
+    @Setter(AccessLevel.NONE)
+    private final Set<FluxSink<String>> sseSinks = new CopyOnWriteArraySet<>();
+
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange) {
+        HttpMethod method = exchange.getRequest().getMethod();
+        if (method == HttpMethod.POST) {
+            return handlePost(exchange);
+        }
+        if (method == HttpMethod.GET) {
+            return handleGet(exchange);
+        }
+        if (method == HttpMethod.DELETE) {
+            return handleDelete(exchange);
+        }
+        return complete(exchange.getResponse(), HttpStatus.METHOD_NOT_ALLOWED);
+    }
+
+    /**
+     * 建立服务端推送的SSE流, 客户端不接受 text/event-stream 时返回 405; 启用会话时需携带有效的 Mcp-Session-Id, 会话终止或过期时流随之结束
+     */
+    private Mono<Void> handleGet(ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        ServerHttpResponse response = exchange.getResponse();
+        if (!acceptsEventStream(request.getHeaders().getFirst(HttpHeaders.ACCEPT))) {
+            return complete(response, HttpStatus.METHOD_NOT_ALLOWED);
+        }
+        McpSessionStore sessionStore = getSessionStore();
+        McpSession session = null;
+        if (sessionStore != null) {
+            String sessionId = request.getHeaders().getFirst(SESSION_ID_HEADER);
+            if (sessionId == null) {
+                return complete(response, HttpStatus.BAD_REQUEST);
+            }
+            session = sessionStore.get(getPath(), sessionId);
+            if (session == null) {
+                return complete(response, HttpStatus.NOT_FOUND);
+            }
+        }
+        McpSession owner = session;
+        Flux<String> messages = Flux.create(sink -> {
+            sseSinks.add(sink);
+            Runnable closer = sink::complete;
+            sink.onDispose(() -> {
+                sseSinks.remove(sink);
+                if (owner != null) {
+                    owner.removeOnClose(closer);
+                }
+            });
+            if (owner != null) {
+                owner.onClose(closer);
+            }
+        });
+        if (sseTimeout != null && sseTimeout > 0) {
+            messages = messages.take(Duration.ofMillis(sseTimeout));
+        }
+        // 先写出一个空数据块, 使响应头在首个通知之前发送
+        setEventStreamHeaders(response);
+        return response.writeAndFlushWith(messages.map(message -> toEvent(response, message))
+                .startWith(response.bufferFactory().wrap(new byte[0])).map(Mono::just));
+    }
+
+    /**
+     * 终止会话, 未启用会话时返回 405, 会话不存在时返回 404
+     */
+    private Mono<Void> handleDelete(ServerWebExchange exchange) {
+        McpSessionStore sessionStore = getSessionStore();
+        if (sessionStore == null) {
+            return complete(exchange.getResponse(), HttpStatus.METHOD_NOT_ALLOWED);
+        }
+        String sessionId = exchange.getRequest().getHeaders().getFirst(SESSION_ID_HEADER);
+        if (sessionId == null) {
+            return complete(exchange.getResponse(), HttpStatus.BAD_REQUEST);
+        }
+        return complete(exchange.getResponse(),
+                sessionStore.remove(getPath(), sessionId) ? HttpStatus.OK : HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * 向所有已建立的GET SSE流推送服务端通知
+     *
+     * @param method       通知方法
+     * @param paramsWriter params内容写出器, 为 null 时不输出 params
+     */
+    @Override
+    public void sendNotification(String method, McpJsonCodec.ResultWriter paramsWriter) throws IOException {
+        if (sseSinks.isEmpty()) {
+            return;
+        }
+        String message = getJsonCodec().writeNotificationAsString(method, paramsWriter);
+        for (FluxSink<String> sink : sseSinks) {
+            sink.next(message);
+        }
+    }
+
+    /**
+     * 关闭全部GET SSE流, 接口注销时调用
+     */
+    public void closeStreams() {
+        for (FluxSink<String> sink : sseSinks) {
+            sseSinks.remove(sink);
+            sink.complete();
+        }
+    }
+
+    private Mono<Void> handlePost(ServerWebExchange exchange) {
+        McpEndpointMetrics endpointMetrics = getMetrics();
+        if (!endpointMetrics.isEnabled()) {
+            return readBody(exchange, exchange.getResponse(), body -> handlePost(exchange, exchange.getResponse(), body));
+        }
+        CountingResponse countingResponse = new CountingResponse(exchange.getResponse());
+        AtomicReference<McpCountingInputStream> requestBody = new AtomicReference<>();
+        endpointMetrics.requestStarted();
+        return readBody(exchange, countingResponse, body -> {
+            McpCountingInputStream countingBody = new McpCountingInputStream(body);
+            requestBody.set(countingBody);
+            return handlePost(exchange, countingResponse, countingBody);
+        }).doFinally(signal -> {
+            McpCountingInputStream countingBody = requestBody.get();
+            endpointMetrics.requestCompleted(countingBody != null ? countingBody.getCount() : 0, countingResponse.count.get());
+        });
+    }
+
+    /**
+     * 读取请求体后处理, 请求体超过 maxRequestSize 时返回 413
+     * 声明长度不超过 AGGREGATE_REQUEST_SIZE 时非阻塞地聚合后在当前线程处理;
+     * 否则在 elastic 线程中以阻塞流逐块读取并解析, 不在内存中聚合完整请求体
+     */
+    private Mono<Void> readBody(ServerWebExchange exchange, ServerHttpResponse response,
+                                Function<InputStream, Mono<Void>> handler) {
+        long maxRequestSize = getMaxRequestSize();
+        long contentLength = exchange.getRequest().getHeaders().getContentLength();
+        if (contentLength > maxRequestSize) {
+            log.warn("MCP请求处理失败: 请求体超过 {} 字节", maxRequestSize);
+            return complete(response, HttpStatus.PAYLOAD_TOO_LARGE);
+        }
+        if (contentLength >= 0 && contentLength <= AGGREGATE_REQUEST_SIZE) {
+            return DataBufferUtils.join(exchange.getRequest().getBody())
+                    .defaultIfEmpty(response.bufferFactory().wrap(new byte[0]))
+                    .flatMap(body -> handler.apply(body.asInputStream(true)));
+        }
+        return Mono.defer(() -> {
+            McpDataBufferInputStream body = new McpDataBufferInputStream(maxRequestSize, asyncTimeout);
+            exchange.getRequest().getBody().subscribe(body);
+            return handler.apply(body);
+        }).subscribeOn(Schedulers.elastic());
+    }
+
+    /**
+     * 处理POST请求, 请求体解码与JSON-RPC解析在当前线程完成, 工具调用结果就绪后写出响应
+     *
+     * @param exchange 当前交换
+     * @param response 写出响应使用的响应对象
+     * @param body     请求体, 处理后关闭
+     */
+    private Mono<Void> handlePost(ServerWebExchange exchange, ServerHttpResponse response, InputStream body) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        try {
+            String contentEncoding = headers.getFirst(HttpHeaders.CONTENT_ENCODING);
+            InputStream decoded = McpContentEncoding.decode(body, contentEncoding, getMaxRequestSize());
+            if (decoded == null) {
+                log.warn("不支持的请求体编码: {}", contentEncoding);
+                return complete(response, HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+            }
+            McpJsonRpcMessage message = getJsonCodec().readMessage(decoded);
+            McpExchange mcpExchange = new McpExchange(headers::getFirst, remoteAddress(exchange.getRequest()));
+            McpJsonRpcResponse sessionError = bindSession(message, mcpExchange);
+            if (sessionError != null) {
+                return writeResponse(sessionError, response);
+            }
+            if (mcpExchange.isNewSession()) {
+                response.getHeaders().set(SESSION_ID_HEADER, mcpExchange.getSession().getId());
+            }
+            if (message.isBatch()) {
+                return handleBatch(message.getRequests(), mcpExchange, response);
+            }
+            McpJsonRpcRequest rpcRequest = message.getRequests().get(0);
+            getMetrics().messageReceived(rpcRequest.getMethod());
+            if (rpcRequest.isNotification()) {
+                handleNotification(rpcRequest, mcpExchange);
+                return complete(response, HttpStatus.ACCEPTED);
+            }
+            if ("tools/call".equals(rpcRequest.getMethod()) && acceptsEventStream(headers.getFirst(HttpHeaders.ACCEPT))) {
+                McpToolInvoker invoker = getToolInvokers().get(getToolName(rpcRequest));
+                if (invoker != null && (invoker.isProgressReporting() || invoker.isStreaming())) {
+                    return handleCallToolStream(rpcRequest, mcpExchange, response);
+                }
+            }
+            CompletableFuture<McpJsonRpcResponse> future = dispatch(rpcRequest, mcpExchange, McpProgressReporter.NOOP);
+            return completeResponse(future, rpcRequest.getId(), mcpExchange, response,
+                    rpcResponse -> writeResponse(rpcResponse, response));
+        } catch (McpContentEncoding.PayloadTooLargeException | DataBufferLimitException e) {
+            log.warn("MCP请求处理失败: {}", e.getMessage());
+            return complete(response, HttpStatus.PAYLOAD_TOO_LARGE);
+        } catch (ZipException e) {
+            log.warn("MCP请求体解压失败: {}", e.getMessage());
+            return complete(response, HttpStatus.BAD_REQUEST);
+        } catch (McpJsonRpcException e) {
+            log.warn("MCP请求解析失败: {}", e.getMessage());
+            return writeResponse(requestErrorResponse(e), response);
+        } catch (Exception e) {
+            log.warn("MCP请求处理失败: {}", e.getMessage());
+            return complete(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        } finally {
+            closeQuietly(body);
+        }
+    }
+
+    /**
+     * 处理批量请求, 各条目并发分发, 响应按请求顺序组装并忽略通知消息
+     */
+    private Mono<Void> handleBatch(List<McpJsonRpcRequest> requests, McpExchange mcpExchange,
+                                   ServerHttpResponse response) throws IOException {
+        List<CompletableFuture<McpJsonRpcResponse>> futures = dispatchBatch(requests, mcpExchange);
+        if (futures == null) {
+            return writeResponse(invalidBatchResponse(), response);
+        }
+        if (futures.isEmpty()) {
+            return complete(response, HttpStatus.ACCEPTED);
+        }
+
+        CompletableFuture<List<CompletableFuture<McpJsonRpcResponse>>> all = CompletableFuture
+                .allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> futures);
+        McpJsonCodec jsonCodec = getJsonCodec();
+        return completeResponse(all, NullNode.getInstance(), mcpExchange, response, completed -> {
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON_UTF8);
+            return streamBody(response, out -> {
+                try (JsonGenerator generator = jsonCodec.createGenerator(out)) {
+                    generator.writeStartArray();
+                    for (CompletableFuture<McpJsonRpcResponse> future : completed) {
+                        McpJsonRpcResponse rpcResponse = future.join();
+                        recordError(rpcResponse);
+                        rpcResponse.writeTo(generator, jsonCodec);
+                    }
+                    generator.writeEndArray();
+                }
+            });
+        });
+    }
+
+    /**
+     * 以 text/event-stream 处理工具调用请求
+     * 执行期间的进度通知、Flux 元素与最终响应依次作为SSE事件写出
+     */
+    private Mono<Void> handleCallToolStream(McpJsonRpcRequest rpcRequest, McpExchange mcpExchange,
+                                            ServerHttpResponse response) throws IOException {
+        McpJsonCodec jsonCodec = getJsonCodec();
+        JsonNode progressToken = rpcRequest.getParams().path("_meta").get("progressToken");
+        Flux<DataBuffer> events = Flux.create(sink -> {
+            McpSseWriter sseWriter = new McpSseWriter(new McpSinkOutputStream(sink, response.bufferFactory()), jsonCodec);
+            sink.onCancel(() -> {
+                sseWriter.close();
+                mcpExchange.cancelCalls("连接已断开");
+            });
+            CompletableFuture<McpJsonRpcResponse> future;
+            try {
+                future = handleCallTool(rpcRequest, mcpExchange, new McpProgressReporter(sseWriter, progressToken));
+            } catch (IOException e) {
+                sink.error(e);
+                return;
+            }
+            // 最终结果的序列化可能阻塞, 在 elastic 线程中写出
+            withTimeout(future, rpcRequest.getId(), mcpExchange).publishOn(Schedulers.elastic()).subscribe(rpcResponse -> {
+                try {
+                    recordError(rpcResponse);
+                    sseWriter.sendLast(g -> rpcResponse.writeTo(g, jsonCodec));
+                    sink.complete();
+                } catch (IOException e) {
+                    sink.error(e);
+                }
+            }, e -> {
+                sseWriter.close();
+                sink.error(e);
+            });
+        });
+        setEventStreamHeaders(response);
+        return response.writeAndFlushWith(events.map(Mono::just));
+    }
+
+    /**
+     * 在异步结果就绪后写出响应, 超时后取消本次请求发起的工具调用并返回 -32003 错误响应, 连接中断时取消工具调用
+     * 结果意外失败时返回 -32603 错误响应; 写出结果本身失败时不再写出错误响应
+     *
+     * @param future   异步结果
+     * @param id       请求ID, 用于错误响应
+     * @param response HTTP响应
+     * @param writer   结果写出器
+     */
+    private <T> Mono<Void> completeResponse(CompletableFuture<T> future, JsonNode id, McpExchange mcpExchange,
+                                            ServerHttpResponse response, Function<T, Mono<Void>> writer) {
+        if (future.isDone() && !future.isCompletedExceptionally()) {
+            return writer.apply(future.join());
+        }
+        return Mono.fromFuture(future)
+                .timeout(Duration.ofMillis(asyncTimeout))
+                .doOnCancel(() -> mcpExchange.cancelCalls("连接已断开"))
+                .map(writer)
+                .onErrorResume(e -> Mono.just(writeResponse(errorResponse(e, id, mcpExchange), response)))
+                .flatMap(Function.identity());
+    }
+
+    /**
+     * 为单个调用的结果加上响应超时, 超时后取消工具调用并以错误响应结束, 结果意外失败时同样以错误响应结束
+     */
+    private Mono<McpJsonRpcResponse> withTimeout(CompletableFuture<McpJsonRpcResponse> future, JsonNode id,
+                                                 McpExchange mcpExchange) {
+        return Mono.fromFuture(future)
+                .timeout(Duration.ofMillis(asyncTimeout))
+                .onErrorResume(e -> Mono.just(errorResponse(e, id, mcpExchange)));
+    }
+
+    /**
+     * 等待结果超时或结果意外失败时的错误响应, 与Servlet传输一致
+     */
+    private static McpJsonRpcResponse errorResponse(Throwable e, JsonNode id, McpExchange mcpExchange) {
+        if (e instanceof TimeoutException) {
+            log.warn("MCP请求处理超时, 请求ID: {}", id);
+            mcpExchange.cancelCalls("请求处理超时");
+            return timeoutResponse(id);
+        }
+        return failureResponse(id, e);
+    }
+
+    /**
+     * 将工具返回的 Mono 转换为 CompletableFuture, Flux 在推送各元素后汇总为最终结果
+     * 取消 CompletableFuture 时会取消对上游的订阅
+     */
+    @Override
+    protected Object adaptResult(Object result, McpProgressReporter progressReporter) {
+        if (result instanceof Mono) {
+            return ((Mono<?>) result).toFuture();
+        }
+        if (result instanceof Publisher) {
+            return collect(Flux.from((Publisher<?>) result), progressReporter).toFuture();
+        }
+        return result;
+    }
+
+    /**
+     * 逐个元素推送 notifications/message 通知(非文本元素以JSON表示)
+     * 元素全部为文本时最终结果为拼接后的文本, 否则为元素列表
+     */
+    private Mono<Object> collect(Flux<?> elements, McpProgressReporter progressReporter) {
+        ObjectMapper objectMapper = getJsonCodec().getObjectMapper();
+        return elements
+                .doOnNext(element -> progressReporter.partial(element instanceof CharSequence
+                        ? element.toString() : toJson(objectMapper, element)))
+                .collectList()
+                .map(list -> {
+                    StringBuilder text = new StringBuilder();
+                    for (Object element : list) {
+                        if (!(element instanceof CharSequence)) {
+                            return list;
+                        }
+                        text.append((CharSequence) element);
+                    }
+                    return text.toString();
+                });
+    }
+
+    private static String toJson(ObjectMapper objectMapper, Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    /**
+     * 写出单个请求的响应
+     * 预构建模板与错误响应直接拼接写出; 结果响应分块流式写出
+     * tools/list 携带 ETag 供客户端判断工具目录是否变化; POST 不是安全方法, 不按 If-None-Match 返回 304
+     *
+     * @param rpcResponse 待写出的响应
+     * @param response    HTTP响应
+     */
+    private Mono<Void> writeResponse(McpJsonRpcResponse rpcResponse, ServerHttpResponse response) {
+        McpResponseTemplate template = rpcResponse.getTemplate();
+        if (template == getListToolsTemplate()) {
+            response.getHeaders().setETag(template.getEtag());
+        }
+
+        recordError(rpcResponse);
+        response.setStatusCode(rpcResponse.getStatus());
+        if (rpcResponse.getStatus() == HttpStatus.TOO_MANY_REQUESTS) {
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        }
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON_UTF8);
+        McpJsonCodec jsonCodec = getJsonCodec();
+        if (template != null) {
+            return writeBody(response, out -> template.writeTo(out, jsonCodec.writeIdAsBytes(rpcResponse.getId())));
+        }
+        BodyWriter writer = out -> {
+            try (JsonGenerator generator = jsonCodec.createGenerator(out)) {
+                rpcResponse.writeTo(generator, jsonCodec);
+            }
+        };
+        return rpcResponse.isError() ? writeBody(response, writer) : streamBody(response, writer);
+    }
+
+    /**
+     * 在 elastic 线程中序列化响应体, 按网络层的需求分块写出, 不设置 Content-Length
+     * 结果序列化可能读取 InputStream、Path 等阻塞来源, 不能在事件循环线程中进行
+     */
+    private static Mono<Void> streamBody(ServerHttpResponse response, BodyWriter writer) {
+        Flux<DataBuffer> body = Flux.<DataBuffer>create(sink -> {
+            try (OutputStream out = McpSinkOutputStream.awaitingDemand(sink, response.bufferFactory())) {
+                writer.write(out);
+            } catch (IOException | RuntimeException e) {
+                sink.error(e);
+                return;
+            }
+            sink.complete();
+        }).subscribeOn(Schedulers.elastic(), false);
+        return response.writeWith(body);
+    }
+
+    /**
+     * 将较小的响应体序列化到一个 DataBuffer 后写出
+     */
+    private static Mono<Void> writeBody(ServerHttpResponse response, BodyWriter writer) {
+        DataBuffer buffer = response.bufferFactory().allocateBuffer();
+        try {
+            writer.write(buffer.asOutputStream());
+        } catch (IOException | RuntimeException e) {
+            DataBufferUtils.release(buffer);
+            return Mono.error(e);
+        }
+        response.getHeaders().setContentLength(buffer.readableByteCount());
+        return response.writeWith(Mono.just(buffer));
+    }
+
+    private static Mono<Void> complete(ServerHttpResponse response, HttpStatus status) {
+        if (!response.isCommitted()) {
+            response.setStatusCode(status);
+        }
+        return response.setComplete();
+    }
+
+    private static void setEventStreamHeaders(ServerHttpResponse response) {
+        HttpHeaders headers = response.getHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, TEXT_EVENT_STREAM_UTF8);
+        headers.set(HttpHeaders.CACHE_CONTROL, "no-cache");
+        headers.set("X-Accel-Buffering", "no");
+    }
+
+    private static DataBuffer toEvent(ServerHttpResponse response, String message) {
+        byte[] data = message.getBytes(StandardCharsets.UTF_8);
+        DataBuffer buffer = response.bufferFactory().allocateBuffer(SSE_EVENT_PREFIX.length + data.length + SSE_EVENT_SUFFIX.length);
+        return buffer.write(SSE_EVENT_PREFIX).write(data).write(SSE_EVENT_SUFFIX);
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            log.debug("关闭请求体失败: {}", e.getMessage());
+        }
+    }
+
+    private static String remoteAddress(ServerHttpRequest request) {
+        InetSocketAddress address = request.getRemoteAddress();
+        if (address == null) {
+            return null;
+        }
+        return address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString();
+    }
+
+    /**
+     * 响应体写出器
+     */
+    @FunctionalInterface
+    private interface BodyWriter {
+
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * 统计实际写出的响应字节数
+     */
+    private static class CountingResponse extends ServerHttpResponseDecorator {
+
+        private final AtomicLong count = new AtomicLong();
+
+        CountingResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return super.writeWith(Flux.from(body).doOnNext(buffer -> count.addAndGet(buffer.readableByteCount())));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return super.writeAndFlushWith(Flux.from(body).map(events ->
+                    Flux.from(events).doOnNext(buffer -> count.addAndGet(buffer.readableByteCount()))));
+        }
+    }
+}
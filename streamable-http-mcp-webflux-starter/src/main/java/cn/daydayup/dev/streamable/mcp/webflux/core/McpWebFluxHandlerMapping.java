@@ -0,0 +1,89 @@
+package cn.daydayup.dev.streamable.mcp.webflux.core;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.reactive.handler.AbstractHandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @ClassName McpWebFluxHandlerMapping
+ * @Description 将 @McpServerEndpoint 的路径映射到对应的 McpWebFluxHandler, 优先于注解控制器与路由函数匹配
+ * 映射可在运行时增删, 请求匹配时无锁读取
+ * @Author ZhaoYanNing
+ * @Date 2025/10/25 15:00
+ * @Version 1.0
+ */
+public class McpWebFluxHandlerMapping extends AbstractHandlerMapping {
+
+    /**
+     * 已注册的接口, 键为接口路径
+     */
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    public McpWebFluxHandlerMapping() {
+        setOrder(-2);
+    }
+
+    /**
+     * 注册MCP接口
+     *
+     * @param path    接口路径
+     * @param handler 接口处理器
+     * @throws IllegalStateException 路径已注册
+     */
+    public void registerEndpoint(String path, McpWebFluxHandler handler) {
+        Endpoint endpoint = new Endpoint(getPathPatternParser().parse(path), handler);
+        if (endpoints.putIfAbsent(path, endpoint) != null) {
+            throw new IllegalStateException("Mcp服务接口已存在: " + path);
+        }
+    }
+
+    /**
+     * 移除MCP接口
+     *
+     * @param path 接口路径
+     * @return 被移除的接口处理器, 不存在时为 null
+     */
+    public McpWebFluxHandler unregisterEndpoint(String path) {
+        Endpoint endpoint = endpoints.remove(path);
+        return endpoint != null ? endpoint.handler : null;
+    }
+
+    /**
+     * 已注册的接口处理器
+     *
+     * @param path 接口路径
+     * @return 接口处理器, 不存在时为 null
+     */
+    public McpWebFluxHandler getEndpoint(String path) {
+        Endpoint endpoint = endpoints.get(path);
+        return endpoint != null ? endpoint.handler : null;
+    }
+
+    @Override
+    protected Mono<?> getHandlerInternal(ServerWebExchange exchange) {
+        PathContainer lookupPath = exchange.getRequest().getPath().pathWithinApplication();
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            if (entry.getValue().pattern.matches(lookupPath)) {
+                return Mono.just(entry.getValue().handler);
+            }
+        }
+        return Mono.empty();
+    }
+
+    private static final class Endpoint {
+
+        final PathPattern       pattern;
+        final McpWebFluxHandler handler;
+
+        Endpoint(PathPattern pattern, McpWebFluxHandler handler) {
+            this.pattern = pattern;
+            this.handler = handler;
+        }
+    }
+}
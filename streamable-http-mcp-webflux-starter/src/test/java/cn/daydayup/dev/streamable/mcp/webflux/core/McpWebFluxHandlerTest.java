@@ -0,0 +1,179 @@
+package cn.daydayup.dev.streamable.mcp.webflux.core;
+
+import cn.daydayup.dev.streamable.mcp.starter.annotation.McpFunction;
+import cn.daydayup.dev.streamable.mcp.starter.annotation.McpParam;
+import cn.daydayup.dev.streamable.mcp.starter.annotation.McpServerEndpoint;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @ClassName McpWebFluxHandlerTest
+ * @Description McpWebFluxHandler 的端到端测试: initialize、tools/call(含分块读取的大请求体与流式写出的大结果)、SSE推送与等待超时
+ * @Author ZhaoYanNing
+ * @Date 2025/10/26 11:00
+ * @Version 1.0
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "mcp.server.async.timeout=1s")
+public class McpWebFluxHandlerTest {
+
+    private static final String PATH = "/mcp/test";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    public void initializeCreatesSession() throws Exception {
+        byte[] body = webTestClient.post().uri(PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .syncBody("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{}}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists("Mcp-Session-Id")
+                .expectBody().returnResult().getResponseBody();
+
+        JsonNode response = objectMapper.readTree(body);
+        assertThat(response.path("id").asInt()).isEqualTo(1);
+        assertThat(response.path("result").path("serverInfo").path("name").asText()).isEqualTo("test");
+    }
+
+    @Test
+    public void callToolWithLargeRequestAndResult() throws Exception {
+        String sessionId = initialize();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            text.append('a');
+        }
+        String request = "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/call\",\"params\":{\"name\":\"repeat\","
+                + "\"arguments\":{\"text\":\"" + text + "\",\"times\":3}}}";
+
+        byte[] body = webTestClient.post().uri(PATH)
+                .header("Mcp-Session-Id", sessionId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .syncBody(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseBody();
+
+        JsonNode response = objectMapper.readTree(body);
+        assertThat(response.path("id").asInt()).isEqualTo(2);
+        assertThat(response.path("result").path("content").path(0).path("text").asText()).hasSize(300000);
+    }
+
+    @Test
+    public void callStreamingToolAsEventStream() {
+        String sessionId = initialize();
+
+        byte[] content = webTestClient.post().uri(PATH)
+                .header("Mcp-Session-Id", sessionId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON, MediaType.TEXT_EVENT_STREAM)
+                .syncBody("{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"tools/call\",\"params\":{\"name\":\"count\","
+                        + "\"arguments\":{\"n\":3}}}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .expectBody().returnResult().getResponseBody();
+
+        String events = new String(content, StandardCharsets.UTF_8);
+        assertThat(events).contains("\"method\":\"notifications/message\"");
+        assertThat(events).contains("\"text\":\"c0;\"", "\"text\":\"c1;\"", "\"text\":\"c2;\"");
+        assertThat(events).contains("\"id\":3,\"result\":{\"content\":[{\"type\":\"text\",\"text\":\"c0;c1;c2;\"}]}");
+    }
+
+    @Test
+    public void asyncTimeoutAnswersRequestTimeout() throws Exception {
+        String sessionId = initialize();
+
+        byte[] body = webTestClient.post().uri(PATH)
+                .header("Mcp-Session-Id", sessionId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .syncBody("{\"jsonrpc\":\"2.0\",\"id\":4,\"method\":\"tools/call\",\"params\":{\"name\":\"sleep\","
+                        + "\"arguments\":{\"millis\":10000}}}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseBody();
+
+        JsonNode response = objectMapper.readTree(body);
+        assertThat(response.path("id").asInt()).isEqualTo(4);
+        assertThat(response.path("error").path("code").asInt()).isEqualTo(-32003);
+    }
+
+    @Test
+    public void asyncTimeoutEndsEventStreamWithErrorEvent() {
+        String sessionId = initialize();
+
+        byte[] content = webTestClient.post().uri(PATH)
+                .header("Mcp-Session-Id", sessionId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON, MediaType.TEXT_EVENT_STREAM)
+                .syncBody("{\"jsonrpc\":\"2.0\",\"id\":5,\"method\":\"tools/call\",\"params\":{\"name\":\"count\","
+                        + "\"arguments\":{\"n\":1000}}}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseBody();
+
+        String events = new String(content, StandardCharsets.UTF_8);
+        assertThat(events).contains("\"text\":\"c0;\"");
+        assertThat(events).endsWith("\"id\":5,\"error\":{\"code\":-32003,\"message\":\"请求处理超时\"}}\n\n");
+    }
+
+    private String initialize() {
+        return webTestClient.post().uri(PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .syncBody("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{}}")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders().getFirst("Mcp-Session-Id");
+    }
+
+    @Configuration
+    @EnableAutoConfiguration
+    @Import(TestEndpoint.class)
+    static class TestConfiguration {
+    }
+
+    @McpServerEndpoint(path = PATH, name = "test", version = "1.0")
+    public static class TestEndpoint {
+
+        @McpFunction(name = "repeat", description = "将文本重复指定次数")
+        public String repeat(@McpParam(name = "text", description = "文本") String text,
+                             @McpParam(name = "times", description = "次数") Integer times) {
+            StringBuilder result = new StringBuilder(text.length() * times);
+            for (int i = 0; i < times; i++) {
+                result.append(text);
+            }
+            return result.toString();
+        }
+
+        @McpFunction(name = "count", description = "逐个推送计数")
+        public Flux<String> count(@McpParam(name = "n", description = "个数") Integer n) {
+            return Flux.interval(Duration.ofMillis(20)).take(n).map(i -> "c" + i + ";");
+        }
+
+        @McpFunction(name = "sleep", description = "等待指定时长")
+        public Mono<String> sleep(@McpParam(name = "millis", description = "时长(毫秒)") Integer millis) {
+            return Mono.delay(Duration.ofMillis(millis)).map(i -> "done");
+        }
+    }
+}